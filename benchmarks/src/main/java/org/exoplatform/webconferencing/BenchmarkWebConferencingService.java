@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing;
+
+import org.exoplatform.commons.api.settings.SettingService;
+import org.exoplatform.services.listener.ListenerService;
+import org.exoplatform.services.organization.OrganizationService;
+import org.exoplatform.social.core.manager.IdentityManager;
+import org.exoplatform.social.core.space.spi.SpaceService;
+import org.exoplatform.webconferencing.cluster.ClusterEventBus;
+import org.exoplatform.webconferencing.dao.CallDAO;
+import org.exoplatform.webconferencing.dao.ParticipantDAO;
+import org.exoplatform.webconferencing.support.CallMetricsService;
+
+/**
+ * Web Conferencing service for benchmarks: users are generated instead of reading Organization and Social
+ * services, and the space service is given explicitly as the service is not started in a container. It
+ * also opens protected methods used as benchmark targets.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: BenchmarkWebConferencingService.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class BenchmarkWebConferencingService extends WebConferencingService {
+
+  /** The Constant IM_TYPES, IM accounts generated for each user. */
+  public static final String[] IM_TYPES = new String[] { "skype", "webrtc", "facebook" };
+
+  /**
+   * Instantiates a new benchmark web conferencing service.
+   *
+   * @param organization the organization (stub)
+   * @param socialIdentityManager the social identity manager (stub)
+   * @param listenerService the listener service (stub)
+   * @param settingService the setting service (stub)
+   * @param spaceService the space service (stub)
+   * @param callStorage the call storage
+   * @param participantsStorage the participants storage
+   * @param clusterBus the cluster bus
+   * @param metrics the metrics
+   */
+  public BenchmarkWebConferencingService(OrganizationService organization,
+                                         IdentityManager socialIdentityManager,
+                                         ListenerService listenerService,
+                                         SettingService settingService,
+                                         SpaceService spaceService,
+                                         CallDAO callStorage,
+                                         ParticipantDAO participantsStorage,
+                                         ClusterEventBus clusterBus,
+                                         CallMetricsService metrics) {
+    super(organization, socialIdentityManager, listenerService, settingService, callStorage, participantsStorage, clusterBus, metrics);
+    this.spaceService = spaceService;
+  }
+
+  /**
+   * Generate a user with IM accounts and links, as it would be read from Organization and Social
+   * services.
+   *
+   * @param id the id
+   * @return the user info
+   */
+  @Override
+  protected UserInfo readUserInfo(String id) {
+    UserInfo info = new UserInfo(id, "First-" + id, "Last-" + id);
+    for (String imType : IM_TYPES) {
+      info.addImAccount(imType, id + "." + imType);
+    }
+    info.setAvatarLink("/rest/v1/social/users/" + id + "/avatar");
+    info.setProfileLink("/portal/intranet/profile/" + id);
+    return info;
+  }
+
+  /**
+   * Space info with lazy members.
+   *
+   * @param spacePrettyName the space pretty name
+   * @return the space info
+   * @throws IdentityStateException if a member cannot be read
+   */
+  public SpaceInfo space(String spacePrettyName) throws IdentityStateException {
+    return spaceInfo(spacePrettyName, null);
+  }
+
+  /**
+   * Fire user call state changed, as it's done for group call participants.
+   *
+   * @param userId the user id
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param callState the call state
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   */
+  public void fireStateChanged(String userId,
+                               String callId,
+                               String providerType,
+                               String callState,
+                               String ownerId,
+                               String ownerType) {
+    fireUserCallStateChanged(userId, callId, providerType, callState, ownerId, ownerType);
+  }
+}
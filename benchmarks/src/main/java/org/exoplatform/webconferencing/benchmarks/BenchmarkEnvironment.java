@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+
+import org.exoplatform.commons.api.settings.SettingService;
+import org.exoplatform.services.listener.ListenerService;
+import org.exoplatform.services.organization.OrganizationService;
+import org.exoplatform.services.security.ConversationState;
+import org.exoplatform.services.security.Identity;
+import org.exoplatform.social.core.manager.IdentityManager;
+import org.exoplatform.social.core.space.model.Space;
+import org.exoplatform.social.core.space.spi.SpaceService;
+import org.exoplatform.webconferencing.BenchmarkWebConferencingService;
+import org.exoplatform.webconferencing.cluster.LoopbackEventBus;
+import org.exoplatform.webconferencing.support.CallMetricsService;
+
+/**
+ * Web Conferencing service with calls storage in embedded H2 database, generated users and spaces of
+ * given size. It is not a container: DAOs transactions are not intercepted here, thus storage
+ * operations should run via {@link #inTransaction(Work)} or between {@link #begin()} and {@link #end()}.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: BenchmarkEnvironment.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class BenchmarkEnvironment {
+
+  /** The Constant PERSISTENCE_UNIT. */
+  public static final String PERSISTENCE_UNIT = "webconferencing-benchmarks";
+
+  /** The Constant USER_PREFIX. */
+  public static final String USER_PREFIX      = "user";
+
+  /**
+   * Work done in a storage transaction.
+   *
+   * @param <T> the result type
+   */
+  @FunctionalInterface
+  public interface Work<T> {
+
+    /**
+     * Run the work.
+     *
+     * @return the result
+     * @throws Exception if error happen
+     */
+    T run() throws Exception;
+  }
+
+  /** The entity manager factory. */
+  protected final EntityManagerFactory           entityManagerFactory;
+
+  /** The entity managers of benchmark threads. */
+  protected final ThreadLocal<EntityManager>      entityManagers = new ThreadLocal<>();
+
+  /** The cluster bus. */
+  protected final LoopbackEventBus                clusterBus;
+
+  /** The metrics. */
+  protected final CallMetricsService              metrics;
+
+  /** The web conferencing. */
+  protected final BenchmarkWebConferencingService webConferencing;
+
+  /**
+   * Instantiates a new benchmark environment.
+   *
+   * @param spaceMembers the number of members in each space
+   */
+  public BenchmarkEnvironment(int spaceMembers) {
+    this.entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+    this.clusterBus = new LoopbackEventBus(null);
+    this.metrics = new CallMetricsService();
+
+    SpaceService spaceService = mock(SpaceService.class);
+    when(spaceService.getSpaceByPrettyName(anyString())).thenAnswer(invocation -> {
+      String prettyName = invocation.getArgument(0);
+      Space space = new Space();
+      space.setPrettyName(prettyName);
+      space.setDisplayName("Space " + prettyName);
+      space.setGroupId("/spaces/" + prettyName);
+      space.setUrl(prettyName);
+      space.setMembers(userIds(spaceMembers));
+      return space;
+    });
+
+    this.webConferencing = new BenchmarkWebConferencingService(mock(OrganizationService.class),
+                                                               mock(IdentityManager.class),
+                                                               mock(ListenerService.class),
+                                                               mock(SettingService.class),
+                                                               spaceService,
+                                                               new EmbeddedCallDAO(this),
+                                                               new EmbeddedParticipantDAO(this),
+                                                               clusterBus,
+                                                               metrics);
+  }
+
+  /**
+   * Generate user IDs.
+   *
+   * @param count the count
+   * @return the user IDs
+   */
+  public static String[] userIds(int count) {
+    String[] ids = new String[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = USER_PREFIX + i;
+    }
+    return ids;
+  }
+
+  /**
+   * Sets the current user of this thread, it is the user who runs call operations.
+   *
+   * @param userId the new current user
+   */
+  public static void setCurrentUser(String userId) {
+    ConversationState.setCurrent(new ConversationState(new Identity(userId)));
+  }
+
+  /**
+   * Gets the web conferencing service.
+   *
+   * @return the web conferencing
+   */
+  public BenchmarkWebConferencingService getWebConferencing() {
+    return webConferencing;
+  }
+
+  /**
+   * Gets the metrics.
+   *
+   * @return the metrics
+   */
+  public CallMetricsService getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets the entity manager of current thread.
+   *
+   * @return the entity manager
+   */
+  public EntityManager getEntityManager() {
+    EntityManager em = entityManagers.get();
+    if (em == null || !em.isOpen()) {
+      em = entityManagerFactory.createEntityManager();
+      entityManagers.set(em);
+    }
+    return em;
+  }
+
+  /**
+   * Run a work in a storage transaction of current thread. Nested works join the outer transaction.
+   *
+   * @param <T> the result type
+   * @param work the work
+   * @return the result
+   * @throws Exception if the work failed, the transaction will be rolled back
+   */
+  public <T> T inTransaction(Work<T> work) throws Exception {
+    EntityTransaction tx = getEntityManager().getTransaction();
+    if (tx.isActive()) {
+      return work.run();
+    }
+    tx.begin();
+    try {
+      T result = work.run();
+      tx.commit();
+      return result;
+    } catch (Exception e) {
+      if (tx.isActive()) {
+        tx.rollback();
+      }
+      throw e;
+    } finally {
+      // Don't let the persistence context grow with benchmark iterations
+      getEntityManager().clear();
+    }
+  }
+
+  /**
+   * Begin a storage transaction of current thread, if not already active. It should be followed by
+   * {@link #end()} in a <code>finally</code> block.
+   */
+  public void begin() {
+    EntityTransaction tx = getEntityManager().getTransaction();
+    if (!tx.isActive()) {
+      tx.begin();
+    }
+  }
+
+  /**
+   * End the storage transaction of current thread: commit it, or roll back if it was marked for rollback.
+   */
+  public void end() {
+    EntityManager em = getEntityManager();
+    EntityTransaction tx = em.getTransaction();
+    try {
+      if (tx.isActive()) {
+        if (tx.getRollbackOnly()) {
+          tx.rollback();
+        } else {
+          tx.commit();
+        }
+      }
+    } finally {
+      em.clear();
+    }
+  }
+
+  /**
+   * Stop the service and close the database.
+   */
+  public void close() {
+    webConferencing.stop();
+    EntityManager em = entityManagers.get();
+    if (em != null && em.isOpen()) {
+      em.close();
+    }
+    entityManagerFactory.close();
+  }
+}
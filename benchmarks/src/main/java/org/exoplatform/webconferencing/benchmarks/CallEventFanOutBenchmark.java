@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.exoplatform.webconferencing.CallState;
+import org.exoplatform.webconferencing.UserCallEvent;
+
+/**
+ * Fan-out of a call state event to participants of a large group call, as user channels publish it. An
+ * event encoded for each recipient compared with a single event shared by all recipients and encoded once.
+ * Run with <code>-prof gc</code> to see allocations per operation.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallEventFanOutBenchmark.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallEventFanOutBenchmark {
+
+  /** The call id. */
+  protected static final String CALL_ID       = "webrtc-benchmark_space";
+
+  /** The provider type. */
+  protected static final String PROVIDER_TYPE = "webrtc";
+
+  /** The owner id. */
+  protected static final String OWNER_ID      = "benchmark_space";
+
+  /** The owner type. */
+  protected static final String OWNER_TYPE    = "space";
+
+  /** The number of event recipients. */
+  @Param({ "1000", "10000" })
+  public int                    recipients;
+
+  /**
+   * Encode the event for each recipient.
+   *
+   * @param blackhole the blackhole
+   */
+  @Benchmark
+  public void encodePerRecipient(Blackhole blackhole) {
+    for (int i = 0; i < recipients; i++) {
+      UserCallEvent event = UserCallEvent.callState(CALL_ID, PROVIDER_TYPE, CallState.STARTED, OWNER_ID, OWNER_TYPE);
+      blackhole.consume(event.toJSON());
+    }
+  }
+
+  /**
+   * Share one event by all recipients, it's encoded once.
+   *
+   * @param blackhole the blackhole
+   */
+  @Benchmark
+  public void encodeShared(Blackhole blackhole) {
+    UserCallEvent event = UserCallEvent.callState(CALL_ID, PROVIDER_TYPE, CallState.STARTED, OWNER_ID, OWNER_TYPE);
+    for (int i = 0; i < recipients; i++) {
+      blackhole.consume(event.toJSON());
+    }
+  }
+}
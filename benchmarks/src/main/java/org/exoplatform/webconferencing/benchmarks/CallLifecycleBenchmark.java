@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.exoplatform.webconferencing.BenchmarkWebConferencingService;
+import org.exoplatform.webconferencing.CallInfo;
+import org.exoplatform.webconferencing.WebConferencingService;
+import org.exoplatform.webconferencing.support.CallMetricsService;
+
+/**
+ * Group call operations against calls storage in embedded H2 database: a whole call lifecycle (add, join
+ * and leave of all participants, stop with removal) and joining/leaving an existing call. Each benchmark
+ * thread is a caller with its own room. Operations latency from the service metrics, split on storage and
+ * service time, printed at the end of the trial.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallLifecycleBenchmark.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CallLifecycleBenchmark {
+
+  /** The Constant PROVIDER_TYPE. */
+  public static final String PROVIDER_TYPE = "webrtc";
+
+  /**
+   * A caller, one per benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class Caller {
+
+    /** The callers counter. */
+    static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /** The room id. */
+    String                     roomId;
+
+    /** The participants. */
+    List<String>               parts;
+
+    /** The calls counter of this caller. */
+    int                        calls;
+
+    /** The existing call id. */
+    String                     existingCallId;
+
+    /**
+     * Setup the caller and add its existing call.
+     *
+     * @param benchmark the benchmark
+     * @throws Exception if error happen
+     */
+    @Setup(Level.Trial)
+    public void setup(CallLifecycleBenchmark benchmark) throws Exception {
+      int index = COUNTER.getAndIncrement();
+      String[] userIds = BenchmarkEnvironment.userIds(benchmark.participants * (index + 1));
+      parts = Arrays.asList(Arrays.copyOfRange(userIds, benchmark.participants * index, userIds.length));
+      roomId = "room" + index;
+      BenchmarkEnvironment.setCurrentUser(parts.get(0));
+      existingCallId = PROVIDER_TYPE + "-" + roomId + "-existing";
+      benchmark.environment.inTransaction(() -> benchmark.webConferencing.addCall(existingCallId,
+                                                                                 roomId + "-existing",
+                                                                                 WebConferencingService.OWNER_TYPE_CHATROOM,
+                                                                                 "Existing call of " + roomId,
+                                                                                 PROVIDER_TYPE,
+                                                                                 parts));
+      // The caller stays in the call, thus it will not be stopped when others leave
+      String callerId = parts.get(0);
+      benchmark.environment.inTransaction(() -> benchmark.webConferencing.joinCall(existingCallId,
+                                                                                  callerId,
+                                                                                  callerId + "-client"));
+    }
+
+    /**
+     * Stop the existing call.
+     *
+     * @param benchmark the benchmark
+     * @throws Exception if error happen
+     */
+    @TearDown(Level.Trial)
+    public void tearDown(CallLifecycleBenchmark benchmark) throws Exception {
+      benchmark.environment.inTransaction(() -> benchmark.webConferencing.stopCall(existingCallId, true));
+    }
+  }
+
+  /** The number of participants in a call. */
+  @Param({ "2", "20" })
+  public int                                participants;
+
+  /** The environment. */
+  protected BenchmarkEnvironment            environment;
+
+  /** The web conferencing. */
+  protected BenchmarkWebConferencingService webConferencing;
+
+  /**
+   * Create the environment.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    environment = new BenchmarkEnvironment(participants);
+    webConferencing = environment.getWebConferencing();
+  }
+
+  /**
+   * Print the operations latency and close the environment.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    CallMetricsService metrics = environment.getMetrics();
+    for (CallMetricsService.OperationMetrics m : metrics.getOperations().values()) {
+      if (m.getTotal().getCount() > 0) {
+        System.out.println(String.format("%n%s: count %d, p50 %.3f ms, p99 %.3f ms (storage p50 %.3f ms, p99 %.3f ms)",
+                                         m.getName(),
+                                         m.getTotal().getCount(),
+                                         m.getTotal().getPercentile(50),
+                                         m.getTotal().getPercentile(99),
+                                         m.getStorage().getPercentile(50),
+                                         m.getStorage().getPercentile(99)));
+      }
+    }
+    environment.close();
+  }
+
+  /**
+   * Add a call, join and leave all its participants, then stop and remove the call.
+   *
+   * @param caller the caller
+   * @return the stopped call
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public CallInfo callLifecycle(Caller caller) throws Exception {
+    String callId = PROVIDER_TYPE + "-" + caller.roomId + "-" + caller.calls++;
+    environment.inTransaction(() -> webConferencing.addCall(callId,
+                                                            caller.roomId,
+                                                            WebConferencingService.OWNER_TYPE_CHATROOM,
+                                                            "Call of " + caller.roomId,
+                                                            PROVIDER_TYPE,
+                                                            caller.parts));
+    for (String partId : caller.parts) {
+      environment.inTransaction(() -> webConferencing.joinCall(callId, partId, partId + "-client"));
+    }
+    for (String partId : caller.parts) {
+      environment.inTransaction(() -> webConferencing.leaveCall(callId, partId, partId + "-client"));
+    }
+    return environment.inTransaction(() -> webConferencing.stopCall(callId, true));
+  }
+
+  /**
+   * Join and leave a participant of an existing call, the caller stays joined there.
+   *
+   * @param caller the caller
+   * @return the call after leaving
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public CallInfo joinLeave(Caller caller) throws Exception {
+    String partId = caller.parts.get(1 + caller.calls++ % (caller.parts.size() - 1));
+    environment.inTransaction(() -> webConferencing.joinCall(caller.existingCallId, partId, partId + "-client"));
+    return environment.inTransaction(() -> webConferencing.leaveCall(caller.existingCallId, partId, partId + "-client"));
+  }
+}
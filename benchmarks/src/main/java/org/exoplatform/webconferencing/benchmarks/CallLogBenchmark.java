@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.exoplatform.webconferencing.support.CallLog;
+import org.exoplatform.webconferencing.support.CallLogService;
+import org.exoplatform.webconferencing.support.LogRateLimiter;
+import org.exoplatform.webconferencing.support.LogRecord;
+
+/**
+ * Ingestion of call logs sent by clients: validation of records, rate limiting and logging of a batch as
+ * it comes in a REST request. Records of <code>benchmark</code> provider are not rate limited, records of
+ * <code>webrtc</code> provider have default limits, thus mostly suppressed under the load.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallLogBenchmark.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CallLogBenchmark {
+
+  /** The Constant UNLIMITED_PROVIDER. */
+  public static final String UNLIMITED_PROVIDER = "benchmark";
+
+  /** The Constant LIMITED_PROVIDER. */
+  public static final String LIMITED_PROVIDER   = "webrtc";
+
+  /**
+   * A client sending its logs, one per benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class Client {
+
+    /** The user id. */
+    String userId;
+
+    /** The client id. */
+    String clientId;
+
+    /** The call id. */
+    String callId;
+
+    /** The timestamp. */
+    String timestamp;
+
+    /**
+     * Setup the client.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      userId = BenchmarkEnvironment.USER_PREFIX + Thread.currentThread().getId();
+      clientId = UUID.randomUUID().toString();
+      callId = "webrtc-" + userId;
+      timestamp = LocalDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_DATE_TIME);
+    }
+  }
+
+  /** The size of a batch sent by client. */
+  @Param({ "1", "50" })
+  public int               batchSize;
+
+  /** The log service. */
+  protected CallLogService logService;
+
+  /** The log. */
+  protected CallLog        log;
+
+  /**
+   * Create the log service.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    logService = new CallLogService();
+    logService.getLimiter().setProviderLimits(UNLIMITED_PROVIDER, new LogRateLimiter.Limits(0, 1, 1));
+    logService.start();
+    log = logService.getLog();
+  }
+
+  /**
+   * Stop the log service.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    logService.stop();
+  }
+
+  /**
+   * Validate and log a batch of records.
+   *
+   * @param client the client
+   * @param provider the provider
+   * @return the number of records
+   */
+  protected int logBatch(Client client, String provider) {
+    List<LogRecord> records = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      records.add(logService.createRecord(client.userId,
+                                          client.clientId,
+                                          client.callId,
+                                          i % 10 == 0 ? CallLog.DEBUG_LEVEL : CallLog.INFO_LEVEL,
+                                          client.timestamp,
+                                          provider,
+                                          "webconferencing.benchmark",
+                                          "Call state changed to connected, peer " + i));
+    }
+    logService.log(records);
+    return records.size();
+  }
+
+  /**
+   * Log records without rate limit.
+   *
+   * @param client the client
+   * @return the number of records
+   */
+  @Benchmark
+  public int logUnlimited(Client client) {
+    return logBatch(client, UNLIMITED_PROVIDER);
+  }
+
+  /**
+   * Log records with rate limit.
+   *
+   * @param client the client
+   * @return the number of records
+   */
+  @Benchmark
+  public int logLimited(Client client) {
+    return logBatch(client, LIMITED_PROVIDER);
+  }
+
+  /**
+   * Log a server message.
+   */
+  @Benchmark
+  public void logServer() {
+    log.info("Call started: webrtc-benchmark");
+  }
+}
@@ -0,0 +1,666 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cometd.bayeux.Message;
+import org.cometd.bayeux.client.ClientSessionChannel;
+import org.cometd.bayeux.server.LocalSession;
+import org.cometd.common.HashMapMessage;
+import org.json.JSONObject;
+import org.mortbay.cometd.continuation.EXoContinuationBayeux;
+
+import org.exoplatform.container.ExoContainer;
+import org.exoplatform.container.StandaloneContainer;
+import org.exoplatform.container.component.ComponentRequestLifecycle;
+import org.exoplatform.services.organization.OrganizationService;
+import org.exoplatform.services.security.Authenticator;
+import org.exoplatform.services.security.Identity;
+import org.exoplatform.services.security.IdentityRegistry;
+import org.exoplatform.webconferencing.CallState;
+import org.exoplatform.webconferencing.UserCallEvent;
+import org.exoplatform.webconferencing.UserState;
+import org.exoplatform.webconferencing.WebConferencingService;
+import org.exoplatform.webconferencing.cometd.CometdWebConferencingService;
+import org.exoplatform.webconferencing.support.CallLogService;
+import org.exoplatform.webconferencing.support.CallMetricsService;
+import org.exoplatform.webconferencing.support.LatencyHistogram;
+
+/**
+ * Load generator reproducing call storms end to end: an in-process Bayeux server with the Web Conferencing
+ * CometD service, and simulated clients connected as local sessions of the server. Clients are grouped in
+ * rooms, each room runs group calls in a loop: the owner creates a call, participants subscribe to the call
+ * channel and join it, then leave and unsubscribe, the owner deletes the call and all read their calls
+ * state. Every client listens its user channel, as browsers do.<br>
+ * At the end it reports throughput and latency percentiles of each command, and a lag of events delivery
+ * to other participants (from the command sent to the event received).<br>
+ * Settings are system properties: <code>load.users</code> (default {@value #DEFAULT_USERS}),
+ * <code>load.callSize</code> ({@value #DEFAULT_CALL_SIZE}), <code>load.duration</code> in seconds
+ * ({@value #DEFAULT_DURATION}), <code>load.thinkTime</code> in milliseconds between steps of a call
+ * ({@value #DEFAULT_THINK_TIME}). Run it from the benchmarks jar:
+ * <code>java -Dload.users=5000 -cp benchmarks.jar org.exoplatform.webconferencing.benchmarks.CallStormLoadGenerator</code><br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallStormLoadGenerator.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class CallStormLoadGenerator {
+
+  /** The Constant DEFAULT_USERS. */
+  public static final int    DEFAULT_USERS      = 2000;
+
+  /** The Constant DEFAULT_CALL_SIZE. */
+  public static final int    DEFAULT_CALL_SIZE  = 5;
+
+  /** The Constant DEFAULT_DURATION. */
+  public static final int    DEFAULT_DURATION   = 60;
+
+  /** The Constant DEFAULT_THINK_TIME. */
+  public static final int    DEFAULT_THINK_TIME = 100;
+
+  /** The Constant COMMAND_TIMEOUT, in seconds. */
+  public static final int    COMMAND_TIMEOUT    = 30;
+
+  /** The Constant PROVIDER_TYPE. */
+  public static final String PROVIDER_TYPE      = "webrtc";
+
+  /** The Constant CONFIGURATION. */
+  public static final String CONFIGURATION      = "conf/load-configuration.xml";
+
+  /**
+   * Storage transaction per request of the container, as JPA service does in the platform.
+   */
+  public static class StorageRequestLifecycle implements ComponentRequestLifecycle {
+
+    /** The environment. */
+    protected final BenchmarkEnvironment environment;
+
+    /**
+     * Instantiates a new storage request lifecycle.
+     *
+     * @param environment the environment
+     */
+    public StorageRequestLifecycle(BenchmarkEnvironment environment) {
+      this.environment = environment;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startRequest(ExoContainer container) {
+      environment.begin();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void endRequest(ExoContainer container) {
+      environment.end();
+    }
+  }
+
+  /**
+   * Statistics of a command or an event.
+   */
+  static class Stats {
+
+    /** The latency. */
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    /** The failures. */
+    final AtomicLong       failed  = new AtomicLong();
+  }
+
+  /**
+   * Simulated client: a local session of the Bayeux server acting as a browser of an user.
+   */
+  class Client {
+
+    /** The user id. */
+    final String                                            userId;
+
+    /** The client id. */
+    final String                                            clientId;
+
+    /** The session. */
+    final LocalSession                                      session;
+
+    /** The call channel listeners, by call ID. */
+    final Map<String, ClientSessionChannel.MessageListener> callListeners = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new client.
+     *
+     * @param userId the user id
+     */
+    Client(String userId) {
+      this.userId = userId;
+      this.clientId = userId + "-load";
+      this.session = bayeux.newLocalSession(clientId);
+    }
+
+    /**
+     * Handshake and subscribe the user channel.
+     */
+    void connect() {
+      Map<String, Object> handshake = new HashMap<>();
+      handshake.put("exoId", userId);
+      handshake.put("exoToken", bayeux.getUserToken(userId));
+      session.handshake(handshake);
+      session.getChannel(CometdWebConferencingService.USER_SUBSCRIPTION_CHANNEL_NAME + "/" + userId)
+             .subscribe(message(), (channel, message) -> onUserEvent(this, message), null);
+    }
+
+    /**
+     * Disconnect the session.
+     */
+    void disconnect() {
+      session.disconnect();
+    }
+
+    /**
+     * Message with the client context, as web client adds it.
+     *
+     * @return the message
+     */
+    Message.Mutable message() {
+      Message.Mutable message = new HashMapMessage();
+      message.putAll(context());
+      return message;
+    }
+
+    /**
+     * The client context.
+     *
+     * @return the map
+     */
+    Map<String, Object> context() {
+      Map<String, Object> context = new HashMap<>();
+      context.put("exoId", userId);
+      context.put("exoToken", bayeux.getUserToken(userId));
+      context.put("exoContainerName", containerName);
+      context.put("exoClientId", clientId);
+      return context;
+    }
+
+    /**
+     * Subscribe a call channel.
+     *
+     * @param callId the call id
+     */
+    void subscribeCall(String callId) {
+      ClientSessionChannel.MessageListener listener = (channel, message) -> {
+        // Calls data of peers not used here
+      };
+      callListeners.put(callId, listener);
+      session.getChannel(CometdWebConferencingService.CALL_SUBSCRIPTION_CHANNEL_NAME + "/" + callId)
+             .subscribe(message(), listener, null);
+    }
+
+    /**
+     * Unsubscribe a call channel.
+     *
+     * @param callId the call id
+     */
+    void unsubscribeCall(String callId) {
+      ClientSessionChannel.MessageListener listener = callListeners.remove(callId);
+      if (listener != null) {
+        session.getChannel(CometdWebConferencingService.CALL_SUBSCRIPTION_CHANNEL_NAME + "/" + callId).unsubscribe(listener);
+      }
+    }
+
+    /**
+     * Run a command of calls service and wait for its result.
+     *
+     * @param name the command name, for statistics
+     * @param args the command arguments
+     * @return true, if command succeeded
+     */
+    boolean command(String name, Map<String, Object> args) {
+      Map<String, Object> data = context();
+      data.putAll(args);
+      CompletableFuture<Message> result = new CompletableFuture<>();
+      long sent = System.nanoTime();
+      session.remoteCall(CometdWebConferencingService.CALLS_CHANNEL_NAME, data, result::complete);
+      Stats stats = commandStats(name);
+      try {
+        Message response = result.get(COMMAND_TIMEOUT, TimeUnit.SECONDS);
+        stats.latency.record(System.nanoTime() - sent);
+        if (response.isSuccessful()) {
+          return true;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException | TimeoutException e) {
+        // counted as failed
+      }
+      stats.failed.incrementAndGet();
+      return false;
+    }
+  }
+
+  /** The users count. */
+  protected final int                    users;
+
+  /** The call size. */
+  protected final int                    callSize;
+
+  /** The duration (in seconds). */
+  protected final int                    duration;
+
+  /** The think time (in milliseconds). */
+  protected final int                    thinkTime;
+
+  /** The commands statistics by command. */
+  protected final Map<String, Stats>     commands  = new ConcurrentHashMap<>();
+
+  /** The events delivery statistics by command which caused the events. */
+  protected final Map<String, Stats>     events    = new ConcurrentHashMap<>();
+
+  /** The sent times (in nanoseconds) of commands waiting for their events, by event key. */
+  protected final Map<String, Long>      sentTimes = new ConcurrentHashMap<>();
+
+  /** The names of commands by event type and call state. */
+  protected final Map<String, String>    eventCommands;
+
+  /** The environment. */
+  protected BenchmarkEnvironment         environment;
+
+  /** The container. */
+  protected StandaloneContainer          container;
+
+  /** The container name. */
+  protected String                       containerName;
+
+  /** The bayeux. */
+  protected EXoContinuationBayeux        bayeux;
+
+  /** The CometD service. */
+  protected CometdWebConferencingService cometdService;
+
+  /**
+   * Instantiates a new call storm load generator.
+   *
+   * @param users the users
+   * @param callSize the call size
+   * @param duration the duration
+   * @param thinkTime the think time
+   */
+  public CallStormLoadGenerator(int users, int callSize, int duration, int thinkTime) {
+    this.users = users;
+    this.callSize = Math.max(2, callSize);
+    this.duration = duration;
+    this.thinkTime = thinkTime;
+    Map<String, String> eventCommands = new HashMap<>();
+    eventCommands.put(UserCallEvent.EVENT_CALL_STATE + CallState.STARTED, "create");
+    eventCommands.put(UserCallEvent.EVENT_CALL_JOINED, "update " + UserState.JOINED);
+    eventCommands.put(UserCallEvent.EVENT_CALL_LEAVED, "update " + UserState.LEAVED);
+    eventCommands.put(UserCallEvent.EVENT_CALL_STATE + CallState.STOPPED, "delete");
+    this.eventCommands = eventCommands;
+  }
+
+  /**
+   * Start the container with storage and Web Conferencing services, and the Bayeux server.
+   *
+   * @throws Exception if error happen
+   */
+  public void start() throws Exception {
+    environment = new BenchmarkEnvironment(callSize);
+
+    IdentityRegistry identityRegistry = mock(IdentityRegistry.class);
+    when(identityRegistry.getIdentity(anyString())).thenAnswer(invocation -> new Identity(invocation.getArgument(0)));
+    Authenticator authenticator = mock(Authenticator.class);
+    when(authenticator.createIdentity(anyString())).thenAnswer(invocation -> new Identity(invocation.getArgument(0)));
+
+    StandaloneContainer.addConfigurationURL(getClass().getClassLoader().getResource(CONFIGURATION).toString());
+    container = StandaloneContainer.getInstance();
+    containerName = container.getContext().getName();
+    container.registerComponentInstance(WebConferencingService.class, environment.getWebConferencing());
+    container.registerComponentInstance(IdentityRegistry.class, identityRegistry);
+    container.registerComponentInstance(Authenticator.class, authenticator);
+    container.registerComponentInstance(StorageRequestLifecycle.class, new StorageRequestLifecycle(environment));
+
+    bayeux = new EXoContinuationBayeux();
+    cometdService = new CometdWebConferencingService(identityRegistry,
+                                                     mock(OrganizationService.class),
+                                                     environment.getWebConferencing(),
+                                                     bayeux,
+                                                     new CallLogService());
+    cometdService.start();
+    // Web Conferencing service will be processed on the server start
+    bayeux.start();
+  }
+
+  /**
+   * Stop the server and services.
+   *
+   * @throws Exception if error happen
+   */
+  public void stop() throws Exception {
+    bayeux.stop();
+    cometdService.stop();
+    environment.close();
+    container.stop();
+  }
+
+  /**
+   * Run the load and wait for its end.
+   *
+   * @throws Exception if error happen
+   */
+  public void run() throws Exception {
+    String[] userIds = BenchmarkEnvironment.userIds(users);
+    List<Client> clients = new ArrayList<>(users);
+    for (String userId : userIds) {
+      Client client = new Client(userId);
+      client.connect();
+      clients.add(client);
+    }
+    System.out.println("Connected " + clients.size() + " clients");
+
+    int rooms = users / callSize;
+    ExecutorService drivers = Executors.newFixedThreadPool(rooms);
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(duration);
+    long started = System.nanoTime();
+    for (int r = 0; r < rooms; r++) {
+      List<Client> members = clients.subList(r * callSize, (r + 1) * callSize);
+      String roomId = "storm_room" + r;
+      drivers.submit(() -> {
+        int round = 0;
+        while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+          runCall(roomId, PROVIDER_TYPE + "-" + roomId + "-" + round++, members);
+        }
+      });
+    }
+    drivers.shutdown();
+    drivers.awaitTermination(duration + COMMAND_TIMEOUT * 10, TimeUnit.SECONDS);
+    double elapsed = (System.nanoTime() - started) / 1000000000d;
+
+    for (Client client : clients) {
+      client.disconnect();
+    }
+    report(elapsed);
+  }
+
+  /**
+   * Run a group call from its creation till removal.
+   *
+   * @param roomId the room id
+   * @param callId the call id
+   * @param members the members, first is the owner
+   */
+  protected void runCall(String roomId, String callId, List<Client> members) {
+    Client owner = members.get(0);
+    StringBuilder participants = new StringBuilder();
+    for (Client member : members) {
+      if (participants.length() > 0) {
+        participants.append(';');
+      }
+      participants.append(member.userId);
+    }
+    List<String> keys = new ArrayList<>();
+
+    Map<String, Object> create = new HashMap<>();
+    create.put("command", CometdWebConferencingService.COMMAND_CREATE);
+    create.put("id", callId);
+    create.put("owner", roomId);
+    create.put("ownerType", WebConferencingService.OWNER_TYPE_CHATROOM);
+    create.put("provider", PROVIDER_TYPE);
+    create.put("title", "Call storm in " + roomId);
+    create.put("participants", participants.toString());
+    keys.add(expectEvent(UserCallEvent.EVENT_CALL_STATE, callId, CallState.STARTED));
+    if (owner.command("create", create)) {
+      pause();
+      for (Client member : members) {
+        member.subscribeCall(callId);
+        keys.add(expectEvent(UserCallEvent.EVENT_CALL_JOINED, callId, member.userId));
+        member.command("update " + UserState.JOINED, update(callId, UserState.JOINED));
+      }
+      pause();
+      for (Client member : members) {
+        keys.add(expectEvent(UserCallEvent.EVENT_CALL_LEAVED, callId, member.userId));
+        member.command("update " + UserState.LEAVED, update(callId, UserState.LEAVED));
+        member.unsubscribeCall(callId);
+      }
+      pause();
+      keys.add(expectEvent(UserCallEvent.EVENT_CALL_STATE, callId, CallState.STOPPED));
+      Map<String, Object> delete = new HashMap<>();
+      delete.put("command", CometdWebConferencingService.COMMAND_DELETE);
+      delete.put("id", callId);
+      owner.command("delete", delete);
+    }
+    for (Client member : members) {
+      Map<String, Object> getState = new HashMap<>();
+      getState.put("command", CometdWebConferencingService.COMMAND_GET_CALLS_STATE);
+      getState.put("id", member.userId);
+      member.command(CometdWebConferencingService.COMMAND_GET_CALLS_STATE, getState);
+    }
+    pause();
+    for (String key : keys) {
+      sentTimes.remove(key);
+    }
+  }
+
+  /**
+   * Update command arguments.
+   *
+   * @param callId the call id
+   * @param state the state
+   * @return the arguments
+   */
+  protected Map<String, Object> update(String callId, String state) {
+    Map<String, Object> update = new HashMap<>();
+    update.put("command", CometdWebConferencingService.COMMAND_UPDATE);
+    update.put("id", callId);
+    update.put("state", state);
+    return update;
+  }
+
+  /**
+   * Remember a time of a command which will cause an event to other clients.
+   *
+   * @param eventType the event type
+   * @param callId the call id
+   * @param subject the call state or participant id
+   * @return the event key
+   */
+  protected String expectEvent(String eventType, String callId, String subject) {
+    String key = eventType + ":" + callId + ":" + subject;
+    sentTimes.put(key, System.nanoTime());
+    return key;
+  }
+
+  /**
+   * Account an event received by a client in its user channel.
+   *
+   * @param client the client
+   * @param message the message
+   */
+  protected void onUserEvent(Client client, Message message) {
+    long received = System.nanoTime();
+    try {
+      JSONObject event = new JSONObject(String.valueOf(message.getData()));
+      String eventType = event.optString("eventType");
+      String callId = event.optString("callId");
+      String subject;
+      String command;
+      if (UserCallEvent.EVENT_CALL_STATE.equals(eventType)) {
+        subject = event.optString("callState");
+        command = eventCommands.get(eventType + subject);
+      } else {
+        JSONObject part = event.optJSONObject("part");
+        subject = part != null ? part.optString("id") : null;
+        command = eventCommands.get(eventType);
+      }
+      Long sent = sentTimes.get(eventType + ":" + callId + ":" + subject);
+      if (sent != null && command != null) {
+        eventStats(command).latency.record(received - sent);
+      }
+    } catch (Exception e) {
+      eventStats(String.valueOf(message.getChannel())).failed.incrementAndGet();
+    }
+  }
+
+  /**
+   * Gets statistics of a command.
+   *
+   * @param name the name
+   * @return the stats
+   */
+  protected Stats commandStats(String name) {
+    return commands.computeIfAbsent(name, k -> new Stats());
+  }
+
+  /**
+   * Gets statistics of events caused by a command.
+   *
+   * @param command the command
+   * @return the stats
+   */
+  protected Stats eventStats(String command) {
+    return events.computeIfAbsent(command, k -> new Stats());
+  }
+
+  /**
+   * Pause between steps of a call.
+   */
+  protected void pause() {
+    if (thinkTime > 0) {
+      try {
+        Thread.sleep(thinkTime);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Print the report.
+   *
+   * @param elapsed the elapsed time in seconds
+   */
+  protected void report(double elapsed) {
+    System.out.println(String.format("%nCall storm of %d users in calls of %d, %.1f seconds", users, callSize, elapsed));
+    System.out.println(String.format("%n%-16s %9s %7s %9s %9s %9s %9s %9s",
+                                     "Command",
+                                     "count",
+                                     "failed",
+                                     "ops/s",
+                                     "p50 ms",
+                                     "p90 ms",
+                                     "p99 ms",
+                                     "max ms"));
+    for (Map.Entry<String, Stats> e : sorted(commands).entrySet()) {
+      LatencyHistogram latency = e.getValue().latency;
+      System.out.println(String.format("%-16s %9d %7d %9.1f %9.3f %9.3f %9.3f %9.3f",
+                                       e.getKey(),
+                                       latency.getCount(),
+                                       e.getValue().failed.get(),
+                                       latency.getCount() / elapsed,
+                                       latency.getPercentile(50),
+                                       latency.getPercentile(90),
+                                       latency.getPercentile(99),
+                                       latency.getMax()));
+    }
+    System.out.println(String.format("%n%-16s %9s %7s %9s %9s %9s %9s",
+                                     "Events lag of",
+                                     "count",
+                                     "failed",
+                                     "p50 ms",
+                                     "p90 ms",
+                                     "p99 ms",
+                                     "max ms"));
+    for (Map.Entry<String, Stats> e : sorted(events).entrySet()) {
+      LatencyHistogram latency = e.getValue().latency;
+      System.out.println(String.format("%-16s %9d %7d %9.3f %9.3f %9.3f %9.3f",
+                                       e.getKey(),
+                                       latency.getCount(),
+                                       e.getValue().failed.get(),
+                                       latency.getPercentile(50),
+                                       latency.getPercentile(90),
+                                       latency.getPercentile(99),
+                                       latency.getMax()));
+    }
+    CallMetricsService metrics = environment.getMetrics();
+    System.out.println(String.format("%n%-16s %9s %9s %9s %9s", "Operation", "count", "p99 ms", "storage", "service"));
+    for (CallMetricsService.OperationMetrics m : metrics.getOperations().values()) {
+      System.out.println(String.format("%-16s %9d %9.3f %9.3f %9.3f",
+                                       m.getName(),
+                                       m.getTotal().getCount(),
+                                       m.getTotal().getPercentile(99),
+                                       m.getStorage().getPercentile(99),
+                                       m.getService().getPercentile(99)));
+    }
+    System.out.println(String.format("%nCommands queue max wait %.3f ms, execution p99 %.3f ms",
+                                     cometdService.getCallCommandsMaxWaitTime(),
+                                     cometdService.getCallCommandsP99Time()));
+  }
+
+  /**
+   * Sort statistics by name.
+   *
+   * @param stats the stats
+   * @return the sorted map
+   */
+  protected Map<String, Stats> sorted(Map<String, Stats> stats) {
+    Map<String, Stats> sorted = new LinkedHashMap<>();
+    stats.keySet().stream().sorted().forEach(k -> sorted.put(k, stats.get(k)));
+    return sorted;
+  }
+
+  /**
+   * The main method.
+   *
+   * @param args the arguments (not used, settings are system properties)
+   * @throws Exception if error happen
+   */
+  public static void main(String[] args) throws Exception {
+    CallStormLoadGenerator generator = new CallStormLoadGenerator(Integer.getInteger("load.users", DEFAULT_USERS),
+                                                                  Integer.getInteger("load.callSize", DEFAULT_CALL_SIZE),
+                                                                  Integer.getInteger("load.duration", DEFAULT_DURATION),
+                                                                  Integer.getInteger("load.thinkTime", DEFAULT_THINK_TIME));
+    generator.start();
+    try {
+      generator.run();
+    } finally {
+      generator.stop();
+    }
+    System.exit(0);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import javax.persistence.EntityManager;
+
+import org.exoplatform.webconferencing.dao.ParticipantDAO;
+
+/**
+ * Participant DAO working on embedded database of benchmarks environment instead of eXo JPA service.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: EmbeddedParticipantDAO.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class EmbeddedParticipantDAO extends ParticipantDAO {
+
+  /** The environment. */
+  protected final BenchmarkEnvironment environment;
+
+  /**
+   * Instantiates a new embedded participant DAO.
+   *
+   * @param environment the environment
+   */
+  public EmbeddedParticipantDAO(BenchmarkEnvironment environment) {
+    this.environment = environment;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EntityManager getEntityManager() {
+    return environment.getEntityManager();
+  }
+}
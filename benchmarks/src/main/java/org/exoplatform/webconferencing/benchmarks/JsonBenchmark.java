@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.exoplatform.webconferencing.CallInfo;
+import org.exoplatform.webconferencing.UserInfo;
+import org.exoplatform.webconferencing.Utils;
+import org.exoplatform.webconferencing.WebConferencingService.SpaceInfo;
+import org.exoplatform.ws.frameworks.json.impl.JsonGeneratorImpl;
+
+/**
+ * Serialization of calls and spaces to JSON as it's done for REST and CometD responses, on groups of
+ * growing size. Model writer used by {@link Utils} compared with the reflective JSON generator and with
+ * writing to a reused writer as REST responses do. Run with <code>-prof gc</code> to see allocations per
+ * operation.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: JsonBenchmark.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+  /** The number of participants in the call and members in the space. */
+  @Param({ "10", "100", "1000" })
+  public int                     participants;
+
+  /** The environment. */
+  protected BenchmarkEnvironment environment;
+
+  /** The call. */
+  protected CallInfo             call;
+
+  /** The user. */
+  protected UserInfo             user;
+
+  /** The space. */
+  protected SpaceInfo            space;
+
+  /** The writer, reused by invocations. */
+  protected CharArrayWriter      writer;
+
+  /**
+   * Create the call, the space and the user.
+   *
+   * @throws Exception if error happen
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    environment = new BenchmarkEnvironment(participants);
+    space = environment.getWebConferencing().space("benchmark_space");
+    // Resolve lazy members once, as it happens for a cached space
+    space.getMembers();
+    call = new CallInfo("webrtc-benchmark_space", "Benchmark space", space, "webrtc");
+    for (String id : BenchmarkEnvironment.userIds(participants)) {
+      call.addParticipant(environment.getWebConferencing().getUserInfo(id));
+    }
+    user = environment.getWebConferencing().getUserInfo(BenchmarkEnvironment.USER_PREFIX + 0);
+    writer = new CharArrayWriter();
+  }
+
+  /**
+   * Close the environment.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.close();
+  }
+
+  /**
+   * Call to JSON.
+   *
+   * @return the JSON
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public String callToJSON() throws Exception {
+    return Utils.asJSON(call);
+  }
+
+  /**
+   * Space to JSON.
+   *
+   * @return the JSON
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public String spaceToJSON() throws Exception {
+    return Utils.asJSON(space);
+  }
+
+  /**
+   * User to JSON.
+   *
+   * @return the JSON
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public String userToJSON() throws Exception {
+    return Utils.asJSON(user);
+  }
+
+  /**
+   * Call to JSON by reflective generator.
+   *
+   * @return the JSON
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public String callToJSONReflective() throws Exception {
+    return new JsonGeneratorImpl().createJsonObject(call).toString();
+  }
+
+  /**
+   * Space to JSON by reflective generator.
+   *
+   * @return the JSON
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public String spaceToJSONReflective() throws Exception {
+    return new JsonGeneratorImpl().createJsonObject(space).toString();
+  }
+
+  /**
+   * User to JSON by reflective generator.
+   *
+   * @return the JSON
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public String userToJSONReflective() throws Exception {
+    return new JsonGeneratorImpl().createJsonObject(user).toString();
+  }
+
+  /**
+   * Call JSON written to the writer.
+   *
+   * @return the written size
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public int callWriteJSON() throws Exception {
+    writer.reset();
+    Utils.writeJSON(call, writer);
+    return writer.size();
+  }
+
+  /**
+   * Space JSON written to the writer.
+   *
+   * @return the written size
+   * @throws Exception if error happen
+   */
+  @Benchmark
+  public int spaceWriteJSON() throws Exception {
+    writer.reset();
+    Utils.writeJSON(space, writer);
+    return writer.size();
+  }
+}
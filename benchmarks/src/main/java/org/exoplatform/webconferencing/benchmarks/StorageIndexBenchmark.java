@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Calls storage queries on a seeded database, before and after the indexes of changesets
+ * <code>1.0.0-5</code> and <code>1.0.0-6</code> (see <code>webconferencing.db.changelog-1.0.0.xml</code>).
+ * The schema repeats the changelog tables and constraints in embedded H2, queries are SQL of the
+ * entities named queries. Participants table has given number of rows, ten per call, calls have their
+ * last date spread over {@value #DAYS} days. Outdated calls cleanup is measured by a count of the rows it
+ * would delete, to keep the data the same between invocations.<br>
+ *
+ * Note that H2, as InnoDB, indexes a foreign key by itself, thus without <code>IDX_WBC_PARTCALL</code>
+ * participants of a call are still found by <code>CALL_ID</code> and the index adds their ordering.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: StorageIndexBenchmark.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageIndexBenchmark {
+
+  /** The Constant PARTS_PER_CALL. */
+  public static final int     PARTS_PER_CALL          = 10;
+
+  /** The Constant USERS. */
+  public static final int     USERS                   = 10000;
+
+  /** The Constant DAYS. */
+  public static final int     DAYS                    = 90;
+
+  /** The Constant FIND_CALL_PARTS, SQL of WebConfCall.findCallParts. */
+  public static final String  FIND_CALL_PARTS         = "SELECT ID, CALL_ID, TYPE, STATE, CLIENT_ID FROM WBC_PARTICIPANTS"
+      + " WHERE CALL_ID = ? ORDER BY STATE, TYPE";
+
+  /** The Constant FIND_USER_CALL_STATES, SQL of WebConfCall.findUserGroupCallStates. */
+  public static final String  FIND_USER_CALL_STATES   = "SELECT c.ID, c.STATE FROM WBC_CALLS c, WBC_PARTICIPANTS p"
+      + " WHERE c.ID = p.CALL_ID AND p.ID = ? ORDER BY c.LAST_DATE";
+
+  /** The Constant COUNT_OWNER_OLDER_CALLS, selection of WebConfCall.deleteOwnerOlderCalls. */
+  public static final String  COUNT_OWNER_OLDER_CALLS = "SELECT COUNT(*) FROM WBC_CALLS WHERE OWNER_TYPE = ? AND LAST_DATE <= ?";
+
+  /** The number of participants rows. */
+  @Param({ "1000000" })
+  public int                  rows;
+
+  /** Create the indexes of changesets 1.0.0-5 and 1.0.0-6. */
+  @Param({ "false", "true" })
+  public boolean              indexes;
+
+  /** The connection. */
+  protected Connection        connection;
+
+  /** The find call parts statement. */
+  protected PreparedStatement findCallParts;
+
+  /** The find user call states statement. */
+  protected PreparedStatement findUserCallStates;
+
+  /** The count owner older calls statement. */
+  protected PreparedStatement countOwnerOlderCalls;
+
+  /** The number of calls. */
+  protected int               calls;
+
+  /**
+   * Create the schema and seed it.
+   *
+   * @throws SQLException if error happen
+   */
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    calls = rows / PARTS_PER_CALL;
+    connection = DriverManager.getConnection("jdbc:h2:mem:webconferencing-indexes-" + indexes, "sa", "");
+    try (Statement st = connection.createStatement()) {
+      // 1.0.0-1, 1.0.0-2
+      st.execute("CREATE TABLE WBC_CALLS (ID VARCHAR(255) NOT NULL, PROVIDER_TYPE VARCHAR(32) NOT NULL,"
+          + " OWNER_ID VARCHAR(255) NOT NULL, OWNER_TYPE VARCHAR(32) NOT NULL, STATE VARCHAR(32), TITLE VARCHAR(255),"
+          + " SETTINGS VARCHAR(2000), LAST_DATE TIMESTAMP NOT NULL, IS_GROUP BOOLEAN NOT NULL, IS_USER BOOLEAN NOT NULL,"
+          + " CONSTRAINT PK_WBC_CALLID PRIMARY KEY (ID))");
+      st.execute("ALTER TABLE WBC_CALLS ADD CONSTRAINT UK_WBC_GROUP_CALL UNIQUE (OWNER_ID, IS_GROUP)");
+      // 1.0.0-3, 1.0.0-4
+      st.execute("CREATE TABLE WBC_PARTICIPANTS (ID VARCHAR(255) NOT NULL, CALL_ID VARCHAR(255) NOT NULL,"
+          + " TYPE VARCHAR(32) NOT NULL, STATE VARCHAR(32), CLIENT_ID VARCHAR(255),"
+          + " CONSTRAINT PK_WBC_CALLPART PRIMARY KEY (ID, CALL_ID))");
+      st.execute("ALTER TABLE WBC_PARTICIPANTS ADD CONSTRAINT FK_WBC_PARTCALL FOREIGN KEY (CALL_ID)"
+          + " REFERENCES WBC_CALLS (ID) ON DELETE CASCADE ON UPDATE CASCADE");
+
+      // Seed: a third of calls for each owner type, participants of a call are distinct users
+      st.execute("INSERT INTO WBC_CALLS SELECT 'call-' || X, 'webrtc', 'owner-' || X,"
+          + " CASE MOD(X, 3) WHEN 0 THEN 'space' WHEN 1 THEN 'user' ELSE 'chat_room' END, 'stopped', 'Call ' || X,"
+          + " NULL, DATEADD('SECOND', -MOD(X * 7919, " + DAYS * 24 * 3600 + "), CURRENT_TIMESTAMP()),"
+          + " MOD(X, 3) <> 1, MOD(X, 3) = 1 FROM SYSTEM_RANGE(1, " + calls + ")");
+      st.execute("INSERT INTO WBC_PARTICIPANTS SELECT 'user-' || MOD(X * 31, " + USERS + "),"
+          + " 'call-' || ((X - 1) / " + PARTS_PER_CALL + " + 1), 'user',"
+          + " CASE MOD(X, 4) WHEN 0 THEN 'joined' ELSE 'leaved' END, NULL FROM SYSTEM_RANGE(1, " + calls * PARTS_PER_CALL
+          + ")");
+
+      if (indexes) {
+        // 1.0.0-5, 1.0.0-6
+        st.execute("CREATE INDEX IDX_WBC_PARTCALL ON WBC_PARTICIPANTS (CALL_ID, STATE, TYPE)");
+        st.execute("CREATE INDEX IDX_WBC_CALLOWNERDATE ON WBC_CALLS (OWNER_TYPE, LAST_DATE)");
+      }
+      st.execute("ANALYZE");
+    }
+    findCallParts = connection.prepareStatement(FIND_CALL_PARTS);
+    findUserCallStates = connection.prepareStatement(FIND_USER_CALL_STATES);
+    countOwnerOlderCalls = connection.prepareStatement(COUNT_OWNER_OLDER_CALLS);
+  }
+
+  /**
+   * Drop the database.
+   *
+   * @throws SQLException if error happen
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement st = connection.createStatement()) {
+      st.execute("DROP ALL OBJECTS");
+    } finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * Participants of a random call, as on call update.
+   *
+   * @param bh the blackhole
+   * @throws SQLException if error happen
+   */
+  @Benchmark
+  public void findCallParts(Blackhole bh) throws SQLException {
+    findCallParts.setString(1, "call-" + (ThreadLocalRandom.current().nextInt(calls) + 1));
+    consume(findCallParts, bh);
+  }
+
+  /**
+   * Calls states of a random user, as on user calls polling.
+   *
+   * @param bh the blackhole
+   * @throws SQLException if error happen
+   */
+  @Benchmark
+  public void findUserCallStates(Blackhole bh) throws SQLException {
+    findUserCallStates.setString(1, "user-" + ThreadLocalRandom.current().nextInt(USERS));
+    consume(findUserCallStates, bh);
+  }
+
+  /**
+   * Calls of an owner type older than the last day of the spread, as outdated calls cleanup finds them.
+   *
+   * @param bh the blackhole
+   * @throws SQLException if error happen
+   */
+  @Benchmark
+  public void countOwnerOlderCalls(Blackhole bh) throws SQLException {
+    countOwnerOlderCalls.setString(1, "user");
+    countOwnerOlderCalls.setTimestamp(2, new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(DAYS - 1)));
+    consume(countOwnerOlderCalls, bh);
+  }
+
+  /**
+   * Execute the query and read all its rows.
+   *
+   * @param query the query
+   * @param bh the blackhole
+   * @throws SQLException if error happen
+   */
+  protected void consume(PreparedStatement query, Blackhole bh) throws SQLException {
+    try (ResultSet rs = query.executeQuery()) {
+      int columns = rs.getMetaData().getColumnCount();
+      while (rs.next()) {
+        for (int i = 1; i <= columns; i++) {
+          bh.consume(rs.getObject(i));
+        }
+      }
+    }
+  }
+}
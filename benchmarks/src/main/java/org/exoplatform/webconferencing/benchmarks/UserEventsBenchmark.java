@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.exoplatform.webconferencing.BenchmarkWebConferencingService;
+import org.exoplatform.webconferencing.CallState;
+import org.exoplatform.webconferencing.UserCallListener;
+import org.exoplatform.webconferencing.WebConferencingService;
+
+/**
+ * Fan-out of a group call state to its participants: each participant has a number of listeners (browser
+ * tabs connected via CometD). Measured time is of firing the state to all participants, listeners are
+ * notified asynchronously and their deliveries reported as an auxiliary counter.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: UserEventsBenchmark.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserEventsBenchmark {
+
+  /** The Constant CALL_ID. */
+  public static final String CALL_ID = "webrtc-benchmark_room";
+
+  /**
+   * Deliveries to listeners, as reported by JMH.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Deliveries {
+
+    /** The delivered at the iteration start. */
+    long delivered;
+
+    /** The benchmark. */
+    UserEventsBenchmark benchmark;
+
+    /**
+     * Remember deliveries before the iteration.
+     *
+     * @param benchmark the benchmark
+     */
+    @Setup(Level.Iteration)
+    public void setup(UserEventsBenchmark benchmark) {
+      this.benchmark = benchmark;
+      this.delivered = benchmark.delivered.sum();
+    }
+
+    /**
+     * Gets the deliveries done during the iteration.
+     *
+     * @return the deliveries
+     */
+    public long deliveries() {
+      return benchmark.delivered.sum() - delivered;
+    }
+  }
+
+  /** The number of participants. */
+  @Param({ "10", "100", "1000" })
+  public int                                participants;
+
+  /** The number of listeners per participant. */
+  @Param({ "1", "4" })
+  public int                                listeners;
+
+  /** The delivered events. */
+  protected final LongAdder                 delivered = new LongAdder();
+
+  /** The environment. */
+  protected BenchmarkEnvironment            environment;
+
+  /** The web conferencing. */
+  protected BenchmarkWebConferencingService webConferencing;
+
+  /** The participant IDs. */
+  protected String[]                        userIds;
+
+  /** The state switch. */
+  protected boolean                         started;
+
+  /**
+   * Add listeners of the participants.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    environment = new BenchmarkEnvironment(participants);
+    webConferencing = environment.getWebConferencing();
+    userIds = BenchmarkEnvironment.userIds(participants);
+    for (String userId : userIds) {
+      for (int i = 0; i < listeners; i++) {
+        webConferencing.addUserCallListener(new UserCallListener(userId, userId + "-client" + i) {
+          @Override
+          public void onCallStateChanged(String callId,
+                                         String providerType,
+                                         String callState,
+                                         String ownerId,
+                                         String ownerType) {
+            delivered.increment();
+          }
+
+          @Override
+          public void onPartJoined(String callId, String providerType, String ownerId, String ownerType, String partId) {
+            delivered.increment();
+          }
+
+          @Override
+          public void onPartLeaved(String callId, String providerType, String ownerId, String ownerType, String partId) {
+            delivered.increment();
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Close the environment.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.close();
+  }
+
+  /**
+   * Fire the group call state to all participants.
+   *
+   * @param deliveries the deliveries
+   */
+  @Benchmark
+  public void fireCallState(Deliveries deliveries) {
+    String state = (started = !started) ? CallState.STARTED : CallState.STOPPED;
+    for (String userId : userIds) {
+      webConferencing.fireStateChanged(userId,
+                                       CALL_ID,
+                                       "webrtc",
+                                       state,
+                                       "benchmark_room",
+                                       WebConferencingService.OWNER_TYPE_CHATROOM);
+    }
+  }
+}
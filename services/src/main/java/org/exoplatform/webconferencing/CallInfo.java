@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * Created by The eXo Platform SAS.
@@ -69,6 +70,23 @@ public class CallInfo {
     this.providerType = providerType;
   }
 
+  /**
+   * Instantiates a copy of given call for changes, the call itself will not be changed. Participants of the
+   * copy are the same instances as in the call, if not replaced by given function.
+   *
+   * @param other the call to copy
+   * @param parts the function returning a participant of the copy for a participant of the call, e.g. its
+   *          copy with changed state
+   */
+  protected CallInfo(CallInfo other, UnaryOperator<UserInfo> parts) {
+    this(other.id, other.title, other.owner, other.providerType);
+    for (UserInfo part : other.participants) {
+      this.participants.add(parts.apply(part));
+    }
+    this.state = other.state;
+    this.lastDate = other.lastDate;
+  }
+
   /**
    * Gets the id.
    *
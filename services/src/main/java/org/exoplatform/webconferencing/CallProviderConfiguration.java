@@ -38,10 +38,21 @@ public class CallProviderConfiguration {
    * @return the call provider configuration
    */
   static CallProviderConfiguration fromProvider(CallProvider provider, Locale locale) {
+    return fromProvider(provider, provider.getDescription(locale));
+  }
+
+  /**
+   * From provider with already localized description.
+   *
+   * @param provider the provider
+   * @param description the provider description
+   * @return the call provider configuration
+   */
+  static CallProviderConfiguration fromProvider(CallProvider provider, String description) {
     CallProviderConfiguration conf = new CallProviderConfiguration();
     conf.setActive(true);
     conf.setTitle(provider.getTitle());
-    conf.setDescription(provider.getDescription(locale));
+    conf.setDescription(description);
     conf.setType(provider.getType());
     conf.setLogEnabled(provider.isLogEnabled());
     return conf;
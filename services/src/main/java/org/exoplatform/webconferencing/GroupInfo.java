@@ -19,10 +19,22 @@
  */
 package org.exoplatform.webconferencing;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
 
 /**
  * Represent eXo group for conversations in calls.<br>
@@ -35,11 +47,130 @@ import java.util.Map;
  */
 public abstract class GroupInfo extends IdentityInfo {
 
+  /** The Constant LOG. */
+  protected static final Log LOG = ExoLogger.getLogger(GroupInfo.class);
+
+  /**
+   * Resolves group member by its ID.
+   */
+  @FunctionalInterface
+  public interface MemberResolver {
+
+    /**
+     * Resolve a member.
+     *
+     * @param id the member id
+     * @return the user info or <code>null</code> if member not found
+     * @throws IdentityStateException if error reading the member
+     */
+    UserInfo resolve(String id) throws IdentityStateException;
+  }
+
+  /**
+   * Members view that resolves each member only when it's accessed. Members that cannot be resolved are
+   * skipped: they are not iterated, not contained and not counted, thus {@link #size()} needs to resolve all
+   * the members (each member resolved once per group).
+   */
+  protected class LazyMembers extends AbstractMap<String, UserInfo> {
+
+    /** The entries. */
+    private final Set<Map.Entry<String, UserInfo>> entries = new AbstractSet<Map.Entry<String, UserInfo>>() {
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public Iterator<Map.Entry<String, UserInfo>> iterator() {
+        final Iterator<String> ids = memberIds.iterator();
+        return new Iterator<Map.Entry<String, UserInfo>>() {
+
+          private UserInfo next;
+
+          /**
+           * {@inheritDoc}
+           */
+          @Override
+          public boolean hasNext() {
+            while (next == null && ids.hasNext()) {
+              next = resolveMember(ids.next());
+            }
+            return next != null;
+          }
+
+          /**
+           * {@inheritDoc}
+           */
+          @Override
+          public Map.Entry<String, UserInfo> next() {
+            if (hasNext()) {
+              UserInfo user = next;
+              next = null;
+              return new AbstractMap.SimpleImmutableEntry<>(user.getId(), user);
+            }
+            throw new NoSuchElementException();
+          }
+        };
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int size() {
+        return resolvedMembersCount();
+      }
+    };
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<String, UserInfo>> entrySet() {
+      return entries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+      return resolvedMembersCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+      return memberIds.contains(key) && resolveMember(String.class.cast(key)) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UserInfo get(Object key) {
+      return memberIds.contains(key) ? resolveMember(String.class.cast(key)) : null;
+    }
+  }
+
   /** The group call id. */
   protected String                      callId;
 
   /** The members. */
-  protected final Map<String, UserInfo> members = new LinkedHashMap<>();
+  protected final Map<String, UserInfo> members           = new LinkedHashMap<>();
+
+  /** The lazy members IDs, if set then members will be resolved on demand by {@link #memberResolver}. */
+  protected Set<String>                 memberIds;
+
+  /** The member resolver for lazy members. */
+  protected MemberResolver              memberResolver;
+
+  /** The resolved lazy members. */
+  protected final Map<String, UserInfo> resolvedMembers   = new ConcurrentHashMap<>();
+
+  /** The lazy members IDs that cannot be resolved. */
+  protected final Set<String>           unresolvedMembers = ConcurrentHashMap.newKeySet();
 
   /**
    * Instantiates a new group info.
@@ -77,14 +208,123 @@ public abstract class GroupInfo extends IdentityInfo {
   }
 
   /**
-   * Gets the members.
+   * Gets the members. If the group has lazy members, each of them will be resolved only when accessed in
+   * the returned map.
    *
    * @return the members
    */
   public Map<String, UserInfo> getMembers() {
+    if (memberIds != null) {
+      return new LazyMembers();
+    }
     return Collections.unmodifiableMap(members);
   }
 
+  /**
+   * Gets the members count. If the group has lazy members, it's a count of their IDs and members will not be
+   * resolved for this, thus members that cannot be resolved will be also counted. Use
+   * {@link #countResolvedMembers()} for a count that is the same as size of {@link #getMembers()}.
+   *
+   * @return the members count
+   */
+  public int getMembersCount() {
+    return memberIds != null ? memberIds.size() : members.size();
+  }
+
+  /**
+   * Count the members that can be resolved, it's the same as size of {@link #getMembers()}. If the group
+   * has lazy members, all of them will be resolved for this.
+   *
+   * @return the resolved members count
+   */
+  public int countResolvedMembers() {
+    return memberIds != null ? resolvedMembersCount() : members.size();
+  }
+
+  /**
+   * Checks if user with given ID is a member of the group, members will not be resolved for this, thus a
+   * member that cannot be resolved will be also reported.
+   *
+   * @param id the user id
+   * @return true, if it's a member
+   */
+  public boolean hasMember(String id) {
+    return memberIds != null ? memberIds.contains(id) : members.containsKey(id);
+  }
+
+  /**
+   * Gets a page of the members. Only the members of the page will be resolved.
+   *
+   * @param offset the offset (from 0)
+   * @param limit the max number of members to return
+   * @return the members list, it will be empty if no members in the page
+   */
+  public List<UserInfo> getMembersPage(int offset, int limit) {
+    List<UserInfo> page = new ArrayList<>(Math.max(0, Math.min(limit, getMembersCount() - offset)));
+    Iterator<String> ids = memberIds != null ? memberIds.iterator() : members.keySet().iterator();
+    for (int i = 0; i < offset && ids.hasNext(); i++) {
+      ids.next();
+    }
+    while (page.size() < limit && ids.hasNext()) {
+      String id = ids.next();
+      UserInfo user = memberIds != null ? resolveMember(id) : members.get(id);
+      if (user != null) {
+        page.add(user);
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Sets the lazy members: only their IDs will be kept, and each member will be resolved when accessed.
+   *
+   * @param ids the members IDs
+   * @param resolver the resolver
+   */
+  protected void setLazyMembers(Collection<String> ids, MemberResolver resolver) {
+    this.memberIds = Collections.unmodifiableSet(new LinkedHashSet<>(ids));
+    this.memberResolver = resolver;
+  }
+
+  /**
+   * Resolve a lazy member.
+   *
+   * @param id the id
+   * @return the user info or <code>null</code> if not found or cannot be read
+   */
+  protected UserInfo resolveMember(String id) {
+    UserInfo user = resolvedMembers.get(id);
+    if (user == null && !unresolvedMembers.contains(id)) {
+      try {
+        user = memberResolver.resolve(id);
+        if (user != null) {
+          resolvedMembers.put(id, user);
+        } else {
+          unresolvedMembers.add(id);
+          LOG.warn("Skipped not found member " + id + " of " + getId());
+        }
+      } catch (IdentityStateException e) {
+        unresolvedMembers.add(id);
+        LOG.warn("Skipped member " + id + " of " + getId() + ": " + e.getMessage());
+      }
+    }
+    return user;
+  }
+
+  /**
+   * Count of lazy members that can be resolved, all not yet resolved members will be resolved for this.
+   *
+   * @return the count
+   */
+  protected int resolvedMembersCount() {
+    if (resolvedMembers.size() + unresolvedMembers.size() < memberIds.size()) {
+      for (String id : memberIds) {
+        resolveMember(id);
+      }
+    }
+    return memberIds.size() - unresolvedMembers.size();
+  }
+
   /**
    * Adds the member.
    *
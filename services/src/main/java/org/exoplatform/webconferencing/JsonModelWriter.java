@@ -0,0 +1,504 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import org.exoplatform.webconferencing.UserInfo.IMInfo;
+import org.exoplatform.ws.frameworks.json.impl.JsonException;
+import org.exoplatform.ws.frameworks.json.impl.JsonGeneratorImpl;
+
+/**
+ * Streaming JSON writer of Web Conferencing model: calls, users, groups (spaces and rooms), context and
+ * provider configurations. It writes the same fields as reflective JSON generator does, but directly to a
+ * buffer or a {@link java.io.Writer}, without reflection and intermediate JSON values. Group members are
+ * written one by one, thus lazy members (of spaces) resolved only when it's their turn. A call last date
+ * written as a number of milliseconds. Only objects of exactly the known model classes written field by
+ * field: a subclass (e.g. of {@link UserInfo} or {@link IMInfo} in a connector) may have more getters, thus
+ * it will be written by the reflective generator, also when nested in a call or group.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: JsonModelWriter.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class JsonModelWriter {
+
+  /** The Constant HEX. */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /** The output. */
+  protected final Appendable  out;
+
+  /**
+   * Instantiates a new JSON writer.
+   *
+   * @param out the output, e.g. {@link StringBuilder} or {@link java.io.Writer}
+   */
+  public JsonModelWriter(Appendable out) {
+    this.out = out;
+  }
+
+  /**
+   * Checks if an object can be written by this writer: its class should be exactly one of the model classes,
+   * see {@link #isModelType(Class)}, or an array of call states.
+   *
+   * @param obj the object
+   * @return true, if is supported
+   */
+  public static boolean isSupported(Object obj) {
+    return obj != null && (isModelType(obj.getClass()) || obj.getClass() == CallState[].class);
+  }
+
+  /**
+   * Checks if given class is exactly one of the model classes known to this writer. Fields of their
+   * subclasses are unknown here.
+   *
+   * @param type the class
+   * @return true, if it's a known model class
+   */
+  protected static boolean isModelType(Class<?> type) {
+    return type == CallInfo.class || type == UserInfo.class || type == ParticipantInfo.class
+        || type == WebConferencingService.SpaceInfo.class || type == WebConferencingService.RoomInfo.class
+        || type == ContextInfo.class || type == CallState.class || type == CallProviderConfiguration.class;
+  }
+
+  /**
+   * Write an object of Web Conferencing model.
+   *
+   * @param obj the object
+   * @throws IOException if output error happen
+   * @throws IllegalArgumentException if object type not supported, see {@link #isSupported(Object)}
+   */
+  public void write(Object obj) throws IOException, IllegalArgumentException {
+    if (!isSupported(obj)) {
+      throw new IllegalArgumentException("Not supported type: " + (obj != null ? obj.getClass().getName() : null));
+    } else if (obj instanceof CallInfo) {
+      writeCall((CallInfo) obj);
+    } else if (obj instanceof IdentityInfo) {
+      writeIdentity((IdentityInfo) obj);
+    } else if (obj instanceof ContextInfo) {
+      writeContext((ContextInfo) obj);
+    } else if (obj instanceof CallState) {
+      writeCallState((CallState) obj);
+    } else if (obj instanceof CallState[]) {
+      out.append('[');
+      CallState[] states = (CallState[]) obj;
+      for (int i = 0; i < states.length; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        writeCallState(states[i]);
+      }
+      out.append(']');
+    } else {
+      writeProviderConfig((CallProviderConfiguration) obj);
+    }
+  }
+
+  /**
+   * Write a call.
+   *
+   * @param call the call
+   * @throws IOException if output error happen
+   */
+  public void writeCall(CallInfo call) throws IOException {
+    if (!isModelType(call.getClass())) {
+      writeReflective(call);
+      return;
+    }
+    out.append("{\"id\":");
+    writeString(call.getId());
+    out.append(",\"title\":");
+    writeString(call.getTitle());
+    out.append(",\"providerType\":");
+    writeString(call.getProviderType());
+    out.append(",\"state\":");
+    writeString(call.getState());
+    out.append(",\"lastDate\":");
+    Date lastDate = call.getLastDate();
+    out.append(lastDate != null ? String.valueOf(lastDate.getTime()) : "null");
+    out.append(",\"owner\":");
+    IdentityInfo owner = call.getOwner();
+    if (owner != null) {
+      writeIdentity(owner);
+    } else {
+      out.append("null");
+    }
+    out.append(",\"participants\":[");
+    boolean first = true;
+    for (UserInfo part : call.getParticipants()) {
+      if (first) {
+        first = false;
+      } else {
+        out.append(',');
+      }
+      writeUser(part);
+    }
+    out.append("]}");
+  }
+
+  /**
+   * Write an identity: an user or a group.
+   *
+   * @param identity the identity
+   * @throws IOException if output error happen
+   */
+  public void writeIdentity(IdentityInfo identity) throws IOException {
+    if (identity instanceof GroupInfo) {
+      writeGroup((GroupInfo) identity);
+    } else if (identity instanceof UserInfo) {
+      writeUser((UserInfo) identity);
+    } else {
+      writeReflective(identity);
+    }
+  }
+
+  /**
+   * Write an user.
+   *
+   * @param user the user
+   * @throws IOException if output error happen
+   */
+  public void writeUser(UserInfo user) throws IOException {
+    if (!isModelType(user.getClass())) {
+      writeReflective(user);
+      return;
+    }
+    out.append('{');
+    writeIdentityFields(user);
+    out.append(",\"firstName\":");
+    writeString(user.getFirstName());
+    out.append(",\"lastName\":");
+    writeString(user.getLastName());
+    out.append(",\"state\":");
+    writeString(user.getState());
+    out.append(",\"clientId\":");
+    writeString(user.getClientId());
+    out.append(",\"imAccounts\":{");
+    boolean first = true;
+    for (Map.Entry<String, Collection<IMInfo>> ime : user.getImAccounts().entrySet()) {
+      if (first) {
+        first = false;
+      } else {
+        out.append(',');
+      }
+      writeString(ime.getKey());
+      out.append(":[");
+      boolean firstIm = true;
+      for (IMInfo im : ime.getValue()) {
+        if (firstIm) {
+          firstIm = false;
+        } else {
+          out.append(',');
+        }
+        if (im.getClass() == IMInfo.class) {
+          out.append("{\"type\":");
+          writeString(im.getType());
+          out.append(",\"id\":");
+          writeString(im.getId());
+          out.append('}');
+        } else {
+          writeReflective(im);
+        }
+      }
+      out.append(']');
+    }
+    out.append("}}");
+  }
+
+  /**
+   * Write a group. Its members will be written one by one, thus for lazy groups (e.g. spaces) each member
+   * will be resolved only when it's its turn to be written. The members count written after the members,
+   * it's a count of actually written members (lazy members that cannot be resolved are skipped).
+   *
+   * @param group the group
+   * @throws IOException if output error happen
+   */
+  public void writeGroup(GroupInfo group) throws IOException {
+    if (!isModelType(group.getClass())) {
+      writeReflective(group);
+      return;
+    }
+    out.append('{');
+    writeIdentityFields(group);
+    out.append(",\"callId\":");
+    writeString(group.getCallId());
+    if (group instanceof WebConferencingService.SpaceInfo) {
+      out.append(",\"groupId\":");
+      writeString(WebConferencingService.SpaceInfo.class.cast(group).getGroupId());
+    }
+    out.append(",\"members\":{");
+    int count = 0;
+    for (Map.Entry<String, UserInfo> me : group.getMembers().entrySet()) {
+      if (count > 0) {
+        out.append(',');
+      }
+      writeString(me.getKey());
+      out.append(':');
+      writeUser(me.getValue());
+      count++;
+    }
+    out.append("},\"membersCount\":").append(String.valueOf(count));
+    out.append('}');
+  }
+
+  /**
+   * Write a context.
+   *
+   * @param context the context
+   * @throws IOException if output error happen
+   */
+  public void writeContext(ContextInfo context) throws IOException {
+    if (!isModelType(context.getClass())) {
+      writeReflective(context);
+      return;
+    }
+    out.append("{\"containerName\":");
+    writeString(context.getContainerName());
+    out.append(",\"spaceId\":");
+    writeString(context.getSpaceId());
+    out.append(",\"roomTitle\":");
+    writeString(context.getRoomTitle());
+    out.append(",\"cometdPath\":");
+    writeString(context.getCometdPath());
+    out.append(",\"cometdToken\":");
+    writeString(context.getCometdToken());
+    out.append(',');
+    writeProvidersConfig(context.getProvidersConfig());
+    out.append(',');
+    writeMessages(context.getMessages());
+    out.append('}');
+  }
+
+  /**
+   * Write a <code>providersConfig</code> field with given configurations.
+   *
+   * @param configs the configurations
+   * @throws IOException if output error happen
+   */
+  public void writeProvidersConfig(Collection<CallProviderConfiguration> configs) throws IOException {
+    out.append("\"providersConfig\":[");
+    boolean first = true;
+    for (CallProviderConfiguration conf : configs) {
+      if (first) {
+        first = false;
+      } else {
+        out.append(',');
+      }
+      writeProviderConfig(conf);
+    }
+    out.append(']');
+  }
+
+  /**
+   * Write a <code>messages</code> field with given localized messages.
+   *
+   * @param messages the messages, can be <code>null</code>
+   * @throws IOException if output error happen
+   */
+  public void writeMessages(Map<String, String> messages) throws IOException {
+    out.append("\"messages\":{");
+    if (messages != null) {
+      boolean first = true;
+      for (Map.Entry<String, String> me : messages.entrySet()) {
+        if (first) {
+          first = false;
+        } else {
+          out.append(',');
+        }
+        writeString(me.getKey());
+        out.append(':');
+        writeString(me.getValue());
+      }
+    }
+    out.append('}');
+  }
+
+  /**
+   * Write a provider configuration.
+   *
+   * @param conf the configuration
+   * @throws IOException if output error happen
+   */
+  public void writeProviderConfig(CallProviderConfiguration conf) throws IOException {
+    if (!isModelType(conf.getClass())) {
+      writeReflective(conf);
+      return;
+    }
+    out.append("{\"type\":");
+    writeString(conf.getType());
+    out.append(",\"title\":");
+    writeString(conf.getTitle());
+    out.append(",\"description\":");
+    writeString(conf.getDescription());
+    out.append(",\"active\":").append(String.valueOf(conf.isActive()));
+    out.append(",\"logEnabled\":").append(String.valueOf(conf.isLogEnabled()));
+    out.append('}');
+  }
+
+  /**
+   * Write a call state.
+   *
+   * @param state the state
+   * @throws IOException if output error happen
+   */
+  public void writeCallState(CallState state) throws IOException {
+    if (!isModelType(state.getClass())) {
+      writeReflective(state);
+      return;
+    }
+    out.append("{\"id\":");
+    writeString(state.getId());
+    out.append(",\"state\":");
+    writeString(state.getState());
+    out.append('}');
+  }
+
+  /**
+   * Write a user call event.
+   *
+   * @param event the event
+   * @throws IOException if output error happen
+   */
+  public void writeCallEvent(UserCallEvent event) throws IOException {
+    out.append("{\"eventType\":");
+    writeString(event.getEventType());
+    out.append(",\"callId\":");
+    writeString(event.getCallId());
+    out.append(",\"providerType\":");
+    writeString(event.getProviderType());
+    if (event.isCallState()) {
+      out.append(",\"callState\":");
+      writeString(event.getCallState());
+    } else {
+      out.append(",\"part\":{\"id\":");
+      writeString(event.getPartId());
+      out.append('}');
+    }
+    out.append(",\"owner\":{\"id\":");
+    writeString(event.getOwnerId());
+    out.append(",\"type\":");
+    writeString(event.getOwnerType());
+    out.append("}}");
+  }
+
+  /**
+   * Write an object by reflective JSON generator, it's for subclasses of the model with unknown fields.
+   *
+   * @param obj the object
+   * @throws IOException if output error happen or JSON generation failed
+   */
+  protected void writeReflective(Object obj) throws IOException {
+    try {
+      out.append(new JsonGeneratorImpl().createJsonObject(obj).toString());
+    } catch (JsonException e) {
+      throw new IOException("Error generating JSON of " + obj.getClass().getName(), e);
+    }
+  }
+
+  /**
+   * Write fields common for all identities, without enclosing braces.
+   *
+   * @param identity the identity
+   * @throws IOException if output error happen
+   */
+  protected void writeIdentityFields(IdentityInfo identity) throws IOException {
+    out.append("\"id\":");
+    writeString(identity.getId());
+    out.append(",\"title\":");
+    writeString(identity.getTitle());
+    out.append(",\"type\":");
+    writeString(identity.getType());
+    out.append(",\"group\":").append(String.valueOf(identity.isGroup()));
+    out.append(",\"avatarLink\":");
+    writeString(identity.getAvatarLink());
+    out.append(",\"profileLink\":");
+    writeString(identity.getProfileLink());
+  }
+
+  /**
+   * Write a string as quoted and escaped JSON value, <code>null</code> will be written as JSON null. Runs
+   * of characters not needing escaping are written at once.
+   *
+   * @param str the string
+   * @throws IOException if output error happen
+   */
+  public void writeString(String str) throws IOException {
+    if (str == null) {
+      out.append("null");
+      return;
+    }
+    out.append('"');
+    int start = 0;
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      String escaped;
+      switch (c) {
+      case '"':
+        escaped = "\\\"";
+        break;
+      case '\\':
+        escaped = "\\\\";
+        break;
+      case '\n':
+        escaped = "\\n";
+        break;
+      case '\r':
+        escaped = "\\r";
+        break;
+      case '\t':
+        escaped = "\\t";
+        break;
+      case '\b':
+        escaped = "\\b";
+        break;
+      case '\f':
+        escaped = "\\f";
+        break;
+      default:
+        if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+          escaped = null;
+        } else {
+          continue;
+        }
+      }
+      if (i > start) {
+        out.append(str, start, i);
+      }
+      if (escaped != null) {
+        out.append(escaped);
+      } else {
+        out.append("\\u")
+           .append(HEX[(c >> 12) & 0xF])
+           .append(HEX[(c >> 8) & 0xF])
+           .append(HEX[(c >> 4) & 0xF])
+           .append(HEX[c & 0xF]);
+      }
+      start = i + 1;
+    }
+    if (start < str.length()) {
+      out.append(str, start, str.length());
+    }
+    out.append('"');
+  }
+}
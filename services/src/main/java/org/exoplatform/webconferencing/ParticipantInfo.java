@@ -58,6 +58,15 @@ public class ParticipantInfo extends UserInfo {
     addImAccount(imType, imId);
   }
 
+  /**
+   * Instantiates a new participant as a copy of given one. Call state and client ID will not be copied.
+   *
+   * @param other the participant to copy
+   */
+  protected ParticipantInfo(ParticipantInfo other) {
+    super(other);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -65,4 +74,15 @@ public class ParticipantInfo extends UserInfo {
   public String getType() {
     return TYPE_NAME;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected UserInfo copyWithState(String state, String clientId) {
+    ParticipantInfo copy = new ParticipantInfo(this);
+    copy.setState(state);
+    copy.setClientId(clientId);
+    return copy;
+  }
 }
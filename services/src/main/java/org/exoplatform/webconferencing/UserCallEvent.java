@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing;
+
+import java.io.IOException;
+
+/**
+ * User call event: call state changed, participant joined or leaved. An event fired to several users
+ * (e.g. to all participants of a group call) is the same instance for all of them, thus its JSON is encoded
+ * once and shared by all recipients, whatever thread delivers it to them.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: UserCallEvent.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class UserCallEvent {
+
+  /** The Constant EVENT_CALL_STATE. */
+  public static final String EVENT_CALL_STATE  = "call_state";
+
+  /** The Constant EVENT_CALL_JOINED. */
+  public static final String EVENT_CALL_JOINED = "call_joined";
+
+  /** The Constant EVENT_CALL_LEAVED. */
+  public static final String EVENT_CALL_LEAVED = "call_leaved";
+
+  /** The event type. */
+  protected final String     eventType;
+
+  /** The call id. */
+  protected final String     callId;
+
+  /** The provider type. */
+  protected final String     providerType;
+
+  /** The call state or participant id (depends on event type). */
+  protected final String     subject;
+
+  /** The owner id. */
+  protected final String     ownerId;
+
+  /** The owner type. */
+  protected final String     ownerType;
+
+  /** The JSON, encoded on first request. */
+  private volatile String    json;
+
+  /**
+   * Instantiates a new user call event.
+   *
+   * @param eventType the event type
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param subject the call state for state event, or participant id for others
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   */
+  protected UserCallEvent(String eventType,
+                          String callId,
+                          String providerType,
+                          String subject,
+                          String ownerId,
+                          String ownerType) {
+    this.eventType = eventType;
+    this.callId = callId;
+    this.providerType = providerType;
+    this.subject = subject;
+    this.ownerId = ownerId;
+    this.ownerType = ownerType;
+  }
+
+  /**
+   * Call state event.
+   *
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param callState the call state
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   * @return the user call event
+   */
+  public static UserCallEvent callState(String callId, String providerType, String callState, String ownerId, String ownerType) {
+    return new UserCallEvent(EVENT_CALL_STATE, callId, providerType, callState, ownerId, ownerType);
+  }
+
+  /**
+   * Participant joined event.
+   *
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   * @param partId the part id
+   * @return the user call event
+   */
+  public static UserCallEvent partJoined(String callId, String providerType, String ownerId, String ownerType, String partId) {
+    return new UserCallEvent(EVENT_CALL_JOINED, callId, providerType, partId, ownerId, ownerType);
+  }
+
+  /**
+   * Participant leaved event.
+   *
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   * @param partId the part id
+   * @return the user call event
+   */
+  public static UserCallEvent partLeaved(String callId, String providerType, String ownerId, String ownerType, String partId) {
+    return new UserCallEvent(EVENT_CALL_LEAVED, callId, providerType, partId, ownerId, ownerType);
+  }
+
+  /**
+   * Gets the event type.
+   *
+   * @return the event type
+   */
+  public String getEventType() {
+    return eventType;
+  }
+
+  /**
+   * Gets the call id.
+   *
+   * @return the call id
+   */
+  public String getCallId() {
+    return callId;
+  }
+
+  /**
+   * Gets the provider type.
+   *
+   * @return the provider type
+   */
+  public String getProviderType() {
+    return providerType;
+  }
+
+  /**
+   * Gets the call state, it's <code>null</code> for participant events.
+   *
+   * @return the call state
+   */
+  public String getCallState() {
+    return isCallState() ? subject : null;
+  }
+
+  /**
+   * Gets the participant id, it's <code>null</code> for call state event.
+   *
+   * @return the part id
+   */
+  public String getPartId() {
+    return isCallState() ? null : subject;
+  }
+
+  /**
+   * Gets the owner id.
+   *
+   * @return the owner id
+   */
+  public String getOwnerId() {
+    return ownerId;
+  }
+
+  /**
+   * Gets the owner type.
+   *
+   * @return the owner type
+   */
+  public String getOwnerType() {
+    return ownerType;
+  }
+
+  /**
+   * Checks if it is call state event.
+   *
+   * @return true, if it is call state event
+   */
+  public boolean isCallState() {
+    return EVENT_CALL_STATE.equals(eventType);
+  }
+
+  /**
+   * Event as JSON. It's encoded once, on first call, then the same string returned.
+   *
+   * @return the JSON string
+   */
+  public String toJSON() {
+    String res = json;
+    if (res == null) {
+      synchronized (this) {
+        res = json;
+        if (res == null) {
+          StringBuilder data = new StringBuilder(256);
+          try {
+            new JsonModelWriter(data).writeCallEvent(this);
+          } catch (IOException e) {
+            // StringBuilder doesn't throw it
+            throw new IllegalStateException("Error encoding call event " + eventType + " of " + callId, e);
+          }
+          json = res = data.toString();
+        }
+      }
+    }
+    return res;
+  }
+}
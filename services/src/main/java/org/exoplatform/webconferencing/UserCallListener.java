@@ -94,4 +94,30 @@ public abstract class UserCallListener {
    */
   public abstract void onPartLeaved(String callId, String providerType, String ownerId, String ownerType, String partId);
 
+  /**
+   * On user call event. By default, it calls a method of the event type. Listeners publishing the event
+   * JSON can override it to use {@link UserCallEvent#toJSON()} encoded once for all recipients.
+   *
+   * @param event the event
+   */
+  public void onCallEvent(UserCallEvent event) {
+    switch (event.getEventType()) {
+    case UserCallEvent.EVENT_CALL_STATE:
+      onCallStateChanged(event.getCallId(),
+                         event.getProviderType(),
+                         event.getCallState(),
+                         event.getOwnerId(),
+                         event.getOwnerType());
+      break;
+    case UserCallEvent.EVENT_CALL_JOINED:
+      onPartJoined(event.getCallId(), event.getProviderType(), event.getOwnerId(), event.getOwnerType(), event.getPartId());
+      break;
+    case UserCallEvent.EVENT_CALL_LEAVED:
+      onPartLeaved(event.getCallId(), event.getProviderType(), event.getOwnerId(), event.getOwnerType(), event.getPartId());
+      break;
+    default:
+      // unknown event
+    }
+  }
+
 }
@@ -115,6 +115,22 @@ public class UserInfo extends IdentityInfo {
     this.lastName = lastName;
   }
 
+  /**
+   * Instantiates a new user info as a copy of given one. Call state and client ID will not be copied.
+   *
+   * @param other the user info to copy
+   */
+  protected UserInfo(UserInfo other) {
+    super(other.getId(), other.getTitle());
+    this.firstName = other.firstName;
+    this.lastName = other.lastName;
+    for (Map.Entry<String, List<IMInfo>> im : other.imAccounts.entrySet()) {
+      this.imAccounts.put(im.getKey(), new ArrayList<IMInfo>(im.getValue()));
+    }
+    this.avatarLink = other.avatarLink;
+    this.profileLink = other.profileLink;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -248,4 +264,19 @@ public class UserInfo extends IdentityInfo {
     return this.clientId != null && this.clientId.equals(clientId);
   }
 
+  /**
+   * Copy of this user with given call state and client ID, this user will not be changed. It's used to
+   * change a participant of a call shared with other threads.
+   *
+   * @param state the state
+   * @param clientId the client id
+   * @return the user info copy
+   */
+  protected UserInfo copyWithState(String state, String clientId) {
+    UserInfo copy = new UserInfo(this);
+    copy.state = state;
+    copy.clientId = clientId;
+    return copy;
+  }
+
 }
@@ -18,6 +18,8 @@
  */
 package org.exoplatform.webconferencing;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Enumeration;
@@ -38,6 +40,7 @@ import org.exoplatform.social.core.space.SpaceUtils;
 import org.exoplatform.social.core.space.model.Space;
 import org.exoplatform.social.core.space.spi.SpaceService;
 import org.exoplatform.webconferencing.cometd.CometdWebConferencingService;
+import org.exoplatform.webconferencing.support.ExpiringCache;
 import org.exoplatform.webui.application.WebuiRequestContext;
 import org.exoplatform.ws.frameworks.json.impl.JsonException;
 import org.exoplatform.ws.frameworks.json.impl.JsonGeneratorImpl;
@@ -50,6 +53,27 @@ import org.exoplatform.ws.frameworks.json.impl.JsonGeneratorImpl;
  */
 public class Utils {
 
+  /** The Constant CONTEXT_CACHE_SIZE, max number of cached context fragments. */
+  protected static final int                           CONTEXT_CACHE_SIZE   = 100;
+
+  /** The Constant CONTEXT_CACHE_TIME, live time of cached context fragments (in milliseconds). */
+  protected static final long                          CONTEXT_CACHE_TIME   = 5 * 60 * 1000;
+
+  /**
+   * The context parts that depend on container, locale and providers only, serialized to JSON fields
+   * (without enclosing braces). Keyed by container name, locale and providers version.
+   */
+  protected static final ExpiringCache<String, String> CONTEXT_FRAGMENTS    =
+                                                                     new ExpiringCache<>(CONTEXT_CACHE_SIZE,
+                                                                                         CONTEXT_CACHE_TIME);
+
+  /** The Constant JSON_BUFFER_MAX_SIZE, larger buffers will not be kept for reuse. */
+  protected static final int                           JSON_BUFFER_MAX_SIZE = 64 * 1024;
+
+  /** The JSON buffers of threads. */
+  protected static final ThreadLocal<StringBuilder>    JSON_BUFFERS         =
+                                                                       ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
   /**
    * Generate a space room name.
    *
@@ -157,6 +181,93 @@ public class Utils {
     return context;
   }
 
+  /**
+   * Gets the current context serialized to JSON. It is the same as {@link #asJSON(Object)} of
+   * {@link #getCurrentContext(String, Locale)} result, but provider configurations and localized messages
+   * are serialized once per locale and reused until a provider configuration will be saved, only the space
+   * and user token fields are written per request.
+   *
+   * @param userId the user id
+   * @param locale the locale
+   * @return the current context JSON
+   * @throws JsonException if JSON generation failed
+   */
+  public static String getCurrentContextJSON(String userId, Locale locale) throws JsonException {
+    String spaceRoomName;
+    String spacePrettyName = Utils.getSpaceNameByContext();
+    if (spacePrettyName != null) {
+      spaceRoomName = Utils.spaceRoomName(spacePrettyName);
+    } else {
+      spacePrettyName = spaceRoomName = IdentityInfo.EMPTY;
+    }
+    ExoContainer exo = ExoContainerContext.getCurrentContainer();
+    WebConferencingService webConferencing = exo.getComponentInstanceOfType(WebConferencingService.class);
+    CometdWebConferencingService cometdService = exo.getComponentInstanceOfType(CometdWebConferencingService.class);
+    String containerName = exo.getContext().getName();
+
+    String key = new StringBuilder(containerName).append('@')
+                                                 .append(locale)
+                                                 .append('#')
+                                                 .append(webConferencing.getProvidersVersion())
+                                                 .toString();
+    String fragment = CONTEXT_FRAGMENTS.get(key);
+    if (fragment == null) {
+      fragment = contextFragment(webConferencing, locale);
+      CONTEXT_FRAGMENTS.put(key, fragment);
+    }
+
+    StringBuilder json = new StringBuilder(fragment.length() + 256);
+    JsonModelWriter writer = new JsonModelWriter(json);
+    try {
+      json.append("{\"containerName\":");
+      writer.writeString(containerName);
+      json.append(",\"spaceId\":");
+      writer.writeString(spacePrettyName);
+      json.append(",\"roomTitle\":");
+      writer.writeString(spaceRoomName);
+      if (cometdService != null) {
+        json.append(",\"cometdPath\":");
+        writer.writeString(cometdService.getCometdServerPath());
+        json.append(",\"cometdToken\":");
+        writer.writeString(cometdService.getUserToken(userId));
+      } else {
+        json.append(",\"cometdPath\":null,\"cometdToken\":null");
+      }
+    } catch (IOException e) {
+      // StringBuilder doesn't throw it
+      throw new JsonException("Error writing context", e);
+    }
+    json.append(',').append(fragment).append('}');
+    return json.toString();
+  }
+
+  /**
+   * Serialize context fields that don't depend on a user or space: provider configurations and localized
+   * messages.
+   *
+   * @param webConferencing the web conferencing service
+   * @param locale the locale, can be <code>null</code>
+   * @return the JSON fields without enclosing braces
+   * @throws JsonException if JSON generation failed
+   */
+  protected static String contextFragment(WebConferencingService webConferencing, Locale locale) throws JsonException {
+    StringBuilder json = new StringBuilder(2048);
+    JsonModelWriter writer = new JsonModelWriter(json);
+    try {
+      writer.writeProvidersConfig(webConferencing.getProviderConfigurations());
+      json.append(',');
+      if (locale != null) {
+        writer.writeMessages(getResourceMessages("locale.webconferencing.WebConferencingClient", locale));
+      } else {
+        writer.writeMessages(null);
+      }
+    } catch (IOException e) {
+      // StringBuilder doesn't throw it
+      throw new JsonException("Error writing context", e);
+    }
+    return json.toString();
+  }
+
   /**
    * Gets the resource messages.
    *
@@ -192,7 +303,9 @@ public class Utils {
   }
 
   /**
-   * As JSON.
+   * As JSON. Objects of Web Conferencing model (calls, users, groups, context etc.) written by
+   * {@link JsonModelWriter} to a buffer reused by the thread, others (including subclasses of the model) by
+   * reflective JSON generator.
    *
    * @param obj the obj
    * @return the string
@@ -200,6 +313,22 @@ public class Utils {
    */
   public static String asJSON(Object obj) throws JsonException {
     if (obj != null) {
+      if (JsonModelWriter.isSupported(obj)) {
+        StringBuilder json = JSON_BUFFERS.get();
+        json.setLength(0);
+        try {
+          new JsonModelWriter(json).write(obj);
+        } catch (IOException e) {
+          // StringBuilder doesn't throw it
+          throw new JsonException("Error writing " + obj.getClass().getName(), e);
+        }
+        String res = json.toString();
+        if (json.capacity() > JSON_BUFFER_MAX_SIZE) {
+          // don't hold memory of large groups
+          JSON_BUFFERS.remove();
+        }
+        return res;
+      }
       JsonGeneratorImpl gen = new JsonGeneratorImpl();
       if (obj.getClass().isArray()) {
         return gen.createJsonArray(obj).toString();
@@ -211,6 +340,23 @@ public class Utils {
     }
   }
 
+  /**
+   * Write an object as JSON to the writer, see {@link #asJSON(Object)}. Objects of Web Conferencing model
+   * written directly to the writer.
+   *
+   * @param obj the obj
+   * @param writer the writer
+   * @throws JsonException if JSON generation failed
+   * @throws IOException if output error happen
+   */
+  public static void writeJSON(Object obj, Writer writer) throws JsonException, IOException {
+    if (JsonModelWriter.isSupported(obj)) {
+      new JsonModelWriter(writer).write(obj);
+    } else {
+      writer.write(asJSON(obj));
+    }
+  }
+
   /**
    * Build client URL using given parameters.
    *
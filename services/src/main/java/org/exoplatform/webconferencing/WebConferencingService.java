@@ -24,17 +24,24 @@ import java.net.URLEncoder;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 
 import javax.persistence.PersistenceException;
 
@@ -50,22 +57,30 @@ import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
 import org.exoplatform.services.organization.OrganizationService;
 import org.exoplatform.services.organization.User;
+import org.exoplatform.services.organization.UserEventListener;
 import org.exoplatform.services.organization.UserStatus;
 import org.exoplatform.services.security.ConversationState;
 import org.exoplatform.social.core.identity.model.Identity;
 import org.exoplatform.social.core.identity.model.Profile;
 import org.exoplatform.social.core.identity.provider.OrganizationIdentityProvider;
 import org.exoplatform.social.core.manager.IdentityManager;
+import org.exoplatform.social.core.profile.ProfileLifeCycleEvent;
+import org.exoplatform.social.core.profile.ProfileListenerPlugin;
 import org.exoplatform.social.core.service.LinkProvider;
 import org.exoplatform.social.core.space.model.Space;
 import org.exoplatform.social.core.space.spi.SpaceService;
 import org.exoplatform.webconferencing.UserInfo.IMInfo;
+import org.exoplatform.webconferencing.cluster.ClusterEvent;
+import org.exoplatform.webconferencing.cluster.ClusterEventBus;
 import org.exoplatform.webconferencing.dao.CallDAO;
 import org.exoplatform.webconferencing.dao.ParticipantDAO;
 import org.exoplatform.webconferencing.dao.StorageException;
 import org.exoplatform.webconferencing.domain.CallEntity;
 import org.exoplatform.webconferencing.domain.ParticipantEntity;
 import org.exoplatform.webconferencing.domain.ParticipantId;
+import org.exoplatform.webconferencing.support.CallMetricsService;
+import org.exoplatform.webconferencing.support.ExpiringCache;
+import org.exoplatform.webconferencing.support.UserEventDispatcher;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.picocontainer.Startable;
@@ -112,6 +127,27 @@ public class WebConferencingService implements Startable {
   /** The Constant PROVIDER_SCOPE_NAME. */
   protected static final String PROVIDER_SCOPE_NAME   = "webconferencing.provider".intern();
 
+  /** The Constant CALL_LOCKS_SIZE, number of lock stripes for calls. */
+  protected static final int    CALL_LOCKS_SIZE       = 256;
+
+  /** The Constant USER_CACHE_MAX_SIZE. */
+  protected static final int    USER_CACHE_MAX_SIZE   = 5000;
+
+  /** The Constant USER_CACHE_LIVE_TIME (in milliseconds). */
+  protected static final long   USER_CACHE_LIVE_TIME  = 5 * 60 * 1000;
+
+  /** The Constant PROVIDER_CACHE_SIZE, max number of cached provider settings and descriptions. */
+  protected static final int    PROVIDER_CACHE_SIZE   = 1000;
+
+  /** The Constant PROVIDER_CACHE_TIME, live time of cached provider settings (in milliseconds). */
+  protected static final long   PROVIDER_CACHE_TIME   = 5 * 60 * 1000;
+
+  /** The Constant EVENT_THREAD_PREFIX. */
+  protected static final String EVENT_THREAD_PREFIX   = "webconferencing-user-events-thread-";
+
+  /** The Constant EVENT_QUEUE_CAPACITY, max pending events per user. */
+  protected static final int    EVENT_QUEUE_CAPACITY  = 200;
+
   /**
    * Represent Space in calls.
    */
@@ -173,6 +209,117 @@ public class WebConferencingService implements Startable {
     }
   }
 
+  /**
+   * Invalidates cached user info when user profile updated.
+   */
+  protected class UserProfileListener extends ProfileListenerPlugin {
+
+    /**
+     * Invalidate the user of given event.
+     *
+     * @param event the event
+     */
+    protected void invalidate(ProfileLifeCycleEvent event) {
+      invalidateUserInfo(event.getUsername());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void avatarUpdated(ProfileLifeCycleEvent event) {
+      invalidate(event);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void basicInfoUpdated(ProfileLifeCycleEvent event) {
+      invalidate(event);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contactSectionUpdated(ProfileLifeCycleEvent event) {
+      invalidate(event);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void experienceSectionUpdated(ProfileLifeCycleEvent event) {
+      // not used in user info
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void headerSectionUpdated(ProfileLifeCycleEvent event) {
+      invalidate(event);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void createProfile(ProfileLifeCycleEvent event) {
+      invalidate(event);
+    }
+
+    /**
+     * Profile about me section updated (not used in user info).
+     *
+     * @param event the event
+     */
+    public void aboutMeUpdated(ProfileLifeCycleEvent event) {
+      // not used in user info
+    }
+
+    /**
+     * Profile banner updated (not used in user info).
+     *
+     * @param event the event
+     */
+    public void bannerUpdated(ProfileLifeCycleEvent event) {
+      // not used in user info
+    }
+  }
+
+  /**
+   * Invalidates cached user info when user saved, enabled/disabled or deleted in Organization Service.
+   */
+  protected class UserStateListener extends UserEventListener {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postSave(User user, boolean isNew) throws Exception {
+      invalidateUserInfo(user.getUserName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postSetEnabled(User user) throws Exception {
+      invalidateUserInfo(user.getUserName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postDelete(User user) throws Exception {
+      invalidateUserInfo(user.getUserName());
+    }
+  }
+
   /** The Constant OWNER_TYPE_SPACE. */
   public static final String                         OWNER_TYPE_SPACE    = "space";
 
@@ -206,9 +353,47 @@ public class WebConferencingService implements Startable {
   /** The space service. */
   protected SpaceService                             spaceService;
 
-  /** The user listeners. */
+  /** The user listeners, copy-on-write sets as they are iterated by event threads. */
   protected final Map<String, Set<UserCallListener>> userListeners       = new ConcurrentHashMap<>();
 
+  /**
+   * The active calls registry: live (not stopped) calls of this server by ID. Changes of these calls are
+   * written through to the storage, but reads are served from here. Registered calls are not changed: a
+   * change is made in a copy of the call, and the copy replaces it here after it was saved, thus readers
+   * can use them without the call lock.
+   */
+  protected final Map<String, CallInfo>              activeCalls         = new ConcurrentHashMap<>();
+
+  /** The call locks, striped by call ID. */
+  protected final Lock[]                             callLocks           = new Lock[CALL_LOCKS_SIZE];
+
+  /** The users cache. Cached instances should not be returned to callers, but their copies only. */
+  protected final ExpiringCache<String, UserInfo>    userCache           =
+                                                               new ExpiringCache<>(USER_CACHE_MAX_SIZE, USER_CACHE_LIVE_TIME);
+
+  /** The saved activity of providers by type (a provider without saved configuration is active). */
+  protected final ExpiringCache<String, Boolean>     providerActive      =
+                                                               new ExpiringCache<>(PROVIDER_CACHE_SIZE, PROVIDER_CACHE_TIME);
+
+  /** The localized provider descriptions by provider type and locale. */
+  protected final ExpiringCache<String, String>      descriptionsCache   =
+                                                               new ExpiringCache<>(PROVIDER_CACHE_SIZE, PROVIDER_CACHE_TIME);
+
+  /** The providers version, it changes each time a provider configuration saved (here or on other node). */
+  protected final AtomicLong                         providersVersion    = new AtomicLong();
+
+  /** The user events dispatcher, it delivers events to user listeners asynchronously. */
+  protected final UserEventDispatcher                userEvents;
+
+  /** The cluster event bus, it replicates user call events to other nodes. */
+  protected final ClusterEventBus                    clusterBus;
+
+  /** The call operations metrics. */
+  protected final CallMetricsService                 metrics;
+
+  /** The cluster events listener. */
+  protected final ClusterEventBus.Listener           clusterListener     = this::onClusterEvent;
+
   /**
    * Checks is ID valid (not null, not empty and not longer of {@value #ID_MAX_LENGTH} chars).
    *
@@ -270,29 +455,90 @@ public class WebConferencingService implements Startable {
    * @param settingService the setting service
    * @param callStorage the call storage
    * @param participantsStorage the participants storage
+   * @param clusterBus the cluster event bus
+   * @param metrics the call operations metrics
    */
   public WebConferencingService(OrganizationService organization,
                                 IdentityManager socialIdentityManager,
                                 ListenerService listenerService,
                                 SettingService settingService,
                                 CallDAO callStorage,
-                                ParticipantDAO participantsStorage) {
+                                ParticipantDAO participantsStorage,
+                                ClusterEventBus clusterBus,
+                                CallMetricsService metrics) {
     this.organization = organization;
     this.socialIdentityManager = socialIdentityManager;
     this.listenerService = listenerService;
     this.settingService = settingService;
     this.callStorage = callStorage;
     this.participantsStorage = participantsStorage;
+    this.clusterBus = clusterBus;
+    this.metrics = metrics;
+    for (int i = 0; i < callLocks.length; i++) {
+      callLocks[i] = new ReentrantLock();
+    }
+    int eventThreads = Runtime.getRuntime().availableProcessors() / 2;
+    this.userEvents = new UserEventDispatcher(EVENT_THREAD_PREFIX, eventThreads < 2 ? 2 : eventThreads, EVENT_QUEUE_CAPACITY);
   }
 
   /**
-   * Gets the user info.
+   * Gets the user info. Users are cached for {@value #USER_CACHE_LIVE_TIME} milliseconds or until the user
+   * profile or state will be changed. Each call returns a new instance that can be modified by the caller.
    *
    * @param id the id
    * @return the user info
    * @throws IdentityStateException if error happened during searching the user in Organization Service
    */
   public UserInfo getUserInfo(String id) throws IdentityStateException {
+    UserInfo info = userCache.get(id);
+    if (info == null) {
+      info = readUserInfo(id);
+      if (info != null) {
+        userCache.put(id, info);
+      } else {
+        return null;
+      }
+    }
+    return new UserInfo(info);
+  }
+
+  /**
+   * Invalidate cached user info.
+   *
+   * @param id the user id
+   */
+  public void invalidateUserInfo(String id) {
+    if (id != null && userCache.remove(id) && LOG.isDebugEnabled()) {
+      LOG.debug("Invalidated cached user info: " + id);
+    }
+  }
+
+  /**
+   * Gets the user info cache hits count.
+   *
+   * @return the hits
+   */
+  public long getUserCacheHits() {
+    return userCache.getHits();
+  }
+
+  /**
+   * Gets the user info cache misses count.
+   *
+   * @return the misses
+   */
+  public long getUserCacheMisses() {
+    return userCache.getMisses();
+  }
+
+  /**
+   * Read the user info from Organization Service and Social.
+   *
+   * @param id the id
+   * @return the user info or <code>null</code> if user not found, disabled or has not social identity
+   * @throws IdentityStateException if error happened during searching the user in Organization Service
+   */
+  protected UserInfo readUserInfo(String id) throws IdentityStateException {
     User user;
     try {
       user = organization.getUserHandler().findUserByName(id, UserStatus.ANY);
@@ -357,7 +603,7 @@ public class WebConferencingService implements Startable {
   }
 
   /**
-   * Space info.
+   * Space info. Space members will be resolved lazily, when accessed.
    *
    * @param spacePrettyName the space pretty name
    * @param callId the call id
@@ -367,16 +613,9 @@ public class WebConferencingService implements Startable {
   protected SpaceInfo spaceInfo(String spacePrettyName, String callId) throws IdentityStateException {
     Space socialSpace = spaceService.getSpaceByPrettyName(spacePrettyName);
     SpaceInfo space = new SpaceInfo(socialSpace);
-    for (String sm : socialSpace.getMembers()) {
-      UserInfo user = getUserInfo(sm);
-      if (user != null) {
-        space.addMember(user);
-      } else {
-        LOG.warn("Skipped not found space member " + sm + " of " + spacePrettyName);
-        // for space we have members from inside, thus if it is not found, we ignore him assuming space
-        // should be consistent
-      }
-    }
+    // For space we have members from inside, thus if some is not found, it will be skipped assuming space
+    // should be consistent
+    space.setLazyMembers(Arrays.asList(socialSpace.getMembers()), id -> getUserInfo(id));
     space.setProfileLink(socialSpace.getUrl());
     space.setAvatarLink(socialSpace.getAvatarUrl());
     space.setCallId(callId);
@@ -455,6 +694,40 @@ public class WebConferencingService implements Startable {
                                                     IdentityStateException,
                                                     CallConflictException,
                                                     CallSettingsException {
+    CallMetricsService.Timer timer = metrics.start(CallMetricsService.ADD_CALL);
+    try {
+      return doAddCall(id, ownerId, ownerType, title, providerType, parts);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Adds the call, see {@link #addCall(String, String, String, String, String, Collection)}.
+   *
+   * @param id the id of the call
+   * @param ownerId the owner id of the call
+   * @param ownerType the owner type
+   * @param title the title of the call
+   * @param providerType the provider type
+   * @param parts the participants
+   * @return the call info object of type {@link CallInfo}
+   * @throws CallArgumentException if call argument has wrong value (failed validation)
+   * @throws StorageException if error reading, adding or updating call information in persistent storage
+   * @throws IdentityStateException if error reading room member in Organization Service
+   * @throws CallConflictException if such call already exists and has active state (started and/or running)
+   * @throws CallSettingsException if call entry has wrong settings
+   */
+  protected CallInfo doAddCall(String id,
+                               String ownerId,
+                               String ownerType,
+                               String title,
+                               String providerType,
+                               Collection<String> parts) throws CallArgumentException,
+                                                         StorageException,
+                                                         IdentityStateException,
+                                                         CallConflictException,
+                                                         CallSettingsException {
     if (isValidId(id)) {
       if (isValidId(ownerId)) {
         if (isNotNullArg(ownerType)) {
@@ -547,29 +820,24 @@ public class WebConferencingService implements Startable {
               call.setState(CallState.STARTED);
               call.setLastDate(Calendar.getInstance().getTime());
 
-              // Clear storage session:
-              // XXX It is REQUIRED stuff (actual when something were deleted above), otherwise
-              // ExoTx/Hibernate will fail to enter into the transaction in createCall() with an exception:
-              // javax.persistence.EntityExistsException: a different object with the same identifier value
-              // was already associated with the session, e.g.:
-              // [org.exoplatform.webconferencing.domain.ParticipantEntity#org.exoplatform.webconferencing.domain.ParticipantId@4aa63de3]
+              // Create the call in storage, handle conflicts if required, and register it as active
+              Lock lock = callLock(id);
+              lock.lock();
               try {
-                participantsStorage.clear();
-                callStorage.clear();
-              } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
-                LOG.warn("Call storage cleanup failed before creating call: " + call.getId(), e);
+                createCall(call);
+                activeCalls.put(id, call);
+              } finally {
+                lock.unlock();
               }
 
-              // Create the call in storage, handle conflicts if required
-              createCall(call);
-
               // Notify participants (about started call)
               if (isGroup) {
                 // it's group call: fire group's user listener for incoming, except of the caller
+                UserCallEvent started = UserCallEvent.callState(id, providerType, CallState.STARTED, ownerId, ownerType);
                 for (UserInfo part : call.getParticipants()) {
                   if (UserInfo.TYPE_NAME.equals(part.getType())) {
                     if (!currentUserId.equals(part.getId())) {
-                      fireUserCallStateChanged(part.getId(), id, providerType, CallState.STARTED, ownerId, ownerType);
+                      fireUserCallEvent(part.getId(), started);
                     }
                   }
                 }
@@ -597,18 +865,38 @@ public class WebConferencingService implements Startable {
   }
 
   /**
-   * Gets an active call info.
+   * Gets an active call info. Live calls are served from the active calls registry, the storage is read
+   * only if the call not yet registered on this server (e.g. after a restart or for already stopped call).
+   * Returned call is a snapshot shared with other readers, it will not be changed by this service and
+   * should not be changed by the caller.
    *
    * @param id the id
    * @return the call info or <code>null</code> if call not found
    * @throws InvalidCallException if call in erroneous state, see cause exception for details
    */
   public CallInfo getCall(String id) throws InvalidCallException {
-    try {
-      return findCallById(id);
-    } catch (CallSettingsException | CallOwnerException | StorageException | IdentityStateException e) {
-      throw new InvalidCallException("Error getting call: " + id, e);
+    CallInfo call = activeCalls.get(id);
+    if (call == null) {
+      Lock lock = callLock(id);
+      lock.lock();
+      try {
+        // Check again under the lock: the call could be registered or evicted while we were waiting
+        call = activeCalls.get(id);
+        if (call == null) {
+          try {
+            call = findCallById(id);
+          } catch (CallSettingsException | CallOwnerException | StorageException | IdentityStateException e) {
+            throw new InvalidCallException("Error getting call: " + id, e);
+          }
+          if (call != null) {
+            call = registerCall(call);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
     }
+    return call;
   }
 
   /**
@@ -622,46 +910,86 @@ public class WebConferencingService implements Startable {
    *           exception
    */
   public CallInfo stopCall(String id, boolean remove) throws CallNotFoundException, InvalidCallException {
-    CallInfo call = getCall(id);
-    if (call != null) {
-      String userId = currentUserId();
-      try {
-        stopCall(call, userId, remove);
-        return call;
-      } catch (StorageException e) {
-        throw new InvalidCallException("Error stopping call: " + id, e);
+    CallMetricsService.Timer timer = metrics.start(CallMetricsService.STOP_CALL);
+    try {
+      return doStopCall(id, remove);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Stops the call, see {@link #stopCall(String, boolean)}.
+   *
+   * @param id the id
+   * @param remove the remove
+   * @return the call info object of type {@link CallInfo}
+   * @throws CallNotFoundException if call not found
+   * @throws InvalidCallException if call in erroneous state and cannot be used
+   */
+  protected CallInfo doStopCall(String id, boolean remove) throws CallNotFoundException, InvalidCallException {
+    Lock lock = callLock(id);
+    lock.lock();
+    try {
+      CallInfo call = getCall(id);
+      if (call != null) {
+        String userId = currentUserId();
+        try {
+          return stopCall(call, userId, remove);
+        } catch (StorageException e) {
+          throw new InvalidCallException("Error stopping call: " + id, e);
+        }
+      } else {
+        throw new CallNotFoundException("Call not found: " + id);
       }
-    } else {
-      throw new CallNotFoundException("Call not found: " + id);
+    } finally {
+      lock.unlock();
     }
   }
 
   /**
-   * Stop call.
+   * Stop call. The call will be evicted from the active calls registry. Given call will not be changed, a
+   * stopped copy of it will be saved (if not removed).
    *
    * @param call the call
    * @param userId the user id
    * @param remove the remove
-   * @return the call info
+   * @return the stopped call info (given one if removed)
    * @throws StorageException if persistence exception happen
    */
   protected CallInfo stopCall(CallInfo call, String userId, boolean remove) throws StorageException {
-    // Delete or update in single tx
+    CallInfo stopped;
     if (remove) {
-      deleteCall(call.getId());
+      stopped = call;
     } else {
-      call.setState(CallState.STOPPED);
-      // we don't update each participant with LEAVED state here as the call state already shows this,
-      // see also startCall()
-      try {
-        updateCall(call);
-      } catch (CallNotFoundException | CallSettingsException e) {
-        LOG.warn("Failed to save stopped call: " + call.getId(), e);
+      stopped = new CallInfo(call, UnaryOperator.identity());
+      stopped.setState(CallState.STOPPED);
+    }
+    // Delete or update in single tx
+    try {
+      if (remove) {
+        deleteCall(call.getId());
+      } else {
+        // we don't update each participant with LEAVED state here as the call state already shows this,
+        // see also startCall()
+        try {
+          updateCall(stopped);
+        } catch (CallNotFoundException | CallSettingsException e) {
+          LOG.warn("Failed to save stopped call: " + call.getId(), e);
+        }
       }
+    } finally {
+      // Stopped call isn't live anymore, if it will be requested again it will be read from the storage
+      evictCall(call.getId());
     }
     // Then notify users
     if (call.getOwner().isGroup()) {
       String callId = call.getId();
+      UserCallEvent stoppedEvent = UserCallEvent.callState(callId,
+                                                           call.getProviderType(),
+                                                           CallState.STOPPED,
+                                                           call.getOwner().getId(),
+                                                           call.getOwner().getType());
       for (UserInfo part : call.getParticipants()) {
         if (UserInfo.TYPE_NAME.equals(part.getType())) {
           // It's eXo user: fire user listener for stopped call,
@@ -670,19 +998,14 @@ public class WebConferencingService implements Startable {
           // A given user also can be null when not possible to define it (e.g. on CometD channel removal, or
           // other server side action) - then we notify to all participants.
           if (userId == null || !(remove && userId.equals(part.getId()))) {
-            fireUserCallStateChanged(part.getId(),
-                                     callId,
-                                     call.getProviderType(),
-                                     CallState.STOPPED,
-                                     call.getOwner().getId(),
-                                     call.getOwner().getType());
+            fireUserCallEvent(part.getId(), stoppedEvent);
           }
         }
       }
     } else {
       notifyUserCallStateChanged(call, userId, CallState.STOPPED);
     }
-    return call;
+    return stopped;
   }
 
   /**
@@ -696,62 +1019,86 @@ public class WebConferencingService implements Startable {
    *           exception
    */
   public CallInfo startCall(String id, String clientId) throws CallNotFoundException, InvalidCallException {
-    CallInfo call = getCall(id);
-    if (call != null) {
-      try {
-        startCall(call, clientId);
-        return call;
-      } catch (StorageException | ParticipantNotFoundException | CallSettingsException e) {
-        throw new InvalidCallException("Error starting call: " + id, e);
+    CallMetricsService.Timer timer = metrics.start(CallMetricsService.START_CALL);
+    try {
+      return doStartCall(id, clientId);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Starts the call, see {@link #startCall(String, String)}.
+   *
+   * @param id the id
+   * @param clientId the client id
+   * @return the call info object of type {@link CallInfo}
+   * @throws CallNotFoundException if call not found
+   * @throws InvalidCallException if call in erroneous state and cannot be used
+   */
+  protected CallInfo doStartCall(String id, String clientId) throws CallNotFoundException, InvalidCallException {
+    Lock lock = callLock(id);
+    lock.lock();
+    try {
+      CallInfo call = getCall(id);
+      if (call != null) {
+        try {
+          return startCall(call, clientId);
+        } catch (StorageException | ParticipantNotFoundException | CallSettingsException e) {
+          throw new InvalidCallException("Error starting call: " + id, e);
+        }
+      } else {
+        throw new CallNotFoundException("Call not found: " + id);
       }
-    } else {
-      throw new CallNotFoundException("Call not found: " + id);
+    } finally {
+      lock.unlock();
     }
   }
 
   /**
-   * Start existing call.
+   * Start existing call. Given call will not be changed, its started copy will be saved and then registered
+   * in the active calls registry. Caller should hold the call lock.
    *
    * @param call the call
    * @param clientId the client id
+   * @return the started call info
    * @throws StorageException if storage exception happen
    * @throws ParticipantNotFoundException if call or its participants not found in storage
    * @throws CallSettingsException if call entry has wrong settings (room call title)
    * @throws CallNotFoundException if call not found in storage
    */
-  protected void startCall(CallInfo call, String clientId) throws ParticipantNotFoundException,
-                                                           CallSettingsException,
-                                                           StorageException,
-                                                           CallNotFoundException {
+  protected CallInfo startCall(CallInfo call, String clientId) throws ParticipantNotFoundException,
+                                                               CallSettingsException,
+                                                               StorageException,
+                                                               CallNotFoundException {
     // TODO exception if user not a participant?
     String callId = call.getId();
 
-    // We save call in a single tx, thus logic split on gathering the changes and saving them at the end
-    call.setState(CallState.STARTED);
-
-    // On call start we mark all parts LEAVED and then each of them will join and be marked as JOINED in
-    // joinCall()
+    // We save call in a single tx, thus logic split on gathering the changes in a copy and saving them at
+    // the end. On call start we mark all parts LEAVED and then each of them will join and be marked as
+    // JOINED in joinCall()
     String userId = currentUserId();
-    for (UserInfo part : call.getParticipants()) {
+    CallInfo started = new CallInfo(call, part -> {
       if (UserInfo.TYPE_NAME.equals(part.getType()) && userId.equals(part.getId())) {
-        part.setState(UserState.JOINED);
-        part.setClientId(clientId);
+        return part.copyWithState(UserState.JOINED, clientId);
       } else {
-        part.setState(UserState.LEAVED);
-        part.setClientId(null);
+        return part.copyWithState(UserState.LEAVED, null);
       }
+    });
+    started.setState(CallState.STARTED);
+
+    saveStartedCall(started);
+    activeCalls.put(callId, started);
+
+    UserCallEvent startedEvent = UserCallEvent.callState(callId,
+                                                         started.getProviderType(),
+                                                         CallState.STARTED,
+                                                         started.getOwner().getId(),
+                                                         started.getOwner().getType());
+    for (UserInfo part : started.getParticipants()) {
+      fireUserCallEvent(part.getId(), startedEvent);
     }
-
-    updateCallAndParticipants(call);
-
-    for (UserInfo part : call.getParticipants()) {
-      fireUserCallStateChanged(part.getId(),
-                               callId,
-                               call.getProviderType(),
-                               CallState.STARTED,
-                               call.getOwner().getId(),
-                               call.getOwner().getType());
-    }
+    return started;
   }
 
   /**
@@ -767,44 +1114,73 @@ public class WebConferencingService implements Startable {
    *           exception
    */
   public CallInfo joinCall(String id, String partId, String clientId) throws InvalidCallException, CallNotFoundException {
+    CallMetricsService.Timer timer = metrics.start(CallMetricsService.JOIN_CALL);
+    try {
+      return doJoinCall(id, partId, clientId);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Joins the call, see {@link #joinCall(String, String, String)}.
+   *
+   * @param id the id
+   * @param partId the participant id
+   * @param clientId the client id
+   * @return the call info object of type {@link CallInfo}
+   * @throws CallNotFoundException if call not found
+   * @throws InvalidCallException if call in erroneous state and cannot be used
+   */
+  protected CallInfo doJoinCall(String id, String partId, String clientId) throws InvalidCallException, CallNotFoundException {
     // TODO exception if user not a participant?
-    CallInfo call = getCall(id);
-    if (call != null) {
-      try {
-        if (CallState.STARTED.equals(call.getState())) {
-          UserInfo joined = null;
-          // save Joined first
-          for (UserInfo part : call.getParticipants()) {
-            if (UserInfo.TYPE_NAME.equals(part.getType()) && partId.equals(part.getId())) {
-              part.setState(UserState.JOINED);
-              part.setClientId(clientId);
-              joined = part;
-              break;
-            }
-          }
-          // then save if someone joined (it should but we preserve the logic)
-          if (joined != null) {
-            // First save the call with joined participant (in single tx)
-            updateParticipant(id, joined);
-            // Then fire this user joined to all parts, including the user itself
+    Lock lock = callLock(id);
+    lock.lock();
+    try {
+      CallInfo call = getCall(id);
+      if (call != null) {
+        try {
+          if (CallState.STARTED.equals(call.getState())) {
+            UserInfo joinedPart = null;
             for (UserInfo part : call.getParticipants()) {
-              fireUserCallJoined(id,
-                                 call.getProviderType(),
-                                 call.getOwner().getId(),
-                                 call.getOwner().getType(),
-                                 partId,
-                                 part.getId());
+              if (UserInfo.TYPE_NAME.equals(part.getType()) && partId.equals(part.getId())) {
+                joinedPart = part;
+                break;
+              }
             }
+            // then save if someone joined (it should but we preserve the logic)
+            if (joinedPart != null) {
+              // Change a copy of the call, it replaces the registered call after saving
+              UserInfo registered = joinedPart;
+              UserInfo joined = registered.copyWithState(UserState.JOINED, clientId);
+              CallInfo joinedCall = new CallInfo(call, p -> p == registered ? joined : p);
+              // First save the call with joined participant (in single tx)
+              updateParticipant(id, joined);
+              replaceCall(call, joinedCall);
+              call = joinedCall;
+              // Then fire this user joined to all parts, including the user itself
+              UserCallEvent partJoined = UserCallEvent.partJoined(id,
+                                                                  call.getProviderType(),
+                                                                  call.getOwner().getId(),
+                                                                  call.getOwner().getType(),
+                                                                  partId);
+              for (UserInfo part : call.getParticipants()) {
+                fireUserCallEvent(part.getId(), partJoined);
+              }
+            }
+          } else {
+            call = startCall(call, clientId);
           }
-        } else {
-          startCall(call, clientId);
+        } catch (CallSettingsException | ParticipantNotFoundException | StorageException e) {
+          evictCall(id);
+          throw new InvalidCallException("Error joining call: " + id, e);
         }
-      } catch (CallSettingsException | ParticipantNotFoundException | StorageException e) {
-        throw new InvalidCallException("Error joining call: " + id, e);
+        return call;
+      } else {
+        throw new CallNotFoundException("Call not found: " + id);
       }
-      return call;
-    } else {
-      throw new CallNotFoundException("Call not found: " + id);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -820,68 +1196,95 @@ public class WebConferencingService implements Startable {
    *           exception
    */
   public CallInfo leaveCall(String id, String partId, String clientId) throws InvalidCallException {
+    CallMetricsService.Timer timer = metrics.start(CallMetricsService.LEAVE_CALL);
+    try {
+      return doLeaveCall(id, partId, clientId);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Leaves the call, see {@link #leaveCall(String, String, String)}.
+   *
+   * @param id the id
+   * @param partId the participant id
+   * @param clientId the client id
+   * @return the call info object of type {@link CallInfo}
+   * @throws InvalidCallException if call in erroneous state and cannot be used
+   */
+  protected CallInfo doLeaveCall(String id, String partId, String clientId) throws InvalidCallException {
     // TODO exception if user not a participant?
-    CallInfo call = getCall(id);
-    if (call != null) {
-      try {
-        if (CallState.STARTED.equals(call.getState()) || CallState.PAUSED.equals(call.getState())) {
-          UserInfo leaved = null;
-          int leavedNum = 0;
-          // save Joined first
-          for (UserInfo part : call.getParticipants()) {
-            if (UserInfo.TYPE_NAME.equals(part.getType())) {
-              if (partId.equals(part.getId())) {
-                // Leave should not be called on a call session started after stopping an one previous of this
-                // call.
-                if (part.hasSameClientId(clientId)) {
-                  part.setState(UserState.LEAVED);
-                  part.setClientId(null);
-                  leaved = part;
-                  leavedNum++;
-                } // otherwise we may meet this user running a new same call too quickly (before CometD will
-                  // unsubscribe this call previous channel), we ignore this leave so
-              } else {
-                // if null - user hasn't joined
-                if (part.getState() == null || part.getState().equals(UserState.LEAVED)) {
-                  leavedNum++;
+    Lock lock = callLock(id);
+    lock.lock();
+    try {
+      CallInfo call = getCall(id);
+      if (call != null) {
+        try {
+          if (CallState.STARTED.equals(call.getState()) || CallState.PAUSED.equals(call.getState())) {
+            UserInfo leavedPart = null;
+            int leavedNum = 0;
+            for (UserInfo part : call.getParticipants()) {
+              if (UserInfo.TYPE_NAME.equals(part.getType())) {
+                if (partId.equals(part.getId())) {
+                  // Leave should not be called on a call session started after stopping an one previous of
+                  // this call.
+                  if (part.hasSameClientId(clientId)) {
+                    leavedPart = part;
+                    leavedNum++;
+                  } // otherwise we may meet this user running a new same call too quickly (before CometD will
+                    // unsubscribe this call previous channel), we ignore this leave so
+                } else {
+                  // if null - user hasn't joined
+                  if (part.getState() == null || part.getState().equals(UserState.LEAVED)) {
+                    leavedNum++;
+                  }
                 }
               }
             }
-          }
-          // then save if someone leaved
-          if (leaved != null) {
-            // First save the call with the participant (in single tx)
-            updateParticipant(id, leaved);
-            // Fire user leaved to all parts, including the user itself
-            for (UserInfo part : call.getParticipants()) {
+            // then save if someone leaved
+            if (leavedPart != null) {
+              // Change a copy of the call, it replaces the registered call after saving
+              UserInfo registered = leavedPart;
+              UserInfo leaved = registered.copyWithState(UserState.LEAVED, null);
+              CallInfo leavedCall = new CallInfo(call, p -> p == registered ? leaved : p);
+              // First save the call with the participant (in single tx)
+              updateParticipant(id, leaved);
+              replaceCall(call, leavedCall);
+              call = leavedCall;
               // Fire user leaved to all parts, including the user itself
-              fireUserCallLeaved(id,
-                                 call.getProviderType(),
-                                 call.getOwner().getId(),
-                                 call.getOwner().getType(),
-                                 partId,
-                                 part.getId());
-            }
-            // Check if don't need stop the call if all parts leaved already
-            if (call.getOwner().isGroup()) {
-              if (leavedNum == call.getParticipants().size()) {
-                // Stop when all group members leave the call
-                stopCall(call, partId, false);
+              UserCallEvent partLeaved = UserCallEvent.partLeaved(id,
+                                                                  call.getProviderType(),
+                                                                  call.getOwner().getId(),
+                                                                  call.getOwner().getType(),
+                                                                  partId);
+              for (UserInfo part : call.getParticipants()) {
+                fireUserCallEvent(part.getId(), partLeaved);
               }
-            } else if (call.getParticipants().size() - leavedNum <= 1) {
-              // For P2P we remove the call when one of parts stand alone
-              stopCall(call, partId, true);
-            }
-          } // else, if no one leaved, we don't need any action (it may be leaved an user of already stopped
-            // call, see comments above)
-        } // It seems has no big sense to return error for already stopped call
-      } catch (StorageException | ParticipantNotFoundException e) {
-        throw new InvalidCallException("Error leaving call: " + id, e);
+              // Check if don't need stop the call if all parts leaved already
+              if (call.getOwner().isGroup()) {
+                if (leavedNum == call.getParticipants().size()) {
+                  // Stop when all group members leave the call
+                  call = stopCall(call, partId, false);
+                }
+              } else if (call.getParticipants().size() - leavedNum <= 1) {
+                // For P2P we remove the call when one of parts stand alone
+                call = stopCall(call, partId, true);
+              }
+            } // else, if no one leaved, we don't need any action (it may be leaved an user of already stopped
+              // call, see comments above)
+          } // It seems has no big sense to return error for already stopped call
+        } catch (StorageException | ParticipantNotFoundException e) {
+          evictCall(id);
+          throw new InvalidCallException("Error leaving call: " + id, e);
+        }
+      } else {
+        LOG.warn("Call " + id + " not found to leave it " + partId);
       }
-    } else {
-      LOG.warn("Call " + id + " not found to leave it " + partId);
+      return call;
+    } finally {
+      lock.unlock();
     }
-    return call;
   }
 
   /**
@@ -892,13 +1295,16 @@ public class WebConferencingService implements Startable {
    * @throws StorageException if persistence error happen
    */
   public CallState[] getUserCalls(String userId) throws StorageException {
-    // TODO it's not efficient to read whole Call info when we need only its ID and state
-    CallState[] states =
-                       findUserGroupCalls(userId).stream()
-                                                 .map(c -> new CallState(c.getId(),
-                                                                         c.getState() != null ? c.getState() : CallState.STOPPED))
-                                                 .toArray(size -> new CallState[size]);
-    return states;
+    CallMetricsService.Timer timer = metrics.start(CallMetricsService.GET_USER_CALLS);
+    try {
+      // Call ID and state only read from the storage, call without a state we treat as stopped
+      CallState[] states = findUserGroupCallStates(userId).stream()
+                                                          .map(c -> c.getState() != null ? c : new CallState(c.getId(), CallState.STOPPED))
+                                                          .toArray(size -> new CallState[size]);
+      return states;
+    } finally {
+      timer.stop();
+    }
   }
 
   /**
@@ -908,7 +1314,14 @@ public class WebConferencingService implements Startable {
    */
   public void addUserCallListener(UserCallListener listener) {
     final String userId = listener.getUserId();
-    userListeners.computeIfAbsent(userId, k -> new LinkedHashSet<>()).add(listener);
+    // Compute on the user to not add to a set being removed, see removeUserCallListener()
+    userListeners.compute(userId, (k, listeners) -> {
+      if (listeners == null) {
+        listeners = new CopyOnWriteArraySet<>();
+      }
+      listeners.add(listener);
+      return listeners;
+    });
   }
 
   /**
@@ -918,14 +1331,39 @@ public class WebConferencingService implements Startable {
    */
   public void removeUserCallListener(UserCallListener listener) {
     final String userId = listener.getUserId();
-    Set<UserCallListener> listeners = userListeners.get(userId);
-    if (listeners != null) {
+    // Remove the last listener and the user events atomically with adding a listener of the user
+    userListeners.computeIfPresent(userId, (k, listeners) -> {
       listeners.remove(listener);
-    }
+      if (listeners.isEmpty()) {
+        userEvents.removeUser(userId);
+        return null;
+      }
+      return listeners;
+    });
+  }
+
+  /**
+   * Checks if user has call listeners.
+   *
+   * @param userId the user id
+   * @return true, if user has listeners
+   */
+  protected boolean hasUserCallListeners(String userId) {
+    Set<UserCallListener> listeners = userListeners.get(userId);
+    return listeners != null && !listeners.isEmpty();
+  }
+
+  /**
+   * Gets the cluster event bus.
+   *
+   * @return the cluster event bus
+   */
+  public ClusterEventBus getClusterEventBus() {
+    return clusterBus;
   }
 
   /**
-   * Fire user call state.
+   * Fire user call state to listeners of this and other cluster nodes.
    *
    * @param userId the user id
    * @param callId the call id
@@ -940,17 +1378,11 @@ public class WebConferencingService implements Startable {
                                           String callState,
                                           String ownerId,
                                           String ownerType) {
-    // Synchronize on userListeners to have a consistent list of listeners to fire
-    Set<UserCallListener> listeners = userListeners.get(userId);
-    if (listeners != null) {
-      for (UserCallListener listener : listeners) {
-        listener.onCallStateChanged(callId, providerType, callState, ownerId, ownerType);
-      }
-    }
+    fireUserCallEvent(userId, UserCallEvent.callState(callId, providerType, callState, ownerId, ownerType));
   }
 
   /**
-   * Fire user call joined a new part.
+   * Fire user call joined a new part to listeners of this and other cluster nodes.
    *
    * @param callId the call id
    * @param providerType the provider type
@@ -965,16 +1397,11 @@ public class WebConferencingService implements Startable {
                                     String ownerType,
                                     String partId,
                                     String userId) {
-    Set<UserCallListener> listeners = userListeners.get(userId);
-    if (listeners != null) {
-      for (UserCallListener listener : listeners) {
-        listener.onPartJoined(callId, providerType, ownerId, ownerType, partId);
-      }
-    }
+    fireUserCallEvent(userId, UserCallEvent.partJoined(callId, providerType, ownerId, ownerType, partId));
   }
 
   /**
-   * Fire user call part leaved.
+   * Fire user call part leaved to listeners of this and other cluster nodes.
    *
    * @param callId the call id
    * @param providerType the provider type
@@ -989,11 +1416,160 @@ public class WebConferencingService implements Startable {
                                     String ownerType,
                                     String partId,
                                     String userId) {
-    Set<UserCallListener> listeners = userListeners.get(userId);
-    if (listeners != null) {
-      for (UserCallListener listener : listeners) {
-        listener.onPartLeaved(callId, providerType, ownerId, ownerType, partId);
-      }
+    fireUserCallEvent(userId, UserCallEvent.partLeaved(callId, providerType, ownerId, ownerType, partId));
+  }
+
+  /**
+   * Fire user call event to listeners of this and other cluster nodes. An event fired to several users
+   * should be the same instance for all of them, then its JSON will be encoded once.
+   *
+   * @param userId the user id
+   * @param event the event
+   */
+  protected void fireUserCallEvent(String userId, UserCallEvent event) {
+    notifyUserCallEvent(userId, event);
+    byte type;
+    String subject;
+    switch (event.getEventType()) {
+    case UserCallEvent.EVENT_CALL_JOINED:
+      type = ClusterEvent.PART_JOINED;
+      subject = event.getPartId();
+      break;
+    case UserCallEvent.EVENT_CALL_LEAVED:
+      type = ClusterEvent.PART_LEAVED;
+      subject = event.getPartId();
+      break;
+    default:
+      type = ClusterEvent.CALL_STATE;
+      subject = event.getCallState();
+    }
+    clusterBus.publish(new ClusterEvent(type,
+                                        event.getCallId(),
+                                        userId,
+                                        event.getProviderType(),
+                                        subject,
+                                        event.getOwnerId(),
+                                        event.getOwnerType()));
+  }
+
+  /**
+   * Handle user call event from other cluster node: the call could be changed there, thus it will be read
+   * from the storage next time, and listeners of this node will be notified.
+   *
+   * @param event the event
+   */
+  protected void onClusterEvent(ClusterEvent event) {
+    switch (event.getType()) {
+    case ClusterEvent.CALL_STATE:
+      evictCall(event.getCallId());
+      notifyUserCallStateChanged(event.getUserId(),
+                                 event.getCallId(),
+                                 event.getProviderType(),
+                                 event.getCallState(),
+                                 event.getOwnerId(),
+                                 event.getOwnerType());
+      break;
+    case ClusterEvent.PART_JOINED:
+      evictCall(event.getCallId());
+      notifyUserCallJoined(event.getCallId(),
+                           event.getProviderType(),
+                           event.getOwnerId(),
+                           event.getOwnerType(),
+                           event.getPartId(),
+                           event.getUserId());
+      break;
+    case ClusterEvent.PART_LEAVED:
+      evictCall(event.getCallId());
+      notifyUserCallLeaved(event.getCallId(),
+                           event.getProviderType(),
+                           event.getOwnerId(),
+                           event.getOwnerType(),
+                           event.getPartId(),
+                           event.getUserId());
+      break;
+    case ClusterEvent.PROVIDER_SAVED:
+      invalidateProviderConfig(event.getProviderType());
+      break;
+    default:
+      // not a user call event
+    }
+  }
+
+  /**
+   * Notify user call state listeners of this node. Listeners will be notified asynchronously, a not yet
+   * delivered state of the same call will be superseded by this one.
+   *
+   * @param userId the user id
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param callState the call state
+   * @param ownerId the caller id
+   * @param ownerType the caller type
+   */
+  protected void notifyUserCallStateChanged(String userId,
+                                            String callId,
+                                            String providerType,
+                                            String callState,
+                                            String ownerId,
+                                            String ownerType) {
+    notifyUserCallEvent(userId, UserCallEvent.callState(callId, providerType, callState, ownerId, ownerType));
+  }
+
+  /**
+   * Notify user call listeners of this node about joined part. Listeners will be notified asynchronously.
+   *
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   * @param partId the part id
+   * @param userId the user id
+   */
+  protected void notifyUserCallJoined(String callId,
+                                      String providerType,
+                                      String ownerId,
+                                      String ownerType,
+                                      String partId,
+                                      String userId) {
+    notifyUserCallEvent(userId, UserCallEvent.partJoined(callId, providerType, ownerId, ownerType, partId));
+  }
+
+  /**
+   * Notify user call listeners of this node about leaved part. Listeners will be notified asynchronously.
+   *
+   * @param callId the call id
+   * @param providerType the provider type
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   * @param partId the part id
+   * @param userId the user id
+   */
+  protected void notifyUserCallLeaved(String callId,
+                                      String providerType,
+                                      String ownerId,
+                                      String ownerType,
+                                      String partId,
+                                      String userId) {
+    notifyUserCallEvent(userId, UserCallEvent.partLeaved(callId, providerType, ownerId, ownerType, partId));
+  }
+
+  /**
+   * Notify user call listeners of this node about an event. Listeners will be notified asynchronously, a
+   * not yet delivered state of the same call will be superseded by a new state.
+   *
+   * @param userId the user id
+   * @param event the event
+   */
+  protected void notifyUserCallEvent(String userId, UserCallEvent event) {
+    if (hasUserCallListeners(userId)) {
+      userEvents.dispatch(userId, event.isCallState() ? event.getCallId() : null, () -> {
+        Set<UserCallListener> listeners = userListeners.get(userId);
+        if (listeners != null) {
+          for (UserCallListener listener : listeners) {
+            listener.onCallEvent(event);
+          }
+        }
+      });
     }
   }
 
@@ -1035,58 +1611,28 @@ public class WebConferencingService implements Startable {
   public CallProvider getProvider(String type) {
     CallProvider p = providers.get(type);
     if (p != null) {
-      try {
-        // Apply saved configurations (via Admin UI etc)
-        CallProviderConfiguration conf = readProviderConfig(p.getType());
-        if (conf != null) {
-          p.setActive(conf.isActive());
-        } else {
-          p.setActive(true);
-        }
-      } catch (Exception e) {
-        LOG.warn("Error reading provider configuration " + p.getType(), e);
-        p.setActive(true);
-      }
+      // Apply saved configurations (via Admin UI etc)
+      p.setActive(isProviderActive(p.getType()));
     }
     return p;
   }
 
   /**
-   * Gets the provider configurations.
+   * Gets the provider configurations. Saved activity and localized descriptions of providers are cached,
+   * thus the settings storage will not be read for each call. Each call returns new instances that can be
+   * modified by the caller.
    *
    * @param locale the locale to apply to provider description, if <code>null</code> a default one will be
    *          used
    * @return the provider configurations
    */
   public Set<CallProviderConfiguration> getProviderConfigurations(Locale locale) {
-    Set<CallProvider> allProviders = new LinkedHashSet<>();
-    // Collect all registered providers via configuration
-    for (CallProvider registeredProvider : providers.values()) {
-      allProviders.add(registeredProvider);
-    }
-    // Read configurations saved in storage for each of them
     Set<CallProviderConfiguration> allConfs = new LinkedHashSet<>();
-    for (Iterator<CallProvider> piter = allProviders.iterator(); piter.hasNext();) {
-      CallProvider p = piter.next();
-      boolean addDefault = false;
-      try {
-        CallProviderConfiguration conf = readProviderConfig(p.getType());
-        if (conf != null) {
-          conf.setTitle(p.getTitle());
-          conf.setDescription(p.getDescription(locale));
-          conf.setLogEnabled(p.isLogEnabled());
-          allConfs.add(conf);
-        } else {
-          addDefault = true;
-        }
-      } catch (Exception e) {
-        LOG.warn("Error reading providers configuration " + p.getType(), e);
-        addDefault = true; // this way we let read and re-save the erroneous config
-      }
-      if (addDefault) {
-        CallProviderConfiguration defaultConf = CallProviderConfiguration.fromProvider(p, locale);
-        allConfs.add(defaultConf);
-      }
+    // All registered providers via configuration with saved activity
+    for (CallProvider p : providers.values()) {
+      CallProviderConfiguration conf = CallProviderConfiguration.fromProvider(p, providerDescription(p, locale));
+      conf.setActive(isProviderActive(p.getType()));
+      allConfs.add(conf);
     }
     return allConfs;
   }
@@ -1111,14 +1657,8 @@ public class WebConferencingService implements Startable {
   public CallProviderConfiguration getProviderConfiguration(String providerType, Locale locale) {
     CallProvider p = getProvider(providerType);
     if (p != null) {
-      CallProviderConfiguration conf = readProviderConfig(p.getType());
-      if (conf == null) {
-        conf = CallProviderConfiguration.fromProvider(p, locale);
-      } else {
-        conf.setTitle(p.getTitle());
-        conf.setDescription(p.getDescription(locale));
-        conf.setLogEnabled(p.isLogEnabled());
-      }
+      CallProviderConfiguration conf = CallProviderConfiguration.fromProvider(p, providerDescription(p, locale));
+      conf.setActive(p.isActive());
       return conf;
     }
     return null; // not found
@@ -1140,6 +1680,72 @@ public class WebConferencingService implements Startable {
     } finally {
       Scope.GLOBAL.id(initialGlobalId);
     }
+    invalidateProviderConfig(conf.getType());
+    clusterBus.publish(ClusterEvent.providerSaved(conf.getType()));
+  }
+
+  /**
+   * Invalidate cached configuration of a provider.
+   *
+   * @param providerType the provider type
+   */
+  protected void invalidateProviderConfig(String providerType) {
+    providerActive.remove(providerType);
+    providersVersion.incrementAndGet();
+    // Users' IM accounts depend on providers activity
+    userCache.clear();
+  }
+
+  /**
+   * Gets the providers version. It changes each time a provider configuration saved in the cluster, thus
+   * data built from provider configurations can be cached by this version.
+   *
+   * @return the providers version
+   */
+  public long getProvidersVersion() {
+    return providersVersion.get();
+  }
+
+  /**
+   * Checks if provider is active by its saved configuration. It will be read from the storage once and then
+   * cached for {@value #PROVIDER_CACHE_TIME} milliseconds or until a new configuration will be saved.
+   * A provider without saved configuration (or if it cannot be read) is active.
+   *
+   * @param type the provider type
+   * @return true, if is provider active
+   */
+  protected boolean isProviderActive(String type) {
+    Boolean active = providerActive.get(type);
+    if (active == null) {
+      try {
+        CallProviderConfiguration conf = readProviderConfig(type);
+        active = conf != null ? conf.isActive() : true;
+      } catch (Exception e) {
+        LOG.warn("Error reading provider configuration " + type, e);
+        active = true; // this way we let read and re-save the erroneous config
+      }
+      providerActive.put(type, active);
+    }
+    return active;
+  }
+
+  /**
+   * Provider description for a locale, cached by provider type and locale.
+   *
+   * @param provider the provider
+   * @param locale the locale, can be <code>null</code>
+   * @return the description
+   */
+  protected String providerDescription(CallProvider provider, Locale locale) {
+    String key = new StringBuilder(provider.getType()).append('@').append(locale).toString();
+    String description = descriptionsCache.get(key);
+    if (description == null) {
+      description = provider.getDescription(locale);
+      if (description != null) {
+        descriptionsCache.put(key, description);
+      }
+    }
+    return description;
   }
 
   /**
@@ -1150,6 +1756,17 @@ public class WebConferencingService implements Startable {
     // XXX we need reference SpaceService after the container start only, otherwise the servr startup fails
     this.spaceService = ExoContainerContext.getCurrentContainer().getComponentInstanceOfType(SpaceService.class);
 
+    // User call events from other cluster nodes
+    clusterBus.addListener(clusterListener);
+
+    // Invalidate cached users on their changes
+    try {
+      socialIdentityManager.registerProfileListener(new UserProfileListener());
+      organization.addListenerPlugin(new UserStateListener());
+    } catch (Exception e) {
+      LOG.warn("Error registering user listeners, cached users will expire by time only", e);
+    }
+
     // For a case when calls was active and server stopped, then calls wasn't marked as Stopped and need
     // remove them.
     LOG.info("Web Conferencing service started.");
@@ -1168,7 +1785,12 @@ public class WebConferencingService implements Startable {
    */
   @Override
   public void stop() {
-    // nothing
+    clusterBus.removeListener(clusterListener);
+    userEvents.shutdown();
+    activeCalls.clear();
+    userCache.clear();
+    providerActive.clear();
+    descriptionsCache.clear();
   }
 
   /**
@@ -1283,22 +1905,72 @@ public class WebConferencingService implements Startable {
    * @param state the state
    */
   protected void notifyUserCallStateChanged(CallInfo call, String initiatorId, String state) {
+    UserCallEvent event = UserCallEvent.callState(call.getId(),
+                                                  call.getProviderType(),
+                                                  state,
+                                                  call.getOwner().getId(),
+                                                  call.getOwner().getType());
     for (UserInfo part : call.getParticipants()) {
       if (UserInfo.TYPE_NAME.equals(part.getType())) {
         // We notify to other part, and in case of deletion including to one who may caused the update
         // for a case if several user clients listening.
         if (initiatorId == null || !initiatorId.equals(part.getId()) || CallState.STOPPED.equals(state)) {
-          fireUserCallStateChanged(part.getId(),
-                                   call.getId(),
-                                   call.getProviderType(),
-                                   state,
-                                   call.getOwner().getId(),
-                                   call.getOwner().getType());
+          fireUserCallEvent(part.getId(), event);
         }
       }
     }
   }
 
+  // ******* Active calls registry ******
+
+  /**
+   * Gets a lock for a call with given ID. Locks are striped, thus different calls may share the same lock,
+   * but the same call always uses the same one. Locks are reentrant and, unlike monitors, they don't pin a
+   * carrier thread when held by a virtual thread during storage or Organization Service access.
+   *
+   * @param id the call id
+   * @return the lock
+   */
+  protected Lock callLock(String id) {
+    return callLocks[(id.hashCode() & 0x7fffffff) % callLocks.length];
+  }
+
+  /**
+   * Register a call read from the storage in active calls. Stopped calls will not be registered. If the
+   * call already registered, the registered instance will be returned.
+   *
+   * @param call the call
+   * @return the registered call or given one if it's not active
+   */
+  protected CallInfo registerCall(CallInfo call) {
+    if (CallState.STOPPED.equals(call.getState())) {
+      return call;
+    }
+    CallInfo existing = activeCalls.putIfAbsent(call.getId(), call);
+    return existing != null ? existing : call;
+  }
+
+  /**
+   * Replace a registered call by its changed copy. If the call was evicted or replaced meanwhile (e.g. by an
+   * event from other cluster node), the copy will not be registered and the call will be read from the
+   * storage next time.
+   *
+   * @param call the registered call
+   * @param changed the changed copy of the call
+   */
+  protected void replaceCall(CallInfo call, CallInfo changed) {
+    activeCalls.replace(call.getId(), call, changed);
+  }
+
+  /**
+   * Evict a call from active calls. Next request of this call will read it from the storage.
+   *
+   * @param id the call id
+   */
+  protected void evictCall(String id) {
+    activeCalls.remove(id);
+  }
+
   // ******* Call storage ******
 
   /**
@@ -1495,9 +2167,11 @@ public class WebConferencingService implements Startable {
                                              CallSettingsException {
     callStorage.create(createCallEntity(call));
     String callId = call.getId();
+    List<ParticipantEntity> parts = new ArrayList<>(call.getParticipants().size());
     for (UserInfo p : call.getParticipants()) {
-      participantsStorage.create(createParticipantEntity(callId, p));
+      parts.add(createParticipantEntity(callId, p));
     }
+    participantsStorage.persistAll(parts);
   }
 
   /**
@@ -1609,13 +2283,53 @@ public class WebConferencingService implements Startable {
     // Update call
     saveCall(call);
 
-    // Update participants
-    // TODO this could be done with a single SQL UPDATE, but need ensure that JPA will not fail after that to
-    // access the call due to presence in the session of participant entities with outdated state (like it was
-    // faced in addCall() when deleted outdated call before creating a new one)
+    // Update participants: read them all in a single query and change only those that actually changed,
+    // the changes will be flushed once on the transaction commit
+    String callId = call.getId();
+    Map<String, ParticipantEntity> parts = new HashMap<>();
+    for (ParticipantEntity pe : participantsStorage.findCallParts(callId)) {
+      parts.put(pe.getId(), pe);
+    }
+    for (UserInfo p : call.getParticipants()) {
+      ParticipantEntity part = parts.get(p.getId());
+      if (part != null) {
+        if (!Objects.equals(part.getState(), p.getState()) || !Objects.equals(part.getClientId(), p.getClientId())) {
+          part.setState(p.getState());
+          part.setClientId(p.getClientId());
+        }
+      } else {
+        throw new ParticipantNotFoundException("Call participant " + p.getId() + " not found for " + callId);
+      }
+    }
+  }
+
+  /**
+   * Mark the call started and all its participants leaved, except of those already joined in the call
+   * object, in a single transaction. Participants reset done by a single bulk update.
+   *
+   * @param call the call
+   * @throws IllegalArgumentException the illegal argument exception
+   * @throws IllegalStateException the illegal state exception
+   * @throws PersistenceException the persistence exception
+   * @throws CallNotFoundException if call not found in storage
+   * @throws CallSettingsException if call entry has wrong settings (room call title)
+   * @throws ParticipantNotFoundException if call participant not found in storage
+   */
+  @ExoTransactional
+  protected void txStartCall(CallInfo call) throws IllegalArgumentException,
+                                            IllegalStateException,
+                                            PersistenceException,
+                                            CallNotFoundException,
+                                            CallSettingsException,
+                                            ParticipantNotFoundException {
     String callId = call.getId();
+    participantsStorage.updateCallPartsState(callId, UserState.LEAVED);
+
+    saveCall(call);
     for (UserInfo p : call.getParticipants()) {
-      saveParticipant(callId, p);
+      if (!UserState.LEAVED.equals(p.getState())) {
+        saveParticipant(callId, p);
+      }
     }
   }
 
@@ -1632,7 +2346,13 @@ public class WebConferencingService implements Startable {
   protected boolean txDeleteCall(String id) throws IllegalArgumentException, IllegalStateException, PersistenceException {
     CallEntity entity = callStorage.find(id);
     if (entity != null) {
+      // Participants deleted by the database (cascade), but their entities may remain in the storage
+      // session, and a new call with the same ID will fail to create them with
+      // javax.persistence.EntityExistsException: a different object with the same identifier value was
+      // already associated with the session. Thus we detach them, other entities of the session not touched.
+      List<ParticipantEntity> parts = participantsStorage.findCallParts(id);
       callStorage.delete(entity);
+      participantsStorage.detachAll(parts);
       return true;
     } else {
       return false;
@@ -1664,10 +2384,14 @@ public class WebConferencingService implements Startable {
    * @throws StorageException if storage error happens
    */
   protected boolean deleteCall(String id) throws StorageException {
+    metrics.storageStarted();
     try {
       return txDeleteCall(id);
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error deleting call " + id, e);
+    } finally {
+      evictCall(id);
+      metrics.storageFinished();
     }
   }
 
@@ -1680,10 +2404,13 @@ public class WebConferencingService implements Startable {
    * 
    */
   protected int deleteAllUserCalls() throws StorageException {
+    metrics.storageStarted();
     try {
       return txDeleteAllUserCalls();
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error deleting all user calls", e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1700,10 +2427,36 @@ public class WebConferencingService implements Startable {
                                                           ParticipantNotFoundException,
                                                           CallSettingsException,
                                                           CallNotFoundException {
+    metrics.storageStarted();
     try {
       txUpdateCallAndParticipants(call);
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error updating call and participants: " + call.getId(), e);
+    } finally {
+      metrics.storageFinished();
+    }
+  }
+
+  /**
+   * Save started call with its participants reset to leaved state (except of already joined ones).
+   *
+   * @param call the call
+   * @throws StorageException if storage exception happen
+   * @throws ParticipantNotFoundException if call or its participants not found in storage
+   * @throws CallSettingsException if call entry has wrong settings (room call title)
+   * @throws CallNotFoundException if call not found in storage
+   */
+  protected void saveStartedCall(CallInfo call) throws StorageException,
+                                                ParticipantNotFoundException,
+                                                CallSettingsException,
+                                                CallNotFoundException {
+    metrics.storageStarted();
+    try {
+      txStartCall(call);
+    } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
+      throw new StorageException("Error saving started call: " + call.getId(), e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1716,10 +2469,13 @@ public class WebConferencingService implements Startable {
    * @throws StorageException if storage exception happen
    */
   protected void updateParticipant(String callId, UserInfo participant) throws ParticipantNotFoundException, StorageException {
+    metrics.storageStarted();
     try {
       txUpdateParticipant(callId, participant);
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error updating participant " + participant.getId() + " of call " + callId, e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1732,10 +2488,13 @@ public class WebConferencingService implements Startable {
    * @throws StorageException if storage exception happen
    */
   protected void updateCall(CallInfo call) throws CallNotFoundException, CallSettingsException, StorageException {
+    metrics.storageStarted();
     try {
       txUpdateCall(call);
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error updating call " + call.getId(), e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1754,11 +2513,14 @@ public class WebConferencingService implements Startable {
                                              StorageException,
                                              CallSettingsException,
                                              CallOwnerException {
+    metrics.storageStarted();
     try {
       CallEntity savedCall = callStorage.find(id);
       return readCallEntity(savedCall, true);
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error reading call " + id, e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1770,6 +2532,7 @@ public class WebConferencingService implements Startable {
    * @throws StorageException the storage exception
    */
   protected String findGroupCallId(String ownerId) throws StorageException {
+    metrics.storageStarted();
     // TODO it's not efficient read the whole entity when we need only an ID (or null)
     try {
       CallEntity savedCall = callStorage.findGroupCallByOwnerId(ownerId);
@@ -1779,6 +2542,8 @@ public class WebConferencingService implements Startable {
       return null;
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error reading owner group call ID by " + ownerId, e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1790,6 +2555,7 @@ public class WebConferencingService implements Startable {
    * @throws StorageException if persistence error happen
    */
   protected Collection<CallInfo> findUserGroupCalls(String userId) throws StorageException {
+    metrics.storageStarted();
     try {
       List<CallEntity> savedCalls = callStorage.findUserGroupCalls(userId);
       List<CallInfo> calls = new ArrayList<>();
@@ -1806,6 +2572,26 @@ public class WebConferencingService implements Startable {
       return Collections.unmodifiableCollection(calls);
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       throw new StorageException("Error reading user group calls by " + userId, e);
+    } finally {
+      metrics.storageFinished();
+    }
+  }
+
+  /**
+   * Find user group calls states (call ID and state only) in calls storage.
+   *
+   * @param userId the user id
+   * @return the list of states
+   * @throws StorageException if persistence error happen
+   */
+  protected List<CallState> findUserGroupCallStates(String userId) throws StorageException {
+    metrics.storageStarted();
+    try {
+      return callStorage.findUserGroupCallStates(userId);
+    } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
+      throw new StorageException("Error reading user group calls states by " + userId, e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1819,6 +2605,7 @@ public class WebConferencingService implements Startable {
    * @throws CallSettingsException the call settings wrong (chat room title)
    */
   protected void createCall(CallInfo call) throws StorageException, CallConflictException, CallSettingsException {
+    metrics.storageStarted();
     try {
       // Persist the call with all its participants
       txCreateCall(call);
@@ -1868,6 +2655,8 @@ public class WebConferencingService implements Startable {
         LOG.error("Error creating call: " + call.getId(), pe);
         throw new StorageException("Error creating call", pe);
       }
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -1882,6 +2671,7 @@ public class WebConferencingService implements Startable {
    * @throws StorageException if storage exception happen
    */
   protected void invalidateCall(String id, boolean isGroup) throws CallConflictException, StorageException {
+    metrics.storageStarted();
     try {
       CallEntity existingCallEntity = callStorage.find(id);
       if (existingCallEntity != null) {
@@ -1923,6 +2713,8 @@ public class WebConferencingService implements Startable {
       }
     } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
       LOG.warn("Error reading call by ID: " + id, e);
+    } finally {
+      metrics.storageFinished();
     }
   }
 
@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.exoplatform.container.xml.InitParams;
+import org.exoplatform.container.xml.ValueParam;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.picocontainer.Startable;
+
+/**
+ * Base of cluster event buses. Published events go to a bounded queue, a single sender thread takes them
+ * in batches of up to {@value #BATCH_SIZE} events, waiting {@value #BATCH_DELAY} milliseconds for more
+ * events after the first one. A newer call state of the same user call supersedes an older one in a batch.
+ * Received events are deduplicated by their origin node and sequence number, thus an event delivered twice
+ * (e.g. resent after reconnection) will reach the listeners once. A batch failed to send is dropped here,
+ * implementations resending it (see {@link TcpEventBus}) should not throw an error for it, when idle the
+ * sender lets them retry.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: AbstractClusterEventBus.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public abstract class AbstractClusterEventBus implements ClusterEventBus, Startable {
+
+  /** The Constant LOG. */
+  protected static final Log LOG             = ExoLogger.getLogger(AbstractClusterEventBus.class);
+
+  /** The Constant NODE_NAME_PARAM. */
+  public static final String NODE_NAME_PARAM = "node-name";
+
+  /** The Constant BATCH_SIZE. */
+  public static final int    BATCH_SIZE      = 100;
+
+  /** The Constant BATCH_DELAY, in milliseconds. */
+  public static final int    BATCH_DELAY     = 20;
+
+  /** The Constant QUEUE_CAPACITY. */
+  public static final int    QUEUE_CAPACITY  = 10000;
+
+  /** The Constant WINDOW_SIZE, number of latest sequence numbers remembered per node for deduplication. */
+  protected static final int WINDOW_SIZE     = 64;
+
+  /**
+   * Window of received sequence numbers of a node: the highest number and a bit mask of
+   * {@value AbstractClusterEventBus#WINDOW_SIZE} numbers below it.
+   */
+  static class ReceiveWindow {
+
+    /** The highest received sequence number. */
+    long highest;
+
+    /** The received numbers below the highest (bit N set for highest - N - 1). */
+    long mask;
+
+    /**
+     * Accept a sequence number if it wasn't received before.
+     *
+     * @param sequence the sequence
+     * @return true, if accepted, false for a duplicate or too old number
+     */
+    synchronized boolean accept(long sequence) {
+      if (sequence > highest) {
+        long shift = sequence - highest;
+        if (shift > WINDOW_SIZE) {
+          mask = 0;
+        } else if (shift == WINDOW_SIZE) {
+          mask = 1L << (WINDOW_SIZE - 1);
+        } else {
+          mask = (mask << shift) | (1L << (shift - 1));
+        }
+        highest = sequence;
+        return true;
+      }
+      long diff = highest - sequence;
+      if (diff == 0 || diff > WINDOW_SIZE) {
+        return false;
+      }
+      long bit = 1L << (diff - 1);
+      if ((mask & bit) != 0) {
+        return false;
+      }
+      mask |= bit;
+      return true;
+    }
+  }
+
+  /** This node ID, unique for each start of the node. */
+  protected final String                      nodeId;
+
+  /** The listeners. */
+  protected final List<Listener>              listeners  = new CopyOnWriteArrayList<>();
+
+  /** The outgoing events. */
+  protected final BlockingQueue<ClusterEvent> outgoing   = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+  /** The receive windows by node. */
+  protected final Map<String, ReceiveWindow>  windows    = new ConcurrentHashMap<>();
+
+  /** The sequence. */
+  protected final AtomicLong                  sequence   = new AtomicLong();
+
+  /** The sent events count. */
+  protected final AtomicLong                  sent       = new AtomicLong();
+
+  /** The received events count. */
+  protected final AtomicLong                  received   = new AtomicLong();
+
+  /** The duplicate events count. */
+  protected final AtomicLong                  duplicates = new AtomicLong();
+
+  /** The dropped events count (queue was full or a peer not available for long). */
+  protected final AtomicLong                  dropped    = new AtomicLong();
+
+  /** The sender thread. */
+  protected Thread                            sender;
+
+  /** The running flag. */
+  protected volatile boolean                  running;
+
+  /**
+   * Instantiates a new cluster event bus.
+   *
+   * @param params the params, can be <code>null</code>
+   */
+  protected AbstractClusterEventBus(InitParams params) {
+    String nodeName = valueParam(params, NODE_NAME_PARAM, null);
+    if (nodeName == null) {
+      nodeName = UUID.randomUUID().toString();
+    }
+    // Node start time makes the ID unique after a restart, when its sequence starts again
+    this.nodeId = nodeName + "-" + Long.toString(System.currentTimeMillis(), 36);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void publish(ClusterEvent event) {
+    event.setOrigin(nodeId, sequence.incrementAndGet());
+    if (!outgoing.offer(event)) {
+      long count = dropped.incrementAndGet();
+      if (count % 1000 == 1) {
+        LOG.warn("Cluster events queue is full, dropped " + count + " events");
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() {
+    running = true;
+    sender = new Thread(this::sendEvents, "webconferencing-cluster-sender");
+    sender.setDaemon(true);
+    sender.start();
+    LOG.info("Cluster event bus started on node " + nodeId);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stop() {
+    running = false;
+    if (sender != null) {
+      sender.interrupt();
+    }
+  }
+
+  /**
+   * Gets the sent events count.
+   *
+   * @return the sent
+   */
+  public long getSent() {
+    return sent.get();
+  }
+
+  /**
+   * Gets the received events count (not including duplicates).
+   *
+   * @return the received
+   */
+  public long getReceived() {
+    return received.get();
+  }
+
+  /**
+   * Gets the duplicate events count.
+   *
+   * @return the duplicates
+   */
+  public long getDuplicates() {
+    return duplicates.get();
+  }
+
+  /**
+   * Gets the dropped events count.
+   *
+   * @return the dropped
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Send a batch of events to other nodes.
+   *
+   * @param batch the batch
+   * @throws Exception if sending failed
+   */
+  protected abstract void send(List<ClusterEvent> batch) throws Exception;
+
+  /**
+   * Called by the sender when there are no events to send during a second. Implementations can retry
+   * events failed before. By default it does nothing.
+   */
+  protected void idle() {
+    // nothing by default
+  }
+
+  /**
+   * Deliver events received from other nodes to the listeners. Own and already received events will be
+   * skipped.
+   *
+   * @param events the events
+   */
+  protected void receive(Collection<ClusterEvent> events) {
+    for (ClusterEvent event : events) {
+      if (nodeId.equals(event.getNodeId())) {
+        continue;
+      }
+      if (!windows.computeIfAbsent(event.getNodeId(), k -> new ReceiveWindow()).accept(event.getSequence())) {
+        duplicates.incrementAndGet();
+        continue;
+      }
+      received.incrementAndGet();
+      for (Listener listener : listeners) {
+        try {
+          listener.onEvent(event);
+        } catch (Throwable e) {
+          LOG.error("Error handling cluster event " + event, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sender loop: take events in batches and send them.
+   */
+  protected void sendEvents() {
+    Map<Object, ClusterEvent> batch = new LinkedHashMap<>();
+    List<ClusterEvent> taken = new ArrayList<>(BATCH_SIZE);
+    while (running) {
+      try {
+        ClusterEvent first = outgoing.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          idle();
+          continue;
+        }
+        add(batch, first);
+        long deadline = System.currentTimeMillis() + BATCH_DELAY;
+        long left;
+        while (batch.size() < BATCH_SIZE && (left = deadline - System.currentTimeMillis()) > 0) {
+          ClusterEvent next = outgoing.poll(left, TimeUnit.MILLISECONDS);
+          if (next == null) {
+            break;
+          }
+          add(batch, next);
+          // Take what already queued without waiting
+          outgoing.drainTo(taken, BATCH_SIZE - batch.size());
+          for (ClusterEvent e : taken) {
+            add(batch, e);
+          }
+          taken.clear();
+        }
+        List<ClusterEvent> events = new ArrayList<>(batch.values());
+        batch.clear();
+        try {
+          send(events);
+          sent.addAndGet(events.size());
+        } catch (Exception e) {
+          LOG.warn("Error sending " + events.size() + " cluster events: " + e.getMessage());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+
+  /**
+   * Read a value parameter.
+   *
+   * @param params the params, can be <code>null</code>
+   * @param name the name
+   * @param defaultValue the default value
+   * @return the value or default one if parameter not set
+   */
+  protected static String valueParam(InitParams params, String name, String defaultValue) {
+    if (params != null) {
+      ValueParam param = params.getValueParam(name);
+      if (param != null && param.getValue() != null && param.getValue().trim().length() > 0) {
+        return param.getValue().trim();
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Add event to a batch, it will supersede an older event with the same key.
+   *
+   * @param batch the batch
+   * @param event the event
+   */
+  private void add(Map<Object, ClusterEvent> batch, ClusterEvent event) {
+    Object key = event.supersedeKey();
+    if (key != null) {
+      batch.remove(key);
+    } else {
+      key = new Object();
+    }
+    batch.put(key, event);
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cluster;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Event replicated between cluster nodes: user call events (call state, part joined and leaved), call
+ * channel ownership (a node got or lost clients of a call channel), saved provider configurations,
+ * invalidated user states and heartbeats of nodes. Node ID and sequence number will be set by
+ * {@link ClusterEventBus} on publishing.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: ClusterEvent.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class ClusterEvent {
+
+  /** The Constant CALL_STATE. */
+  public static final byte CALL_STATE             = 1;
+
+  /** The Constant PART_JOINED. */
+  public static final byte PART_JOINED            = 2;
+
+  /** The Constant PART_LEAVED. */
+  public static final byte PART_LEAVED            = 3;
+
+  /** The Constant CHANNEL_ADDED, a node has clients in the call channel. */
+  public static final byte CHANNEL_ADDED          = 4;
+
+  /** The Constant CHANNEL_REMOVED, a node has no more clients in the call channel. */
+  public static final byte CHANNEL_REMOVED        = 5;
+
+  /** The Constant PROVIDER_SAVED, a provider configuration was saved. */
+  public static final byte PROVIDER_SAVED         = 6;
+
+  /** The Constant NODE_HEARTBEAT, a node is alive. */
+  public static final byte NODE_HEARTBEAT         = 7;
+
+  /** The Constant USER_STATE_INVALIDATED, memberships or identity of an user (or of all users) changed. */
+  public static final byte USER_STATE_INVALIDATED = 8;
+
+  /** The type. */
+  protected final byte     type;
+
+  /** The call id. */
+  protected final String   callId;
+
+  /** The user id, can be <code>null</code> for channel events and user states of all users. */
+  protected final String   userId;
+
+  /** The provider type. */
+  protected final String   providerType;
+
+  /** The call state or participant id (depends on event type). */
+  protected final String   subject;
+
+  /** The owner id. */
+  protected final String   ownerId;
+
+  /** The owner type. */
+  protected final String   ownerType;
+
+  /** The origin node id. */
+  protected String         nodeId;
+
+  /** The sequence number in the origin node. */
+  protected long           sequence;
+
+  /**
+   * Instantiates a new cluster event.
+   *
+   * @param type the type
+   * @param callId the call id
+   * @param userId the user id
+   * @param providerType the provider type
+   * @param subject the call state or participant id (depends on event type)
+   * @param ownerId the owner id
+   * @param ownerType the owner type
+   */
+  public ClusterEvent(byte type,
+                      String callId,
+                      String userId,
+                      String providerType,
+                      String subject,
+                      String ownerId,
+                      String ownerType) {
+    this.type = type;
+    this.callId = callId;
+    this.userId = userId;
+    this.providerType = providerType;
+    this.subject = subject;
+    this.ownerId = ownerId;
+    this.ownerType = ownerType;
+  }
+
+  /**
+   * Call channel event.
+   *
+   * @param type the type, {@link #CHANNEL_ADDED} or {@link #CHANNEL_REMOVED}
+   * @param callId the call id
+   * @return the cluster event
+   */
+  public static ClusterEvent channel(byte type, String callId) {
+    return new ClusterEvent(type, callId, null, null, null, null, null);
+  }
+
+  /**
+   * Provider configuration saved event.
+   *
+   * @param providerType the provider type
+   * @return the cluster event
+   */
+  public static ClusterEvent providerSaved(String providerType) {
+    return new ClusterEvent(PROVIDER_SAVED, null, null, providerType, null, null, null);
+  }
+
+  /**
+   * User state invalidated event.
+   *
+   * @param userId the user id, <code>null</code> for all users
+   * @return the cluster event
+   */
+  public static ClusterEvent userStateInvalidated(String userId) {
+    return new ClusterEvent(USER_STATE_INVALIDATED, null, userId, null, null, null, null);
+  }
+
+  /**
+   * Node heartbeat event.
+   *
+   * @return the cluster event
+   */
+  public static ClusterEvent heartbeat() {
+    return new ClusterEvent(NODE_HEARTBEAT, null, null, null, null, null, null);
+  }
+
+  /**
+   * Read event from the input.
+   *
+   * @param in the input
+   * @return the cluster event
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static ClusterEvent readFrom(DataInput in) throws IOException {
+    byte type = in.readByte();
+    String nodeId = in.readUTF();
+    long sequence = in.readLong();
+    ClusterEvent event = new ClusterEvent(type,
+                                          readString(in),
+                                          readString(in),
+                                          readString(in),
+                                          readString(in),
+                                          readString(in),
+                                          readString(in));
+    event.setOrigin(nodeId, sequence);
+    return event;
+  }
+
+  /**
+   * Write the event to the output.
+   *
+   * @param out the output
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeByte(type);
+    out.writeUTF(nodeId);
+    out.writeLong(sequence);
+    writeString(out, callId);
+    writeString(out, userId);
+    writeString(out, providerType);
+    writeString(out, subject);
+    writeString(out, ownerId);
+    writeString(out, ownerType);
+  }
+
+  /**
+   * Gets the type.
+   *
+   * @return the type
+   */
+  public byte getType() {
+    return type;
+  }
+
+  /**
+   * Gets the call id.
+   *
+   * @return the call id
+   */
+  public String getCallId() {
+    return callId;
+  }
+
+  /**
+   * Gets the user id.
+   *
+   * @return the user id
+   */
+  public String getUserId() {
+    return userId;
+  }
+
+  /**
+   * Gets the provider type.
+   *
+   * @return the provider type
+   */
+  public String getProviderType() {
+    return providerType;
+  }
+
+  /**
+   * Gets the call state (for {@link #CALL_STATE} event).
+   *
+   * @return the call state
+   */
+  public String getCallState() {
+    return subject;
+  }
+
+  /**
+   * Gets the participant id (for {@link #PART_JOINED} and {@link #PART_LEAVED} events).
+   *
+   * @return the part id
+   */
+  public String getPartId() {
+    return subject;
+  }
+
+  /**
+   * Gets the owner id.
+   *
+   * @return the owner id
+   */
+  public String getOwnerId() {
+    return ownerId;
+  }
+
+  /**
+   * Gets the owner type.
+   *
+   * @return the owner type
+   */
+  public String getOwnerType() {
+    return ownerType;
+  }
+
+  /**
+   * Gets the origin node id.
+   *
+   * @return the node id
+   */
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Gets the sequence number in the origin node.
+   *
+   * @return the sequence
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Key of events that supersede each other (a newer call state of the same user call), or
+   * <code>null</code> if the event cannot be superseded.
+   *
+   * @return the key or <code>null</code>
+   */
+  String supersedeKey() {
+    return type == CALL_STATE ? userId + '@' + callId : null;
+  }
+
+  /**
+   * Sets the origin node and sequence number.
+   *
+   * @param nodeId the node id
+   * @param sequence the sequence
+   */
+  void setOrigin(String nodeId, long sequence) {
+    this.nodeId = nodeId;
+    this.sequence = sequence;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "[" + type + "] " + callId + (userId != null ? " to " + userId : "") + " from " + nodeId + "#" + sequence;
+  }
+
+  /**
+   * Write nullable string.
+   *
+   * @param out the out
+   * @param str the str
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static void writeString(DataOutput out, String str) throws IOException {
+    out.writeBoolean(str != null);
+    if (str != null) {
+      out.writeUTF(str);
+    }
+  }
+
+  /**
+   * Read nullable string.
+   *
+   * @param in the in
+   * @return the string
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static String readString(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
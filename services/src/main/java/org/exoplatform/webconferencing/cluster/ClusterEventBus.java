@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cluster;
+
+/**
+ * Bus of events between cluster nodes. Events published on a node will be delivered to listeners of other
+ * nodes, but not to listeners of the origin node. Implementation is a container component configured by
+ * <code>org.exoplatform.webconferencing.cluster.ClusterEventBus</code> key.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: ClusterEventBus.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public interface ClusterEventBus {
+
+  /**
+   * Listener of events from other nodes.
+   */
+  @FunctionalInterface
+  interface Listener {
+
+    /**
+     * On event from other node.
+     *
+     * @param event the event
+     */
+    void onEvent(ClusterEvent event);
+  }
+
+  /**
+   * Gets this node ID.
+   *
+   * @return the node id
+   */
+  String getNodeId();
+
+  /**
+   * Publish an event to other nodes. Events can be sent in batches, thus this method doesn't wait for the
+   * delivery.
+   *
+   * @param event the event
+   */
+  void publish(ClusterEvent event);
+
+  /**
+   * Adds the listener of events from other nodes.
+   *
+   * @param listener the listener
+   */
+  void addListener(Listener listener);
+
+  /**
+   * Removes the listener.
+   *
+   * @param listener the listener
+   */
+  void removeListener(Listener listener);
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.exoplatform.container.xml.InitParams;
+
+/**
+ * Default cluster event bus: it delivers events to other buses of the same group in this JVM. For a single
+ * node deployment it does nothing. Several buses in a JVM (with different node names) act as a cluster on a
+ * single machine, it is useful for development.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: LoopbackEventBus.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class LoopbackEventBus extends AbstractClusterEventBus {
+
+  /** The Constant GROUP_PARAM. */
+  public static final String                                GROUP_PARAM   = "group";
+
+  /** The Constant DEFAULT_GROUP. */
+  public static final String                                DEFAULT_GROUP = "default";
+
+  /** The buses of groups in this JVM. */
+  protected static final Map<String, Set<LoopbackEventBus>> GROUPS        = new ConcurrentHashMap<>();
+
+  /** The group members, including this bus. */
+  protected final Set<LoopbackEventBus>                     members;
+
+  /**
+   * Instantiates a new loopback event bus.
+   *
+   * @param params the params, can be <code>null</code>
+   */
+  public LoopbackEventBus(InitParams params) {
+    super(params);
+    this.members = GROUPS.computeIfAbsent(valueParam(params, GROUP_PARAM, DEFAULT_GROUP),
+                                          k -> ConcurrentHashMap.newKeySet());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void publish(ClusterEvent event) {
+    if (members.size() > 1) {
+      super.publish(event);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() {
+    members.add(this);
+    super.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stop() {
+    members.remove(this);
+    super.stop();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void send(List<ClusterEvent> batch) {
+    for (LoopbackEventBus member : members) {
+      if (member != this) {
+        member.receive(batch);
+      }
+    }
+  }
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.exoplatform.container.xml.InitParams;
+
+/**
+ * Cluster event bus over TCP. Each node listens on a port and connects to configured peers (other nodes),
+ * a batch of events is written once and sent to every peer as a frame. Frames not sent to a peer are kept
+ * for it, up to {@value #PEER_PENDING_FRAMES} latest frames, and sent in order after reconnecting
+ * (receivers skip duplicates). Failed peer connection will be reopened on next batch or when idle, but not
+ * more often than each {@value #RECONNECT_DELAY} milliseconds.<br>
+ * By default the bus listens on the loopback interface only, several nodes can run on localhost with
+ * different ports. To listen on other interface a shared secret should be configured for all nodes: each
+ * frame will be signed with HMAC-SHA256 of the secret, frames with a wrong signature will be rejected.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: TcpEventBus.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class TcpEventBus extends AbstractClusterEventBus {
+
+  /** The Constant PORT_PARAM. */
+  public static final String    PORT_PARAM          = "port";
+
+  /** The Constant BIND_ADDRESS_PARAM. */
+  public static final String    BIND_ADDRESS_PARAM  = "bind-address";
+
+  /** The Constant PEERS_PARAM, comma separated list of <code>host:port</code>. */
+  public static final String    PEERS_PARAM         = "peers";
+
+  /** The Constant SECRET_PARAM, shared secret of the cluster nodes to sign frames. */
+  public static final String    SECRET_PARAM        = "secret";
+
+  /** The Constant DEFAULT_PORT. */
+  public static final int       DEFAULT_PORT        = 7801;
+
+  /** The Constant RECONNECT_DELAY, in milliseconds. */
+  public static final int       RECONNECT_DELAY     = 5000;
+
+  /** The Constant CONNECT_TIMEOUT, in milliseconds. */
+  public static final int       CONNECT_TIMEOUT     = 2000;
+
+  /** The Constant PEER_PENDING_FRAMES, max number of frames kept for a peer while it's not available. */
+  public static final int       PEER_PENDING_FRAMES = 100;
+
+  /** The Constant FRAME_MAGIC. */
+  protected static final int    FRAME_MAGIC         = 0x57424345;
+
+  /** The Constant FRAME_MAX_SIZE. */
+  protected static final int    FRAME_MAX_SIZE      = 16 * 1024 * 1024;
+
+  /** The Constant MAC_ALGORITHM. */
+  protected static final String MAC_ALGORITHM       = "HmacSHA256";
+
+  /** The Constant MAC_SIZE. */
+  protected static final int    MAC_SIZE            = 32;
+
+  /**
+   * Frame of events to send.
+   */
+  static class Frame {
+
+    /** The data. */
+    final byte[] data;
+
+    /** The events count. */
+    final int    events;
+
+    /**
+     * Instantiates a new frame.
+     *
+     * @param data the data
+     * @param events the events count
+     */
+    Frame(byte[] data, int events) {
+      this.data = data;
+      this.events = events;
+    }
+  }
+
+  /**
+   * Connection to a peer node, used by the sender thread only.
+   */
+  class Peer {
+
+    /** The address. */
+    final InetSocketAddress address;
+
+    /** The socket. */
+    Socket                  socket;
+
+    /** The output. */
+    DataOutputStream        out;
+
+    /** The last connect attempt time. */
+    long                    lastAttempt;
+
+    /** The frames not yet sent, oldest first. */
+    final Deque<Frame>      pending = new ArrayDeque<>();
+
+    /**
+     * Instantiates a new peer.
+     *
+     * @param address the address
+     */
+    Peer(InetSocketAddress address) {
+      this.address = address;
+    }
+
+    /**
+     * Send a frame to the peer, connect if required.
+     *
+     * @param frame the frame
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void send(byte[] frame) throws IOException {
+      boolean reconnected = false;
+      if (out == null) {
+        connect();
+        reconnected = true;
+      }
+      try {
+        out.write(frame);
+        out.flush();
+      } catch (IOException e) {
+        close();
+        if (reconnected) {
+          throw e;
+        }
+        // The connection could be closed by the peer restart, try a new one once
+        connect();
+        out.write(frame);
+        out.flush();
+      }
+    }
+
+    /**
+     * Send pending frames in order, a frame is removed after it's sent. Sending stops on first failure.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void sendPending() throws IOException {
+      Frame frame;
+      while ((frame = pending.peek()) != null) {
+        send(frame.data);
+        pending.poll();
+      }
+    }
+
+    /**
+     * Keep a frame to send, the oldest frame will be dropped if there are already
+     * {@value TcpEventBus#PEER_PENDING_FRAMES} frames.
+     *
+     * @param frame the frame
+     */
+    void add(Frame frame) {
+      if (pending.size() >= PEER_PENDING_FRAMES) {
+        Frame oldest = pending.poll();
+        long count = dropped.addAndGet(oldest.events);
+        LOG.warn("Cluster peer " + address + " not available, dropped " + oldest.events + " events (" + count
+            + " in total)");
+      }
+      pending.add(frame);
+    }
+
+    /**
+     * Connect to the peer.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void connect() throws IOException {
+      long now = System.currentTimeMillis();
+      if (now - lastAttempt < RECONNECT_DELAY) {
+        throw new IOException("Peer " + address + " not available");
+      }
+      lastAttempt = now;
+      Socket s = new Socket();
+      try {
+        s.setTcpNoDelay(true);
+        s.connect(address, CONNECT_TIMEOUT);
+        out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        socket = s;
+      } catch (IOException e) {
+        s.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Close the connection.
+     */
+    void close() {
+      out = null;
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          // ignore
+        }
+        socket = null;
+      }
+    }
+  }
+
+  /** The port. */
+  protected final int           port;
+
+  /** The bind address, can be <code>null</code> for the loopback interface. */
+  protected final String        bindAddress;
+
+  /** The secret key to sign frames, can be <code>null</code>. */
+  protected final SecretKeySpec secretKey;
+
+  /** The peers. */
+  protected final List<Peer>    peers    = new ArrayList<>();
+
+  /** The server socket. */
+  protected ServerSocket        serverSocket;
+
+  /** The accepted connections. */
+  protected final List<Socket>  accepted = new ArrayList<>();
+
+  /**
+   * Instantiates a new TCP event bus.
+   *
+   * @param params the params
+   */
+  public TcpEventBus(InitParams params) {
+    super(params);
+    String portValue = valueParam(params, PORT_PARAM, null);
+    int port = DEFAULT_PORT;
+    if (portValue != null) {
+      try {
+        port = Integer.parseInt(portValue);
+      } catch (NumberFormatException e) {
+        LOG.warn("Wrong cluster bus port: " + portValue + ", will use " + DEFAULT_PORT);
+      }
+    }
+    this.port = port;
+    this.bindAddress = valueParam(params, BIND_ADDRESS_PARAM, null);
+    String secret = valueParam(params, SECRET_PARAM, null);
+    this.secretKey = secret != null ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM) : null;
+    String peersValue = valueParam(params, PEERS_PARAM, "");
+    for (String peer : peersValue.split(",")) {
+      peer = peer.trim();
+      if (peer.length() > 0) {
+        int colon = peer.lastIndexOf(':');
+        try {
+          if (colon > 0) {
+            peers.add(new Peer(new InetSocketAddress(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1)))));
+          } else {
+            peers.add(new Peer(new InetSocketAddress(peer, DEFAULT_PORT)));
+          }
+        } catch (IllegalArgumentException e) {
+          LOG.warn("Wrong cluster bus peer: " + peer, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() {
+    try {
+      InetAddress address = bindAddress != null ? InetAddress.getByName(bindAddress) : InetAddress.getLoopbackAddress();
+      if (secretKey == null && !address.isLoopbackAddress()) {
+        throw new IOException("Cluster bus " + SECRET_PARAM + " required to listen on " + address);
+      }
+      serverSocket = new ServerSocket();
+      serverSocket.setReuseAddress(true);
+      serverSocket.bind(new InetSocketAddress(address, port));
+      Thread acceptor = new Thread(this::acceptConnections, "webconferencing-cluster-acceptor");
+      acceptor.setDaemon(true);
+      acceptor.start();
+      LOG.info("Cluster event bus listening on " + address + ":" + port + ", peers: " + peers.size()
+          + (secretKey != null ? ", frames signed" : ""));
+    } catch (IOException e) {
+      LOG.error("Error starting cluster bus listener on port " + port + ", events from other nodes will not be received", e);
+    }
+    super.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stop() {
+    super.stop();
+    if (serverSocket != null) {
+      try {
+        serverSocket.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+    synchronized (accepted) {
+      for (Socket s : accepted) {
+        try {
+          s.close();
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+      accepted.clear();
+    }
+  }
+
+  /**
+   * Gets the port.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void send(List<ClusterEvent> batch) throws IOException {
+    if (peers.isEmpty()) {
+      return;
+    }
+    Frame frame = new Frame(frame(batch), batch.size());
+    for (Peer peer : peers) {
+      peer.add(frame);
+      sendPending(peer);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void idle() {
+    for (Peer peer : peers) {
+      if (!peer.pending.isEmpty()) {
+        sendPending(peer);
+      }
+    }
+  }
+
+  /**
+   * Send pending frames of a peer, those not sent will be kept for next attempt.
+   *
+   * @param peer the peer
+   */
+  protected void sendPending(Peer peer) {
+    try {
+      peer.sendPending();
+    } catch (IOException e) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Error sending cluster events to " + peer.address + ", pending frames: " + peer.pending.size(), e);
+      }
+    }
+  }
+
+  /**
+   * Write a batch of events to a frame: magic number, payload size, payload and its signature if the
+   * secret configured.
+   *
+   * @param batch the batch
+   * @return the frame bytes
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected byte[] frame(List<ClusterEvent> batch) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 128);
+    DataOutputStream frame = new DataOutputStream(bytes);
+    frame.writeInt(FRAME_MAGIC);
+    frame.writeInt(0); // size, set below
+    frame.writeInt(batch.size());
+    for (ClusterEvent event : batch) {
+      event.writeTo(frame);
+    }
+    frame.flush();
+    byte[] data = bytes.toByteArray();
+    int size = data.length - 8;
+    data[4] = (byte) (size >>> 24);
+    data[5] = (byte) (size >>> 16);
+    data[6] = (byte) (size >>> 8);
+    data[7] = (byte) size;
+    if (secretKey != null) {
+      byte[] signed = Arrays.copyOf(data, data.length + MAC_SIZE);
+      Mac mac = mac();
+      mac.update(data);
+      try {
+        mac.doFinal(signed, data.length);
+      } catch (ShortBufferException e) {
+        throw new IOException("Error signing cluster bus frame", e);
+      }
+      return signed;
+    }
+    return data;
+  }
+
+  /**
+   * Create a MAC initialized with the secret key.
+   *
+   * @return the MAC
+   * @throws IOException if MAC cannot be initialized
+   */
+  protected Mac mac() throws IOException {
+    try {
+      Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(secretKey);
+      return mac;
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IOException("Error initializing cluster bus frames signature", e);
+    }
+  }
+
+  /**
+   * Accept connections from other nodes.
+   */
+  protected void acceptConnections() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        synchronized (accepted) {
+          accepted.add(socket);
+        }
+        Thread reader = new Thread(() -> readEvents(socket), "webconferencing-cluster-reader-" + socket.getRemoteSocketAddress());
+        reader.setDaemon(true);
+        reader.start();
+      } catch (SocketException e) {
+        // server socket closed
+        break;
+      } catch (IOException e) {
+        LOG.warn("Error accepting cluster bus connection", e);
+      }
+    }
+  }
+
+  /**
+   * Read event frames from a connection.
+   *
+   * @param socket the socket
+   */
+  protected void readEvents(Socket socket) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+      Mac mac = secretKey != null ? mac() : null;
+      byte[] header = new byte[8];
+      byte[] signature = new byte[MAC_SIZE];
+      while (true) {
+        in.readFully(header);
+        ByteBuffer headerBuf = ByteBuffer.wrap(header);
+        int magic = headerBuf.getInt();
+        int size = headerBuf.getInt();
+        if (magic != FRAME_MAGIC || size < 4 || size > FRAME_MAX_SIZE) {
+          LOG.warn("Wrong cluster bus frame from " + socket.getRemoteSocketAddress() + ", closing connection");
+          break;
+        }
+        byte[] payload = new byte[size];
+        in.readFully(payload);
+        if (mac != null) {
+          in.readFully(signature);
+          mac.update(header);
+          mac.update(payload);
+          if (!MessageDigest.isEqual(mac.doFinal(), signature)) {
+            LOG.warn("Wrong cluster bus frame signature from " + socket.getRemoteSocketAddress() + ", closing connection");
+            break;
+          }
+        }
+        DataInputStream frame = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = frame.readInt();
+        List<ClusterEvent> events = new ArrayList<>(Math.min(count, BATCH_SIZE));
+        for (int i = 0; i < count; i++) {
+          events.add(ClusterEvent.readFrom(frame));
+        }
+        receive(events);
+      }
+    } catch (EOFException | SocketException e) {
+      // connection closed
+    } catch (IOException e) {
+      LOG.warn("Error reading cluster events from " + socket.getRemoteSocketAddress(), e);
+    } finally {
+      synchronized (accepted) {
+        accepted.remove(socket);
+      }
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+}
@@ -21,20 +21,10 @@ package org.exoplatform.webconferencing.cometd;
 import static org.exoplatform.webconferencing.Utils.asJSON;
 import static org.exoplatform.webconferencing.WebConferencingService.isValidArg;
 import static org.exoplatform.webconferencing.WebConferencingService.isValidId;
-import static org.exoplatform.webconferencing.WebConferencingService.isValidText;
-import static org.exoplatform.webconferencing.support.CallLog.DEBUG_LEVEL;
-import static org.exoplatform.webconferencing.support.CallLog.ERROR_LEVEL;
-import static org.exoplatform.webconferencing.support.CallLog.INFO_LEVEL;
-import static org.exoplatform.webconferencing.support.CallLog.TRACE_LEVEL;
-import static org.exoplatform.webconferencing.support.CallLog.WARN_LEVEL;
-import static org.exoplatform.webconferencing.support.CallLog.validate;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,10 +32,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -72,10 +65,21 @@ import org.eclipse.jetty.util.component.LifeCycle;
 import org.exoplatform.commons.utils.PropertyManager;
 import org.exoplatform.container.ExoContainer;
 import org.exoplatform.container.ExoContainerContext;
+import org.exoplatform.container.PortalContainer;
 import org.exoplatform.container.component.RequestLifeCycle;
+import org.exoplatform.management.annotations.Managed;
+import org.exoplatform.management.annotations.ManagedDescription;
+import org.exoplatform.management.jmx.annotations.NameTemplate;
+import org.exoplatform.management.jmx.annotations.Property;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
+import org.exoplatform.services.organization.Group;
+import org.exoplatform.services.organization.GroupEventListener;
+import org.exoplatform.services.organization.Membership;
+import org.exoplatform.services.organization.MembershipEventListener;
 import org.exoplatform.services.organization.OrganizationService;
+import org.exoplatform.services.organization.User;
+import org.exoplatform.services.organization.UserEventListener;
 import org.exoplatform.services.security.Authenticator;
 import org.exoplatform.services.security.ConversationState;
 import org.exoplatform.services.security.Identity;
@@ -85,13 +89,18 @@ import org.exoplatform.webconferencing.CallInfo;
 import org.exoplatform.webconferencing.CallInfoException;
 import org.exoplatform.webconferencing.CallNotFoundException;
 import org.exoplatform.webconferencing.CallState;
+import org.exoplatform.webconferencing.UserCallEvent;
 import org.exoplatform.webconferencing.UserCallListener;
 import org.exoplatform.webconferencing.UserState;
 import org.exoplatform.webconferencing.WebConferencingService;
 import org.exoplatform.webconferencing.client.ErrorInfo;
+import org.exoplatform.webconferencing.cluster.ClusterEvent;
+import org.exoplatform.webconferencing.cluster.ClusterEventBus;
 import org.exoplatform.webconferencing.cometd.CometdWebConferencingService.CallService.CallChannelContext.CallClient;
-import org.exoplatform.webconferencing.support.CallLog;
 import org.exoplatform.webconferencing.support.CallLogService;
+import org.exoplatform.webconferencing.support.ExpiringCache;
+import org.exoplatform.webconferencing.support.LatencyHistogram;
+import org.exoplatform.webconferencing.support.LogRecord;
 import org.mortbay.cometd.continuation.EXoContinuationBayeux;
 import org.picocontainer.Startable;
 
@@ -101,6 +110,9 @@ import org.picocontainer.Startable;
  * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
  * @version $Id: CometdWebConferencingService.java 00000 Aug 17, 2017 pnedonosko $
  */
+@Managed
+@ManagedDescription("Web Conferencing call commands")
+@NameTemplate({ @Property(key = "service", value = "webconferencing"), @Property(key = "view", value = "commands") })
 public class CometdWebConferencingService implements Startable {
 
   /** The Constant CALLS_CHANNEL_NAME. */
@@ -109,6 +121,9 @@ public class CometdWebConferencingService implements Startable {
   /** The Constant LOGS_CHANNEL_NAME. */
   public static final String             LOGS_CHANNEL_NAME                     = "/webconferencing/logs";
 
+  /** The Constant LOGS_BATCH_CHANNEL_NAME. */
+  public static final String             LOGS_BATCH_CHANNEL_NAME               = "/webconferencing/logs/batch";
+
   /** The Constant CALL_SUBSCRIPTION_CHANNEL_NAME. */
   public static final String             CALL_SUBSCRIPTION_CHANNEL_NAME        = "/eXo/Application/WebConferencing/call";
 
@@ -171,6 +186,60 @@ public class CometdWebConferencingService implements Startable {
    */
   public static final String             CALL_THREAD_PREFIX                    = "webconferencing-call-thread-";
 
+  /**
+   * Configuration property of calls executor mode: <code>pool</code> (default) for a thread pool, or
+   * <code>virtual</code> for virtual threads (when supported by the JVM).
+   */
+  public static final String             CALL_EXECUTOR_MODE_PROPERTY           = "webconferencing.calls.executor.mode";
+
+  /**
+   * Configuration property of max number of calls commands running at the same time in virtual threads
+   * mode.
+   */
+  public static final String             CALL_EXECUTOR_MAX_RUNNING_PROPERTY    = "webconferencing.calls.executor.maxRunning";
+
+  /** Interval of this node heartbeats to other cluster nodes (in milliseconds). */
+  public static final int                CLUSTER_HEARTBEAT_INTERVAL            = 10000;
+
+  /** Time after last event of other cluster node when it's considered gone (in milliseconds). */
+  public static final int                CLUSTER_NODE_TIMEOUT                  = CLUSTER_HEARTBEAT_INTERVAL * 3;
+
+  /** Number of heartbeats after which call channels of this node announced to other nodes again. */
+  public static final int                CLUSTER_CHANNELS_ANNOUNCE_HEARTBEATS  = 6;
+
+  /**
+   * Time after last announce of a call channel by other node when it's considered removed (in milliseconds),
+   * it's three announce intervals.
+   */
+  public static final int                CLUSTER_CHANNEL_TTL                   = 180000;
+
+  /** Delay to check again a call channel removed on this node when other nodes had its clients (in milliseconds). */
+  public static final int                CLUSTER_CHANNEL_RECHECK_DELAY         = 2000;
+
+  /** Thread name used for cluster timer. */
+  public static final String             CLUSTER_THREAD_PREFIX                 = "webconferencing-cluster-timer-";
+
+  /**
+   * Number of lanes for calls commands per a thread (or a virtual thread running at the same time) of calls
+   * executor. A command waiting for its lane busy by another call should be a rare case.
+   */
+  public static final int                CALL_LANES_FACTOR                     = 8;
+
+  /** The Constant CALL_EXECUTOR_MODE_VIRTUAL. */
+  public static final String             CALL_EXECUTOR_MODE_VIRTUAL            = "virtual";
+
+  /**
+   * Default max number of calls commands running at the same time in virtual threads mode (it's about
+   * concurrent DB connections, not threads).
+   */
+  public static final int                CALL_VIRTUAL_MAX_RUNNING              = 100;
+
+  /** The Constant IDENTITY_CACHE_MAX_SIZE. */
+  public static final int                IDENTITY_CACHE_MAX_SIZE               = 5000;
+
+  /** The Constant IDENTITY_CACHE_LIVE_TIME (in milliseconds). */
+  public static final long               IDENTITY_CACHE_LIVE_TIME              = 5 * 60 * 1000;
+
   /** The Constant LOG. */
   private static final Log               LOG                                   =
                                              ExoLogger.getLogger(CometdWebConferencingService.class);
@@ -196,6 +265,90 @@ public class CometdWebConferencingService implements Startable {
   /** The call handlers. */
   protected final ExecutorService        callHandlers;
 
+  /** The call lanes, to run commands of the same call in sequence. */
+  protected final CommandLanes           callLanes;
+
+  /** The call commands executed count. */
+  protected final AtomicLong             callCommandsCount    = new AtomicLong();
+
+  /** The call commands total wait time (in nanoseconds) before execution. */
+  protected final AtomicLong             callCommandsWait     = new AtomicLong();
+
+  /** The call commands max wait time (in nanoseconds) before execution. */
+  protected final AtomicLong             callCommandsMaxWait  = new AtomicLong();
+
+  /** The call commands rejected count. */
+  protected final AtomicLong             callCommandsRejected = new AtomicLong();
+
+  /** The call commands execution time. */
+  protected final LatencyHistogram       callCommandsTime     = new LatencyHistogram();
+
+  /** The conversation states of users running call commands. */
+  protected final ExpiringCache<String, ConversationState> userStates =
+                                                                      new ExpiringCache<>(IDENTITY_CACHE_MAX_SIZE,
+                                                                                          IDENTITY_CACHE_LIVE_TIME);
+
+  /**
+   * Invalidates cached user state when user membership added, changed or removed in Organization Service,
+   * on this and other cluster nodes.
+   */
+  protected class UserMembershipListener extends MembershipEventListener {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postSave(Membership m, boolean isNew) throws Exception {
+      invalidateClusterUserState(m.getUserName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postDelete(Membership m) throws Exception {
+      invalidateClusterUserState(m.getUserName());
+    }
+  }
+
+  /**
+   * Invalidates cached user state when user disabled or deleted in Organization Service, on this and other
+   * cluster nodes.
+   */
+  protected class UserIdentityListener extends UserEventListener {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postSetEnabled(User user) throws Exception {
+      invalidateClusterUserState(user.getUserName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postDelete(User user) throws Exception {
+      invalidateClusterUserState(user.getUserName());
+    }
+  }
+
+  /**
+   * Invalidates all cached user states when a group deleted (its memberships gone with it), on this and
+   * other cluster nodes.
+   */
+  protected class GroupRemovalListener extends GroupEventListener {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postDelete(Group group) throws Exception {
+      invalidateClusterUserState(null);
+    }
+  }
+
   /**
    * Command thread factory adapted from {@link Executors#DefaultThreadFactory}.
    */
@@ -250,6 +403,21 @@ public class CometdWebConferencingService implements Startable {
   @Service("webconferencing")
   public class CallService {
 
+    /**
+     * Submit a call command for execution, if calls executor is busy the command will be notified as
+     * rejected. Commands are not run in the caller thread, it's a CometD transport thread.
+     *
+     * @param callId the call id, can be <code>null</code>
+     * @param command the command
+     */
+    void submitCommand(String callId, ContainerCommand command) {
+      try {
+        submitCallCommand(callId, command);
+      } catch (RejectedExecutionException e) {
+        command.onRejected();
+      }
+    }
+
     /**
      * The Class ContainerCommand.
      */
@@ -258,6 +426,9 @@ public class CometdWebConferencingService implements Startable {
       /** The container name. */
       final String containerName;
 
+      /** The creation time (in nanoseconds). */
+      final long   created = System.nanoTime();
+
       /**
        * Instantiates a new container command.
        *
@@ -281,33 +452,46 @@ public class CometdWebConferencingService implements Startable {
        */
       abstract void onContainerError(String error);
 
+      /**
+       * Callback to execute when the command rejected as calls executor is busy. By default it logs a
+       * warning.
+       */
+      void onRejected() {
+        LOG.warn("Call command rejected as executor busy (" + containerName + ")");
+      }
+
       /**
        * {@inheritDoc}
        */
       @Override
       public void run() {
-        if (isValidId(containerName)) {
-          // Do the work under eXo container context (for proper work of eXo apps and JPA storage)
-          ExoContainer exoContainer = ExoContainerContext.getContainerByName(containerName);
-          if (exoContainer != null) {
-            ExoContainer contextContainer = ExoContainerContext.getCurrentContainerIfPresent();
-            try {
-              // Container context
-              ExoContainerContext.setCurrentContainer(exoContainer);
-              RequestLifeCycle.begin(exoContainer);
-              // do the work here
-              execute(exoContainer);
-            } finally {
-              // Restore context
-              RequestLifeCycle.end();
-              ExoContainerContext.setCurrentContainer(contextContainer);
+        long started = commandStarted(created);
+        try {
+          if (isValidId(containerName)) {
+            // Do the work under eXo container context (for proper work of eXo apps and JPA storage)
+            ExoContainer exoContainer = ExoContainerContext.getContainerByName(containerName);
+            if (exoContainer != null) {
+              ExoContainer contextContainer = ExoContainerContext.getCurrentContainerIfPresent();
+              try {
+                // Container context
+                ExoContainerContext.setCurrentContainer(exoContainer);
+                RequestLifeCycle.begin(exoContainer);
+                // do the work here
+                execute(exoContainer);
+              } finally {
+                // Restore context
+                RequestLifeCycle.end();
+                ExoContainerContext.setCurrentContainer(contextContainer);
+              }
+            } else {
+              // LOG.warn("Container not found " + containerName + " for remote call " + contextName);
+              onContainerError("Container not found");
             }
           } else {
-            // LOG.warn("Container not found " + containerName + " for remote call " + contextName);
-            onContainerError("Container not found");
+            onContainerError("Container required");
           }
-        } else {
-          onContainerError("Container required");
+        } finally {
+          commandFinished(started);
         }
       }
     }
@@ -563,30 +747,22 @@ public class CometdWebConferencingService implements Startable {
                 userChannelContext.computeIfAbsent(channelId, k -> {
                   // TODO exoClientId better use in addClient()
                   UserCallListener listener = new UserCallListener(userId, exoClientId) {
+                    @Override
+                    public void onCallEvent(UserCallEvent event) {
+                      // the event is shared by all its recipients, its JSON encoded once
+                      bayeux.getChannel(channelId).publish(serverSession, event.toJSON());
+                      if (LOG.isDebugEnabled() && event.isCallState()) {
+                        LOG.debug(">>>> Sent call state update to " + channelId + " by " + currentUserId(null));
+                      }
+                    }
+
                     @Override
                     public void onPartLeaved(String callId,
                                              String providerType,
                                              String ownerId,
                                              String ownerType,
                                              String partId) {
-                      StringBuilder data = new StringBuilder();
-                      data.append('{');
-                      data.append("\"eventType\": \"call_leaved\",");
-                      data.append("\"callId\": \"");
-                      data.append(callId);
-                      data.append("\",\"providerType\": \"");
-                      data.append(providerType);
-                      data.append("\",\"part\": {");
-                      data.append("\"id\": \"");
-                      data.append(partId);
-                      data.append("\"},\"owner\": {");
-                      data.append("\"id\": \"");
-                      data.append(ownerId);
-                      data.append("\",\"type\": \"");
-                      data.append(ownerType);
-                      data.append("\"}");
-                      data.append('}');
-                      bayeux.getChannel(channelId).publish(serverSession, data.toString());
+                      onCallEvent(UserCallEvent.partLeaved(callId, providerType, ownerId, ownerType, partId));
                     }
 
                     @Override
@@ -595,24 +771,7 @@ public class CometdWebConferencingService implements Startable {
                                              String ownerId,
                                              String ownerType,
                                              String partId) {
-                      StringBuilder data = new StringBuilder();
-                      data.append('{');
-                      data.append("\"eventType\": \"call_joined\",");
-                      data.append("\"callId\": \"");
-                      data.append(callId);
-                      data.append("\",\"providerType\": \"");
-                      data.append(providerType);
-                      data.append("\",\"part\": {");
-                      data.append("\"id\": \"");
-                      data.append(partId);
-                      data.append("\"},\"owner\": {");
-                      data.append("\"id\": \"");
-                      data.append(ownerId);
-                      data.append("\",\"type\": \"");
-                      data.append(ownerType);
-                      data.append("\"}");
-                      data.append('}');
-                      bayeux.getChannel(channelId).publish(serverSession, data.toString());
+                      onCallEvent(UserCallEvent.partJoined(callId, providerType, ownerId, ownerType, partId));
                     }
 
                     @Override
@@ -621,26 +780,7 @@ public class CometdWebConferencingService implements Startable {
                                                    String callState,
                                                    String ownerId,
                                                    String ownerType) {
-                      StringBuilder data = new StringBuilder();
-                      data.append('{');
-                      data.append("\"eventType\": \"call_state\",");
-                      data.append("\"callId\": \"");
-                      data.append(callId);
-                      data.append("\",\"providerType\": \"");
-                      data.append(providerType);
-                      data.append("\",\"callState\": \"");
-                      data.append(callState);
-                      data.append("\",\"owner\": {");
-                      data.append("\"id\": \"");
-                      data.append(ownerId);
-                      data.append("\",\"type\": \"");
-                      data.append(ownerType);
-                      data.append("\"}");
-                      data.append('}');
-                      bayeux.getChannel(channelId).publish(serverSession, data.toString());
-                      if (LOG.isDebugEnabled()) {
-                        LOG.debug(">>>> Sent call state update to " + channelId + " by " + currentUserId(null));
-                      }
+                      onCallEvent(UserCallEvent.callState(callId, providerType, callState, ownerId, ownerType));
                     }
                   };
                   if (LOG.isDebugEnabled()) {
@@ -678,6 +818,11 @@ public class CometdWebConferencingService implements Startable {
                 LOG.debug("<<< Created call channel context by " + currentUserId + ", client:" + sessionId + ", channel:"
                     + channelId);
               }
+              if (channelId.length() > CALL_SUBSCRIPTION_CHANNEL_NAME.length()) {
+                // Let other nodes know this node has clients of the call
+                String callId = channelId.substring(CALL_SUBSCRIPTION_CHANNEL_NAME.length() + 1);
+                webConferencing.getClusterEventBus().publish(ClusterEvent.channel(ClusterEvent.CHANNEL_ADDED, callId));
+              }
               return new CallChannelContext(exoContainerName);
             }).addUser(sessionId, currentUserId, exoClientId);
             if (LOG.isDebugEnabled()) {
@@ -724,7 +869,7 @@ public class CometdWebConferencingService implements Startable {
           String callId = channelId.substring(CALL_SUBSCRIPTION_CHANNEL_NAME.length() + 1);
           CallChannelContext context = callChannelContext.get(channelId);
           if (context != null) {
-            callHandlers.submit(new ContainerCommand(context.getContainerName()) {
+            submitCommand(callId, new ContainerCommand(context.getContainerName()) {
               /**
                * {@inheritDoc}
                */
@@ -838,31 +983,18 @@ public class CometdWebConferencingService implements Startable {
           // be notified that the call stopped/removed.
           CallChannelContext context = callChannelContext.remove(channelId);
           if (context != null) {
-            callHandlers.submit(new ContainerCommand(context.getContainerName()) {
-              /**
-               * {@inheritDoc}
-               */
-              @Override
-              void execute(ExoContainer exoContainer) {
-                try {
-                  CallInfo call = webConferencing.getCall(callId);
-                  if (call != null) {
-                    // may be need leave all them and let that logic to stop the call?
-                    webConferencing.stopCall(callId, !call.getOwner().isGroup());
-                  }
-                } catch (Exception e) {
-                  LOG.error("Error reading call " + callId, e);
-                }
-              }
-
-              /**
-               * {@inheritDoc}
-               */
-              @Override
-              void onContainerError(String error) {
-                LOG.error("Container error: " + error + " (" + containerName + ") for channel removal " + channelId);
+            webConferencing.getClusterEventBus().publish(ClusterEvent.channel(ClusterEvent.CHANNEL_REMOVED, callId));
+            if (hasRemoteClients(callId)) {
+              // Other nodes still have clients of the call, they will stop it when their channel will be removed.
+              // But their last clients could leave at the same time, before this node knows about, then
+              // check it again later.
+              if (LOG.isDebugEnabled()) {
+                LOG.debug("Call channel removed but other nodes have its clients: " + callId);
               }
-            });
+              recheckChannelCall(channelId, callId, context.getContainerName());
+              return;
+            }
+            stopChannelCall(callId, context.getContainerName(), false);
           } else {
             LOG.warn("Call context not found for " + callId);
           }
@@ -894,12 +1026,219 @@ public class CometdWebConferencingService implements Startable {
     /** The channel listener. */
     private final ClientChannelListener           channelListener      = new ClientChannelListener();
 
+    /**
+     * Nodes of the cluster having clients in call channels, by call ID: time of the node last announce of
+     * the channel by node ID.
+     */
+    private final Map<String, Map<String, Long>>  remoteCallChannels   = new ConcurrentHashMap<>();
+
+    /** Other nodes of the cluster: time of last event from the node by node ID. */
+    private final Map<String, Long>               clusterNodes         = new ConcurrentHashMap<>();
+
+    /** The cluster events listener. */
+    private final ClusterEventBus.Listener        clusterListener      = this::onClusterEvent;
+
+    /** The cluster timer: heartbeats, expiration of gone nodes and channels, channel rechecks. */
+    private ScheduledExecutorService              clusterTimer;
+
+    /** The heartbeats count, used by the cluster timer only. */
+    private int                                   heartbeats;
+
     /**
      * Post construct.
      */
     @PostConstruct
     public void postConstruct() {
       bayeux.addListener(channelListener);
+      clusterTimer = Executors.newSingleThreadScheduledExecutor(new CommandThreadFactory(CLUSTER_THREAD_PREFIX));
+      webConferencing.getClusterEventBus().addListener(clusterListener);
+      clusterTimer.scheduleWithFixedDelay(this::clusterHeartbeat, 0, CLUSTER_HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Handle call channel ownership and user state events from other cluster nodes. Any event shows its node
+     * alive, a new node will get announce of call channels of this node.
+     *
+     * @param event the event
+     */
+    void onClusterEvent(ClusterEvent event) {
+      String nodeId = event.getNodeId();
+      long now = System.currentTimeMillis();
+      if (clusterNodes.put(nodeId, now) == null) {
+        LOG.info("Cluster node joined: " + nodeId);
+        // Let the new node know call channels of this node, don't block the receiver
+        clusterTask(this::announceChannels);
+      }
+      String callId = event.getCallId();
+      switch (event.getType()) {
+      case ClusterEvent.CHANNEL_ADDED:
+        remoteCallChannels.computeIfAbsent(callId, k -> new ConcurrentHashMap<>()).put(nodeId, now);
+        break;
+      case ClusterEvent.CHANNEL_REMOVED:
+        remoteCallChannels.computeIfPresent(callId, (k, nodes) -> {
+          nodes.remove(nodeId);
+          return nodes.isEmpty() ? null : nodes;
+        });
+        break;
+      case ClusterEvent.CALL_STATE:
+        if (CallState.STOPPED.equals(event.getCallState())) {
+          remoteCallChannels.remove(callId);
+        }
+        break;
+      case ClusterEvent.USER_STATE_INVALIDATED:
+        // memberships changed on other node, don't publish it again
+        if (event.getUserId() != null) {
+          invalidateUserState(event.getUserId());
+        } else {
+          userStates.clear();
+        }
+        break;
+      default:
+        // not a channel event
+      }
+    }
+
+    /**
+     * Checks if other cluster nodes have clients in the call channel.
+     *
+     * @param callId the call id
+     * @return true, if other nodes have clients of the call
+     */
+    boolean hasRemoteClients(String callId) {
+      Map<String, Long> nodes = remoteCallChannels.get(callId);
+      return nodes != null && !nodes.isEmpty();
+    }
+
+    /**
+     * Run a task in the cluster timer.
+     *
+     * @param task the task
+     */
+    void clusterTask(Runnable task) {
+      try {
+        clusterTimer.execute(task);
+      } catch (RejectedExecutionException e) {
+        // stopped
+      }
+    }
+
+    /**
+     * Publish a heartbeat of this node, announce its call channels each
+     * {@value CometdWebConferencingService#CLUSTER_CHANNELS_ANNOUNCE_HEARTBEATS} heartbeats and expire gone
+     * nodes and call channels not announced during {@value CometdWebConferencingService#CLUSTER_CHANNEL_TTL}
+     * milliseconds. A call which channel expired and has no clients on this node will be stopped: no one
+     * else will do this for it.
+     */
+    void clusterHeartbeat() {
+      try {
+        webConferencing.getClusterEventBus().publish(ClusterEvent.heartbeat());
+        if (++heartbeats % CLUSTER_CHANNELS_ANNOUNCE_HEARTBEATS == 0) {
+          announceChannels();
+        }
+        long now = System.currentTimeMillis();
+        clusterNodes.entrySet().removeIf(e -> {
+          if (now - e.getValue() > CLUSTER_NODE_TIMEOUT) {
+            LOG.info("Cluster node gone: " + e.getKey());
+            return true;
+          }
+          return false;
+        });
+        for (String callId : remoteCallChannels.keySet()) {
+          boolean[] expired = new boolean[1];
+          remoteCallChannels.computeIfPresent(callId, (k, nodes) -> {
+            if (nodes.entrySet()
+                     .removeIf(e -> !clusterNodes.containsKey(e.getKey()) || now - e.getValue() > CLUSTER_CHANNEL_TTL)
+                && nodes.isEmpty()) {
+              expired[0] = true;
+              return null;
+            }
+            return nodes;
+          });
+          if (expired[0]) {
+            String channelId = CALL_SUBSCRIPTION_CHANNEL_NAME + "/" + callId;
+            if (LOG.isDebugEnabled()) {
+              LOG.debug("Call channel expired on other nodes: " + callId);
+            }
+            if (!callChannelContext.containsKey(channelId)) {
+              stopChannelCall(callId, PortalContainer.getCurrentPortalContainerName(), true);
+            }
+          }
+        }
+      } catch (Throwable e) {
+        LOG.error("Error running cluster heartbeat", e);
+      }
+    }
+
+    /**
+     * Announce call channels having clients on this node to other nodes.
+     */
+    void announceChannels() {
+      ClusterEventBus clusterBus = webConferencing.getClusterEventBus();
+      for (String channelId : callChannelContext.keySet()) {
+        if (channelId.length() > CALL_SUBSCRIPTION_CHANNEL_NAME.length()) {
+          String callId = channelId.substring(CALL_SUBSCRIPTION_CHANNEL_NAME.length() + 1);
+          clusterBus.publish(ClusterEvent.channel(ClusterEvent.CHANNEL_ADDED, callId));
+        }
+      }
+    }
+
+    /**
+     * Check again later a call which channel removed on this node: if no clients appeared on this node and
+     * other nodes removed the channel too, the call will be stopped.
+     *
+     * @param channelId the channel id
+     * @param callId the call id
+     * @param containerName the container name
+     */
+    void recheckChannelCall(String channelId, String callId, String containerName) {
+      try {
+        clusterTimer.schedule(() -> {
+          if (!callChannelContext.containsKey(channelId) && !hasRemoteClients(callId)) {
+            if (LOG.isDebugEnabled()) {
+              LOG.debug("Call channel removed on all nodes: " + callId);
+            }
+            stopChannelCall(callId, containerName, true);
+          }
+        }, CLUSTER_CHANNEL_RECHECK_DELAY, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // stopped
+      }
+    }
+
+    /**
+     * Stop a call which channel clients gone.
+     *
+     * @param callId the call id
+     * @param containerName the container name
+     * @param ifStarted if <code>true</code> then the call will be stopped only if its stored state is not
+     *          stopped (other node may stop it already)
+     */
+    void stopChannelCall(String callId, String containerName, boolean ifStarted) {
+      submitCommand(callId, new ContainerCommand(containerName) {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void execute(ExoContainer exoContainer) {
+          try {
+            CallInfo call = webConferencing.getCall(callId);
+            if (call != null && !(ifStarted && CallState.STOPPED.equals(call.getState()))) {
+              // may be need leave all them and let that logic to stop the call?
+              webConferencing.stopCall(callId, !call.getOwner().isGroup());
+            }
+          } catch (Exception e) {
+            LOG.error("Error reading call " + callId, e);
+          }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void onContainerError(String error) {
+          LOG.error("Container error: " + error + " (" + containerName + ") for channel removal of " + callId);
+        }
+      });
     }
 
     /**
@@ -909,6 +1248,8 @@ public class CometdWebConferencingService implements Startable {
     public void preDestroy() {
       // cleanup listeners
       bayeux.removeListener(channelListener);
+      webConferencing.getClusterEventBus().removeListener(clusterListener);
+      clusterTimer.shutdownNow();
       for (UserChannelContext context : userChannelContext.values()) {
         webConferencing.removeUserCallListener(context.getListener());
       }
@@ -965,7 +1306,7 @@ public class CometdWebConferencingService implements Startable {
       Map<String, Object> arguments = (Map<String, Object>) data;
       String containerName = asString(arguments.get("exoContainerName"));
 
-      callHandlers.submit(new ContainerCommand(containerName) {
+      submitCommand(asString(arguments.get("id")), new ContainerCommand(containerName) {
         /**
          * {@inheritDoc}
          */
@@ -979,27 +1320,12 @@ public class CometdWebConferencingService implements Startable {
                 // Do all the job under actual (requester) user: set this user as current identity in eXo
                 // We rely on EXoContinuationBayeux.EXoSecurityPolicy for user security here (exoId above)
                 // Use services acquired from context container.
-                IdentityRegistry identityRegistry = exoContainer.getComponentInstanceOfType(IdentityRegistry.class);
                 WebConferencingService webConferencing = exoContainer.getComponentInstanceOfType(WebConferencingService.class);
-                Identity userIdentity = identityRegistry.getIdentity(currentUserId);
-                if (userIdentity == null) {
-                  // We create user identity by authenticator, but not register it in the registry
-                  try {
-                    Authenticator authenticator = exoContainer.getComponentInstanceOfType(Authenticator.class);
-                    if (LOG.isDebugEnabled()) {
-                      LOG.debug("User identity not registered, trying to create it for: " + currentUserId);
-                    }
-                    userIdentity = authenticator.createIdentity(currentUserId);
-                  } catch (Exception e) {
-                    LOG.warn("Failed to create user identity: " + currentUserId, e);
-                  }
-                }
-                if (userIdentity != null) {
+                ConversationState convState = userState(exoContainer, currentUserId);
+                if (convState != null) {
                   ConversationState contextState = ConversationState.getCurrent();
                   try {
                     // User context (2)
-                    ConversationState convState = new ConversationState(userIdentity);
-                    convState.setAttribute(ConversationState.SUBJECT, userIdentity.getSubject());
                     ConversationState.setCurrent(convState);
                     // Process the request
                     String id = asString(arguments.get("id"));
@@ -1140,6 +1466,15 @@ public class CometdWebConferencingService implements Startable {
           LOG.warn("Container error: " + error + " (" + containerName + ") for remote call of " + CALLS_CHANNEL_NAME);
           caller.failure(ErrorInfo.clientError(error).asJSON());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void onRejected() {
+          LOG.warn("Remote call of " + CALLS_CHANNEL_NAME + " rejected as executor busy, client " + session.getId());
+          caller.failure(ErrorInfo.serverError("Server busy, try again later").asJSON());
+        }
       });
     }
 
@@ -1165,110 +1500,114 @@ public class CometdWebConferencingService implements Startable {
         // timestamp - string, date with time and seconds fraction in ISO format and UTC timezone
         String currentUserId = asString(params.get("exoId"));
         if (isValidId(currentUserId)) {
-          // TODO validate all log params on max length in like validate() method
-          String clientId = asString(params.get("exoClientId"));
-          if (isValidArg(clientId)) {
-            String level = asString(params.get("level"));
-            if (isValidArg(level)) {
-              String timestamp = asString(params.get("timestamp"));
-              if (isValidArg(timestamp)) {
-                String provider = asString(params.get("provider")); // can be null or non empty
-                if (isValidText(provider)) {
-                  String prefix = asString(params.get("prefix")); // can be null or non empty
-                  if (isValidText(prefix)) {
-                    Map<String, Object> msgData;
-                    Object msgObj = params.get("data");
-                    if (msgObj != null) {
-                      if (Map.class.isAssignableFrom(msgObj.getClass())) {
-
-                        msgData = (Map<String, Object>) msgObj;
-                      } else if (String.class.isAssignableFrom(msgObj.getClass())) {
-                        msgData = new HashMap<>();
-                        msgData.put("message", String.class.cast(msgObj));
-                      } else {
-                        LOG.warn("");
-                        msgData = Collections.emptyMap();
-                      }
-
-                      String message = validate(asString(msgData.get("message")));
-
-                      CallLog callLog = callLogs.getLog();
-                      StringBuilder msgLine = new StringBuilder();
-                      msgLine.append('[');
-                      if (provider != null) {
-                        msgLine.append(provider);
-                      }
-                      if (prefix != null) {
-                        if (msgLine.length() > 1) {
-                          msgLine.append('.');
-                        }
-                        msgLine.append(prefix);
-                      }
-                      if (msgLine.length() > 1) {
-                        msgLine.append("] ");
-                      } else {
-                        msgLine.deleteCharAt(0); // remove [
-                      }
-                      msgLine.append(currentUserId);
-                      msgLine.append('-');
-                      msgLine.append(clientId);
-                      msgLine.append(' ');
-                      msgLine.append(message);
-                      msgLine.append(" -- ");
-                      msgLine.append(timestamp);
-
-                      //
-                      LocalDateTime msgTimestamp;
-                      try {
-                        msgTimestamp = LocalDateTime.parse(timestamp, DateTimeFormatter.ISO_DATE_TIME);
-                      } catch (DateTimeParseException e) {
-                        LOG.warn("Error parsing log timestamp '" + timestamp + "'", e);
-                        msgTimestamp = null;
-                      }
-
-                      if (ERROR_LEVEL.equals(level)) {
-                        callLog.error(msgLine.toString(), msgTimestamp);
-                      } else if (WARN_LEVEL.equals(level)) {
-                        callLog.warn(msgLine.toString(), msgTimestamp);
-                      } else if (INFO_LEVEL.equals(level)) {
-                        callLog.info(msgLine.toString(), msgTimestamp);
-                      } else if (DEBUG_LEVEL.equals(level)) {
-                        callLog.debug(msgLine.toString(), msgTimestamp);
-                      } else if (TRACE_LEVEL.equals(level)) {
-                        callLog.trace(msgLine.toString(), msgTimestamp);
-                      } else {
-                        callLog.warn("Received not expected level: " + level);
-                        caller.failure(ErrorInfo.clientError("Not expected request parameters: level").asJSON());
-                      }
+          try {
+            callLogs.log(createLogRecord(currentUserId, asString(params.get("exoClientId")), params));
+            // Finally send OK response (empty JSON object here)
+            caller.result(LOG_OK);
+          } catch (IllegalArgumentException e) {
+            caller.failure(ErrorInfo.clientError(e.getMessage()).asJSON());
+          }
+        } else {
+          caller.failure(ErrorInfo.clientError("Unauthorized user").asJSON());
+        }
+      } catch (Throwable e) {
+        LOG.error("Error processing call request from client " + session.getId() + " with data: " + args, e);
+        caller.failure(ErrorInfo.serverError("Error processing call request: " + e.getMessage()).asJSON());
+      }
+    }
 
-                      // Finally send OK response (empty JSON object here)
-                      caller.result(LOG_OK);
-                    } else {
-                      caller.failure(ErrorInfo.clientError("Not found request parameters: data").asJSON());
-                    }
-                  } else {
-                    caller.failure(ErrorInfo.clientError("Wrong request parameters: prefix").asJSON());
+    /**
+     * Remote calls from clients to log a batch of records in a single request. Records validated all
+     * together: not valid records will be skipped and counted in the response as rejected, others will be
+     * logged.
+     *
+     * @param caller the caller
+     * @param args the data
+     */
+    @RemoteCall(LOGS_BATCH_CHANNEL_NAME)
+    @SuppressWarnings("unchecked")
+    public void rcLogsBatch(final RemoteCall.Caller caller, final Object args) {
+      ServerSession session = caller.getServerSession();
+      Map<String, Object> params = (Map<String, Object>) args;
+      try {
+        // We will receive following entries:
+        // exoId - string, eXo's username who logs the data
+        // exoClientId - string, an ID generated by core web conferencing to distinguish running
+        // clients
+        // records - array of objects with entries as for rcLogs(): data, level, provider, prefix, timestamp
+        String currentUserId = asString(params.get("exoId"));
+        if (isValidId(currentUserId)) {
+          String clientId = asString(params.get("exoClientId"));
+          Object recordsObj = params.get("records");
+          Object[] records;
+          if (recordsObj instanceof Object[]) {
+            records = (Object[]) recordsObj;
+          } else if (recordsObj instanceof Collection) {
+            records = ((Collection<Object>) recordsObj).toArray();
+          } else {
+            records = null;
+          }
+          if (records != null) {
+            if (records.length <= CallLogService.RECORDS_BATCH_SIZE) {
+              List<LogRecord> valid = new ArrayList<>(records.length);
+              String rejectReason = null;
+              for (Object r : records) {
+                if (r instanceof Map) {
+                  try {
+                    valid.add(createLogRecord(currentUserId, clientId, (Map<String, Object>) r));
+                  } catch (IllegalArgumentException e) {
+                    rejectReason = e.getMessage();
                   }
                 } else {
-                  caller.failure(ErrorInfo.clientError("Wrong request parameters: provider").asJSON());
+                  rejectReason = "Wrong request parameters: record";
                 }
-              } else {
-                caller.failure(ErrorInfo.clientError("Wrong request parameters: timestamp").asJSON());
               }
+              int rejected = records.length - valid.size();
+              if (rejected > 0 && LOG.isDebugEnabled()) {
+                LOG.debug("Rejected " + rejected + " log records of " + currentUserId + "-" + clientId + ", last reason: "
+                    + rejectReason);
+              }
+              callLogs.log(valid);
+              caller.result(new StringBuilder("{\"accepted\":").append(valid.size())
+                                                                .append(",\"rejected\":")
+                                                                .append(rejected)
+                                                                .append('}')
+                                                                .toString());
             } else {
-              caller.failure(ErrorInfo.clientError("Wrong request parameters: level").asJSON());
+              caller.failure(ErrorInfo.clientError("Too many records, max " + CallLogService.RECORDS_BATCH_SIZE
+                  + " accepted").asJSON());
             }
           } else {
-            caller.failure(ErrorInfo.clientError("Wrong request parameters: clientId").asJSON());
+            caller.failure(ErrorInfo.clientError("Not found request parameters: records").asJSON());
           }
         } else {
           caller.failure(ErrorInfo.clientError("Unauthorized user").asJSON());
         }
       } catch (Throwable e) {
-        LOG.error("Error processing call request from client " + session.getId() + " with data: " + args, e);
-        caller.failure(ErrorInfo.serverError("Error processing call request: " + e.getMessage()).asJSON());
+        LOG.error("Error processing logs request from client " + session.getId(), e);
+        caller.failure(ErrorInfo.serverError("Error processing logs request: " + e.getMessage()).asJSON());
       }
     }
+
+    /**
+     * Create log record from the client request parameters.
+     *
+     * @param userId the user id
+     * @param clientId the client id
+     * @param params the record parameters
+     * @return the log record
+     * @throws IllegalArgumentException if some of parameters not valid
+     */
+    private LogRecord createLogRecord(String userId, String clientId, Map<String, Object> params) throws IllegalArgumentException {
+      return callLogs.createRecord(userId,
+                                   clientId,
+                                   asString(params.get("callId")), // can be null
+                                   asString(params.get("level")),
+                                   asString(params.get("timestamp")),
+                                   asString(params.get("provider")), // can be null or non empty
+                                   asString(params.get("prefix")), // can be null or non empty
+                                   params.get("data"));
+    }
   }
 
   /**
@@ -1293,7 +1632,8 @@ public class CometdWebConferencingService implements Startable {
     this.service = new CallService();
 
     // Thread executors
-    this.callHandlers = createThreadExecutor(CALL_THREAD_PREFIX, CALL_MAX_FACTOR, CALL_QUEUE_FACTOR);
+    this.callHandlers = createCallExecutor();
+    this.callLanes = new CommandLanes(callHandlers, callLanesSize(callHandlers), this::callCommandRejected);
   }
 
   /**
@@ -1336,6 +1676,15 @@ public class CometdWebConferencingService implements Startable {
       }
     });
 
+    // Invalidate cached user states on their memberships changes
+    try {
+      organization.addListenerPlugin(new UserMembershipListener());
+      organization.addListenerPlugin(new UserIdentityListener());
+      organization.addListenerPlugin(new GroupRemovalListener());
+    } catch (Exception e) {
+      LOG.warn("Error registering membership listeners, cached user states will expire by time only", e);
+    }
+
     if (PropertyManager.isDevelopping()) {
       // This listener not required for work, just for info during development
       exoBayeux.addListener(new BayeuxServer.SessionListener() {
@@ -1362,7 +1711,282 @@ public class CometdWebConferencingService implements Startable {
    */
   @Override
   public void stop() {
-    //
+    callHandlers.shutdown();
+    userStates.clear();
+  }
+
+  /**
+   * Gets the number of call commands waiting for execution.
+   *
+   * @return the call commands queue depth
+   */
+  @Managed
+  @ManagedDescription("Number of call commands waiting for execution")
+  public int getCallCommandsQueueDepth() {
+    if (callHandlers instanceof VirtualThreadExecutor) {
+      return VirtualThreadExecutor.class.cast(callHandlers).getWaiting();
+    } else if (callHandlers instanceof ThreadPoolExecutor) {
+      return ThreadPoolExecutor.class.cast(callHandlers).getQueue().size();
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the number of call commands executing now (active threads of the pool, or running virtual threads).
+   *
+   * @return the call commands active count
+   */
+  @Managed
+  @ManagedDescription("Number of call commands executing now")
+  public int getCallCommandsActive() {
+    if (callHandlers instanceof VirtualThreadExecutor) {
+      return VirtualThreadExecutor.class.cast(callHandlers).getRunning();
+    } else if (callHandlers instanceof ThreadPoolExecutor) {
+      return ThreadPoolExecutor.class.cast(callHandlers).getActiveCount();
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the number of call commands rejected as the calls executor was busy.
+   *
+   * @return the call commands rejected count
+   */
+  @Managed
+  @ManagedDescription("Number of call commands rejected as the executor was busy")
+  public long getCallCommandsRejected() {
+    return callCommandsRejected.get();
+  }
+
+  /**
+   * Gets the average wait time of call commands before their execution.
+   *
+   * @return the average wait time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Average wait time of call commands before execution in milliseconds")
+  public double getCallCommandsAverageWaitTime() {
+    long count = callCommandsCount.get();
+    return count > 0 ? callCommandsWait.get() / count / 1000000d : 0;
+  }
+
+  /**
+   * Gets the max wait time of call commands before their execution.
+   *
+   * @return the max wait time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Max wait time of call commands before execution in milliseconds")
+  public double getCallCommandsMaxWaitTime() {
+    return callCommandsMaxWait.get() / 1000000d;
+  }
+
+  /**
+   * Gets the number of executed call commands.
+   *
+   * @return the call commands count
+   */
+  @Managed
+  @ManagedDescription("Number of executed call commands")
+  public long getCallCommandsCount() {
+    return callCommandsCount.get();
+  }
+
+  /**
+   * Gets the median execution time of call commands.
+   *
+   * @return the time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Median execution time of call commands in milliseconds")
+  public double getCallCommandsMedianTime() {
+    return callCommandsTime.getPercentile(50);
+  }
+
+  /**
+   * Gets the 99th percentile of call commands execution time.
+   *
+   * @return the time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("99th percentile of call commands execution time in milliseconds")
+  public double getCallCommandsP99Time() {
+    return callCommandsTime.getPercentile(99);
+  }
+
+  /**
+   * Gets the call commands execution time histogram.
+   *
+   * @return the histogram
+   */
+  public LatencyHistogram getCallCommandsTime() {
+    return callCommandsTime;
+  }
+
+  /**
+   * Gets the user states cache hits count.
+   *
+   * @return the hits
+   */
+  @Managed
+  @ManagedDescription("Number of call commands executed with cached user identity")
+  public long getIdentityCacheHits() {
+    return userStates.getHits();
+  }
+
+  /**
+   * Gets the user states cache misses count.
+   *
+   * @return the misses
+   */
+  @Managed
+  @ManagedDescription("Number of call commands that had to read user identity")
+  public long getIdentityCacheMisses() {
+    return userStates.getMisses();
+  }
+
+  /**
+   * Invalidate cached user state. Next call command of the user will read its identity again.
+   *
+   * @param userId the user id
+   */
+  public void invalidateUserState(String userId) {
+    if (userId != null && userStates.remove(userId) && LOG.isDebugEnabled()) {
+      LOG.debug("Invalidated cached user state: " + userId);
+    }
+  }
+
+  /**
+   * Invalidate cached user state on this node and publish it to other cluster nodes, they cache their own
+   * user states.
+   *
+   * @param userId the user id, <code>null</code> to invalidate states of all users
+   */
+  protected void invalidateClusterUserState(String userId) {
+    if (userId != null) {
+      invalidateUserState(userId);
+    } else {
+      userStates.clear();
+    }
+    webConferencing.getClusterEventBus().publish(ClusterEvent.userStateInvalidated(userId));
+  }
+
+  /**
+   * Conversation state of an user for running call commands. Identity registered in the registry (user
+   * logged in) is used first, otherwise it's created by the authenticator (not registered in the registry).
+   * The state is cached for {@value #IDENTITY_CACHE_LIVE_TIME} milliseconds or until the user memberships
+   * change, it's shared by concurrent commands of the user.
+   *
+   * @param exoContainer the eXo container to acquire the security services
+   * @param userId the user id
+   * @return the conversation state or <code>null</code> if user identity cannot be found
+   */
+  protected ConversationState userState(ExoContainer exoContainer, String userId) {
+    IdentityRegistry identityRegistry = exoContainer.getComponentInstanceOfType(IdentityRegistry.class);
+    Identity userIdentity = identityRegistry.getIdentity(userId);
+    ConversationState state = userStates.get(userId);
+    if (state != null && (userIdentity == null || userIdentity == state.getIdentity())) {
+      return state;
+    }
+    if (userIdentity == null) {
+      // We create user identity by authenticator, but not register it in the registry
+      try {
+        Authenticator authenticator = exoContainer.getComponentInstanceOfType(Authenticator.class);
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("User identity not registered, trying to create it for: " + userId);
+        }
+        userIdentity = authenticator.createIdentity(userId);
+      } catch (Exception e) {
+        LOG.warn("Failed to create user identity: " + userId, e);
+        return null;
+      }
+    }
+    if (userIdentity != null) {
+      state = new ConversationState(userIdentity);
+      state.setAttribute(ConversationState.SUBJECT, userIdentity.getSubject());
+      userStates.put(userId, state);
+    }
+    return state;
+  }
+
+  /**
+   * Submit a call command for execution. Commands of the same call will be executed in order of
+   * submission, one after another. Commands without a call ID will be executed in any order.
+   *
+   * @param callId the call id, can be <code>null</code>
+   * @param command the command
+   * @throws RejectedExecutionException if calls executor is busy and cannot accept the command
+   */
+  protected void submitCallCommand(String callId, Runnable command) throws RejectedExecutionException {
+    try {
+      if (isValidId(callId)) {
+        callLanes.execute(callId, command);
+      } else {
+        callHandlers.execute(command);
+      }
+    } catch (RejectedExecutionException e) {
+      callCommandsRejected.incrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * Handle a call command rejected with its lane after it was queued there: the command will be notified
+   * as rejected, its submitter already returned.
+   *
+   * @param command the command
+   */
+  protected void callCommandRejected(Runnable command) {
+    callCommandsRejected.incrementAndGet();
+    if (command instanceof CallService.ContainerCommand) {
+      CallService.ContainerCommand.class.cast(command).onRejected();
+    } else {
+      LOG.warn("Call command rejected as executor busy: " + command);
+    }
+  }
+
+  /**
+   * Number of lanes for calls commands: a power of two not less than {@value #CALL_LANES_FACTOR} lanes per
+   * each thread the executor can run at the same time.
+   *
+   * @param executor the calls executor
+   * @return the number of lanes
+   */
+  protected int callLanesSize(ExecutorService executor) {
+    int threads;
+    if (executor instanceof VirtualThreadExecutor) {
+      threads = VirtualThreadExecutor.class.cast(executor).getMaxRunning();
+    } else if (executor instanceof ThreadPoolExecutor) {
+      threads = ThreadPoolExecutor.class.cast(executor).getMaximumPoolSize();
+    } else {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    int lanes = Math.max(threads, 1) * CALL_LANES_FACTOR;
+    return Integer.highestOneBit(lanes - 1) << 1;
+  }
+
+  /**
+   * Account a call command start.
+   *
+   * @param created the command creation time in nanoseconds
+   * @return the command start time in nanoseconds
+   */
+  protected long commandStarted(long created) {
+    long started = System.nanoTime();
+    long wait = started - created;
+    callCommandsCount.incrementAndGet();
+    callCommandsWait.addAndGet(wait);
+    callCommandsMaxWait.accumulateAndGet(wait, Math::max);
+    return started;
+  }
+
+  /**
+   * Account a call command finish.
+   *
+   * @param started the command start time in nanoseconds
+   */
+  protected void commandFinished(long started) {
+    callCommandsTime.record(System.nanoTime() - started);
   }
 
   /**
@@ -1450,6 +2074,36 @@ public class CometdWebConferencingService implements Startable {
     return null;
   }
 
+  /**
+   * Create calls executor according the configured mode. In virtual threads mode each command runs in its
+   * own virtual thread and a blocking work (storage, organization service) will not hold a platform thread.
+   * If virtual threads not supported by the JVM, a thread pool will be used.
+   *
+   * @return the executor service
+   */
+  protected ExecutorService createCallExecutor() {
+    String mode = PropertyManager.getProperty(CALL_EXECUTOR_MODE_PROPERTY);
+    if (CALL_EXECUTOR_MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+      if (VirtualThreadExecutor.isSupported()) {
+        int maxRunning = CALL_VIRTUAL_MAX_RUNNING;
+        String maxRunningValue = PropertyManager.getProperty(CALL_EXECUTOR_MAX_RUNNING_PROPERTY);
+        if (maxRunningValue != null) {
+          try {
+            maxRunning = Integer.parseInt(maxRunningValue.trim());
+          } catch (NumberFormatException e) {
+            LOG.warn("Wrong value of " + CALL_EXECUTOR_MAX_RUNNING_PROPERTY + ": " + maxRunningValue + ", will use "
+                + maxRunning);
+          }
+        }
+        LOG.info("Calls will be executed in virtual threads, " + maxRunning + " at the same time at most");
+        return new VirtualThreadExecutor(maxRunning > 0 ? maxRunning : CALL_VIRTUAL_MAX_RUNNING);
+      } else {
+        LOG.warn("Virtual threads not supported by the JVM, calls will be executed in a thread pool");
+      }
+    }
+    return createThreadExecutor(CALL_THREAD_PREFIX, CALL_MAX_FACTOR, CALL_QUEUE_FACTOR);
+  }
+
   /**
    * Create a new thread executor service.
    *
@@ -1479,7 +2133,7 @@ public class CometdWebConferencingService implements Startable {
                                   TimeUnit.SECONDS,
                                   new LinkedBlockingQueue<Runnable>(queueSize),
                                   new CommandThreadFactory(threadNamePrefix),
-                                  new ThreadPoolExecutor.CallerRunsPolicy());
+                                  new ThreadPoolExecutor.AbortPolicy());
   }
 
 }
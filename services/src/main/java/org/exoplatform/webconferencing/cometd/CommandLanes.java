@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cometd;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+/**
+ * Runs commands on an executor in lanes selected by a key (e.g. call ID): commands of the same lane run one
+ * after another in order of submission, while different lanes run in parallel. Lanes are striped, thus few
+ * keys may share the same lane. If the executor rejects a lane, all commands queued in it are rejected: the
+ * submitter gets the exception and others are given to the rejected commands handler.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CommandLanes.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class CommandLanes {
+
+  /** The Constant LOG. */
+  protected static final Log LOG = ExoLogger.getLogger(CommandLanes.class);
+
+  /**
+   * Serial lane of commands.
+   */
+  class Lane implements Runnable {
+
+    /** The commands, guarded by the lane instance. */
+    final Queue<Runnable> commands = new ArrayDeque<>();
+
+    /** The active flag, guarded by the lane instance. */
+    boolean               active;
+
+    /**
+     * Add a command to the lane.
+     *
+     * @param command the command
+     */
+    void add(Runnable command) {
+      synchronized (this) {
+        commands.add(command);
+        if (active) {
+          return;
+        }
+        active = true;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        // Nothing will run the lane: reject this command and all added meanwhile by others
+        List<Runnable> rejected;
+        synchronized (this) {
+          rejected = new ArrayList<>(commands);
+          commands.clear();
+          active = false;
+        }
+        for (Runnable other : rejected) {
+          if (other != command) {
+            try {
+              rejectedHandler.accept(other);
+            } catch (Throwable re) {
+              LOG.error("Error handling rejected lane command", re);
+            }
+          }
+        }
+        throw e;
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+      while (true) {
+        Runnable command;
+        synchronized (this) {
+          command = commands.poll();
+          if (command == null) {
+            active = false;
+            return;
+          }
+        }
+        try {
+          command.run();
+        } catch (Throwable e) {
+          LOG.error("Error running lane command", e);
+        }
+      }
+    }
+  }
+
+  /** The executor. */
+  protected final Executor           executor;
+
+  /** The handler of queued commands rejected with a lane. */
+  protected final Consumer<Runnable> rejectedHandler;
+
+  /** The lanes. */
+  protected final Lane[]             lanes;
+
+  /**
+   * Instantiates a new command lanes.
+   *
+   * @param executor the executor
+   * @param size the number of lanes, should be a power of two
+   * @param rejectedHandler the handler of commands queued in a lane that executor rejected, the command of
+   *          the rejected submission is not given to it
+   */
+  public CommandLanes(Executor executor, int size, Consumer<Runnable> rejectedHandler) {
+    this.executor = executor;
+    this.rejectedHandler = rejectedHandler;
+    this.lanes = new Lane[size];
+    for (int i = 0; i < size; i++) {
+      lanes[i] = new Lane();
+    }
+  }
+
+  /**
+   * Run a command in a lane of given key, after already submitted commands of that lane.
+   *
+   * @param key the key
+   * @param command the command
+   * @throws RejectedExecutionException if executor cannot accept the command, commands queued after it in
+   *           the lane will be given to the rejected commands handler
+   */
+  public void execute(String key, Runnable command) throws RejectedExecutionException {
+    int h = key.hashCode();
+    h ^= (h >>> 16);
+    lanes[h & (lanes.length - 1)].add(command);
+  }
+
+  /**
+   * Gets the number of lanes.
+   *
+   * @return the size
+   */
+  public int getSize() {
+    return lanes.length;
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.cometd;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running each task in a new virtual thread, number of tasks running at the same time is bounded
+ * by a semaphore, other tasks wait for a permit in their (virtual) threads. Virtual threads are available
+ * since Java 21, this class accesses them by reflection and can be created only when
+ * {@link #isSupported()} returns <code>true</code>.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: VirtualThreadExecutor.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+  /** The virtual threads factory, <code>null</code> if not supported by the runtime. */
+  private static final ThreadFactory VIRTUAL_FACTORY = virtualThreadFactory();
+
+  /** The permits. */
+  protected final Semaphore          permits;
+
+  /** The max running tasks. */
+  protected final int                maxRunning;
+
+  /** The threads of submitted tasks (waiting and running). */
+  protected final Set<Thread>        threads         = ConcurrentHashMap.newKeySet();
+
+  /** The waiting tasks count. */
+  protected final AtomicInteger      waiting         = new AtomicInteger();
+
+  /** The shutdown flag. */
+  protected volatile boolean         shutdown;
+
+  /**
+   * Create virtual threads factory (<code>Thread.ofVirtual().name(prefix, 0).factory()</code>).
+   *
+   * @return the thread factory or <code>null</code> if not supported
+   */
+  private static ThreadFactory virtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class)
+                            .invoke(builder, CometdWebConferencingService.CALL_THREAD_PREFIX + "virtual-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Checks if virtual threads supported by the runtime.
+   *
+   * @return true, if is supported
+   */
+  public static boolean isSupported() {
+    return VIRTUAL_FACTORY != null;
+  }
+
+  /**
+   * Instantiates a new virtual thread executor.
+   *
+   * @param maxRunning the max number of tasks running at the same time
+   * @throws IllegalStateException if virtual threads not supported by the runtime
+   */
+  public VirtualThreadExecutor(int maxRunning) throws IllegalStateException {
+    if (!isSupported()) {
+      throw new IllegalStateException("Virtual threads not supported by the runtime");
+    }
+    this.maxRunning = maxRunning;
+    this.permits = new Semaphore(maxRunning, true);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void execute(Runnable command) {
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor stopped");
+    }
+    waiting.incrementAndGet();
+    Thread thread = VIRTUAL_FACTORY.newThread(() -> {
+      try {
+        try {
+          permits.acquire();
+        } finally {
+          waiting.decrementAndGet();
+        }
+        try {
+          command.run();
+        } finally {
+          permits.release();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        threads.remove(Thread.currentThread());
+        synchronized (threads) {
+          threads.notifyAll();
+        }
+      }
+    });
+    threads.add(thread);
+    thread.start();
+  }
+
+  /**
+   * Gets the number of tasks waiting to run.
+   *
+   * @return the waiting tasks count
+   */
+  public int getWaiting() {
+    return waiting.get();
+  }
+
+  /**
+   * Gets the number of running tasks.
+   *
+   * @return the running tasks count
+   */
+  public int getRunning() {
+    return maxRunning - permits.availablePermits();
+  }
+
+  /**
+   * Gets the max number of running tasks.
+   *
+   * @return the max running
+   */
+  public int getMaxRunning() {
+    return maxRunning;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void shutdown() {
+    shutdown = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    for (Thread t : threads) {
+      t.interrupt();
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isTerminated() {
+    return shutdown && threads.isEmpty();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+    synchronized (threads) {
+      while (!isTerminated()) {
+        long left = deadline - System.currentTimeMillis();
+        if (left <= 0) {
+          return false;
+        }
+        threads.wait(left);
+      }
+    }
+    return true;
+  }
+}
@@ -29,6 +29,7 @@ import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
 
 import org.exoplatform.commons.persistence.impl.GenericDAOJPAImpl;
+import org.exoplatform.webconferencing.CallState;
 import org.exoplatform.webconferencing.UserInfo;
 import org.exoplatform.webconferencing.domain.CallEntity;
 
@@ -93,6 +94,28 @@ public class CallDAO extends GenericDAOJPAImpl<CallEntity, String> {
     }
   }
 
+  /**
+   * Find user group calls states: only call IDs and states will be read in a single query.
+   *
+   * @param userId the user id
+   * @return the list, it will be empty if no calls found
+   * @throws PersistenceException the persistence exception
+   * @throws IllegalStateException the illegal state exception
+   * @throws IllegalArgumentException the illegal argument exception
+   */
+  public List<CallState> findUserGroupCallStates(String userId) throws PersistenceException,
+                                                                IllegalStateException,
+                                                                IllegalArgumentException {
+    TypedQuery<CallState> query = getEntityManager().createNamedQuery("WebConfCall.findUserGroupCallStates", CallState.class)
+                                                    .setParameter("userId", userId);
+
+    try {
+      return query.getResultList();
+    } catch (NoResultException e) {
+      return Collections.emptyList();
+    }
+  }
+
   /**
    * Delete all users calls older of {@value #USER_CALL_DAYS_LIVETIME} days.
    *
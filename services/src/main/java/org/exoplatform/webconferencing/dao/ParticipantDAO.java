@@ -18,9 +18,11 @@
  */
 package org.exoplatform.webconferencing.dao;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
@@ -78,6 +80,68 @@ public class ParticipantDAO extends GenericDAOJPAImpl<ParticipantEntity, Partici
     return getEntityManager().createNamedQuery("WebConfCall.deleteCallParts").setParameter("callId", callId).executeUpdate();
   }
 
+  /**
+   * Update state of all call participants in a single statement, their client IDs will be reset. The update
+   * goes directly to the database, then participants of this call already loaded in the session with other
+   * values will be refreshed. Other entities of the session aren't touched.
+   *
+   * @param callId the call id
+   * @param state the state
+   * @return the number of updated participants
+   * @throws PersistenceException the persistence exception
+   * @throws IllegalStateException the illegal state exception
+   * @throws IllegalArgumentException the illegal argument exception
+   */
+  public int updateCallPartsState(String callId, String state) throws PersistenceException,
+                                                              IllegalStateException,
+                                                              IllegalArgumentException {
+    EntityManager em = getEntityManager();
+    int updated = em.createNamedQuery("WebConfCall.updateCallPartsState")
+                    .setParameter("callId", callId)
+                    .setParameter("state", state)
+                    .executeUpdate();
+    // Participants read by this query already have updated values, only loaded before will differ
+    for (ParticipantEntity p : findCallParts(callId)) {
+      if (!state.equals(p.getState()) || p.getClientId() != null) {
+        em.refresh(p);
+      }
+    }
+    return updated;
+  }
+
+  /**
+   * Persist given participants and flush them to the database once for all, this lets the JPA provider
+   * send them in a JDBC batch (when batching enabled for the persistence unit).
+   *
+   * @param parts the participants
+   * @throws PersistenceException the persistence exception
+   * @throws IllegalStateException the illegal state exception
+   * @throws IllegalArgumentException the illegal argument exception
+   */
+  public void persistAll(Collection<ParticipantEntity> parts) throws PersistenceException,
+                                                              IllegalStateException,
+                                                              IllegalArgumentException {
+    EntityManager em = getEntityManager();
+    for (ParticipantEntity p : parts) {
+      em.persist(p);
+    }
+    em.flush();
+  }
+
+  /**
+   * Detach given participants from the storage session, e.g. after they were deleted by the database.
+   * Other entities of the session aren't touched.
+   *
+   * @param parts the participants
+   * @throws IllegalArgumentException the illegal argument exception
+   */
+  public void detachAll(Collection<ParticipantEntity> parts) throws IllegalArgumentException {
+    EntityManager em = getEntityManager();
+    for (ParticipantEntity p : parts) {
+      em.detach(p);
+    }
+  }
+
   /**
    * Clear the storage.
    */
@@ -43,6 +43,9 @@ import org.exoplatform.commons.api.persistence.ExoEntity;
                 query = "SELECT c FROM WebConfCall c WHERE c.isGroup = true AND c.ownerId = :ownerId"),
     @NamedQuery(name = "WebConfCall.findUserGroupCalls",
                 query = "SELECT c FROM WebConfCall c, WebConfParticipant p WHERE c.id = p.callId AND p.id = :userId ORDER BY c.lastDate"),
+    @NamedQuery(name = "WebConfCall.findUserGroupCallStates",
+                query = "SELECT NEW org.exoplatform.webconferencing.CallState(c.id, c.state) FROM WebConfCall c, WebConfParticipant p"
+                    + " WHERE c.id = p.callId AND p.id = :userId ORDER BY c.lastDate"),
     @NamedQuery(name = "WebConfCall.deleteOwnerOlderCalls",
                 query = "DELETE FROM WebConfCall WHERE ownerType = :ownerType AND lastDate <= :expiredDate") })
 public class CallEntity {
@@ -41,7 +41,9 @@ import org.exoplatform.commons.api.persistence.ExoEntity;
 @NamedQueries({
     @NamedQuery(name = "WebConfCall.findCallParts",
                 query = "SELECT p FROM WebConfParticipant p WHERE p.callId = :callId ORDER BY p.state, p.type"),
-    @NamedQuery(name = "WebConfCall.deleteCallParts", query = "DELETE FROM WebConfParticipant WHERE callId = :callId") })
+    @NamedQuery(name = "WebConfCall.deleteCallParts", query = "DELETE FROM WebConfParticipant WHERE callId = :callId"),
+    @NamedQuery(name = "WebConfCall.updateCallPartsState",
+                query = "UPDATE WebConfParticipant SET state = :state, clientId = NULL WHERE callId = :callId") })
 public class ParticipantEntity {
 
   /** The id. */
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.rest;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.exoplatform.services.rest.resource.ResourceContainer;
+import org.exoplatform.webconferencing.WebConferencingService;
+import org.exoplatform.webconferencing.client.ErrorInfo;
+import org.exoplatform.webconferencing.cometd.CometdWebConferencingService;
+import org.exoplatform.webconferencing.support.CallMetricsService;
+import org.exoplatform.webconferencing.support.LatencyHistogram;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Metrics of call operations and call commands in JSON. The same values are available in JMX.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: RESTMetricsService.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@Path("/webconferencing/metrics")
+@Produces(MediaType.APPLICATION_JSON)
+public class RESTMetricsService implements ResourceContainer {
+
+  /** The Constant LOG. */
+  protected static final Log                   LOG = ExoLogger.getLogger(RESTMetricsService.class);
+
+  /** The call metrics. */
+  protected final CallMetricsService           metrics;
+
+  /** The web conferencing. */
+  protected final WebConferencingService       webConferencing;
+
+  /** The CometD service. */
+  protected final CometdWebConferencingService cometdService;
+
+  /** The cache control. */
+  private final CacheControl                   cacheControl;
+
+  /**
+   * Instantiates a new REST service for metrics.
+   *
+   * @param metrics the metrics
+   * @param webConferencing the web conferencing
+   * @param cometdService the CometD service
+   */
+  public RESTMetricsService(CallMetricsService metrics,
+                            WebConferencingService webConferencing,
+                            CometdWebConferencingService cometdService) {
+    this.metrics = metrics;
+    this.webConferencing = webConferencing;
+    this.cometdService = cometdService;
+    this.cacheControl = new CacheControl();
+    cacheControl.setNoCache(true);
+    cacheControl.setNoStore(true);
+  }
+
+  /**
+   * Gets the metrics.
+   *
+   * @param uriInfo the uri info
+   * @return the metrics response
+   */
+  @GET
+  @RolesAllowed("administrators")
+  public Response getMetrics(@Context UriInfo uriInfo) {
+    try {
+      JSONObject operations = new JSONObject();
+      for (CallMetricsService.OperationMetrics m : metrics.getOperations().values()) {
+        JSONObject op = histogramJSON(m.getTotal());
+        op.put("service", histogramJSON(m.getService()));
+        op.put("storage", histogramJSON(m.getStorage()));
+        operations.put(m.getName(), op);
+      }
+
+      JSONObject commands = histogramJSON(cometdService.getCallCommandsTime());
+      commands.put("queueDepth", cometdService.getCallCommandsQueueDepth());
+      commands.put("active", cometdService.getCallCommandsActive());
+      commands.put("averageWait", cometdService.getCallCommandsAverageWaitTime());
+      commands.put("maxWait", cometdService.getCallCommandsMaxWaitTime());
+
+      JSONObject users = new JSONObject();
+      users.put("cacheHits", webConferencing.getUserCacheHits());
+      users.put("cacheMisses", webConferencing.getUserCacheMisses());
+
+      JSONObject result = new JSONObject();
+      result.put("operations", operations);
+      result.put("commands", commands);
+      result.put("users", users);
+      return Response.ok().cacheControl(cacheControl).entity(result.toString()).build();
+    } catch (Throwable e) {
+      LOG.error("Error reading metrics", e);
+      return Response.serverError()
+                     .cacheControl(cacheControl)
+                     .entity(ErrorInfo.serverError("Error reading metrics"))
+                     .build();
+    }
+  }
+
+  /**
+   * Reset the call operations metrics.
+   *
+   * @param uriInfo the uri info
+   * @return the response
+   */
+  @DELETE
+  @RolesAllowed("administrators")
+  public Response resetMetrics(@Context UriInfo uriInfo) {
+    metrics.reset();
+    return Response.noContent().cacheControl(cacheControl).build();
+  }
+
+  /**
+   * Histogram as JSON. Times in milliseconds.
+   *
+   * @param histogram the histogram
+   * @return the JSON object
+   * @throws JSONException if JSON error happen
+   */
+  protected JSONObject histogramJSON(LatencyHistogram histogram) throws JSONException {
+    JSONObject json = new JSONObject();
+    json.put("count", histogram.getCount());
+    json.put("mean", histogram.getMean());
+    json.put("p50", histogram.getPercentile(50));
+    json.put("p90", histogram.getPercentile(90));
+    json.put("p99", histogram.getPercentile(99));
+    json.put("max", histogram.getMax());
+    return json;
+  }
+}
@@ -18,6 +18,12 @@
  */
 package org.exoplatform.webconferencing.rest;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.security.RolesAllowed;
@@ -33,6 +39,12 @@ import org.exoplatform.services.security.ConversationState;
 import org.exoplatform.webconferencing.*;
 import org.exoplatform.webconferencing.client.ErrorInfo;
 import org.exoplatform.webconferencing.dao.StorageException;
+import org.exoplatform.webconferencing.support.CallLogService;
+import org.exoplatform.webconferencing.support.LogRecord;
+import org.exoplatform.ws.frameworks.json.impl.JsonException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 /**
  * Created by The eXo Platform SAS.
@@ -53,6 +65,9 @@ public class RESTWebConferencingService implements ResourceContainer {
   /** The web conferencing. */
   protected final WebConferencingService webConferencing;
 
+  /** The call logs. */
+  protected final CallLogService         callLogs;
+
   /** The cache control. */
   private final CacheControl             cacheControl;
 
@@ -60,9 +75,11 @@ public class RESTWebConferencingService implements ResourceContainer {
    * Instantiates a new REST service for web conferencing.
    *
    * @param webConferencing the web conferencing
+   * @param callLogs the call logs
    */
-  public RESTWebConferencingService(WebConferencingService webConferencing) {
+  public RESTWebConferencingService(WebConferencingService webConferencing, CallLogService callLogs) {
     this.webConferencing = webConferencing;
+    this.callLogs = callLogs;
     this.cacheControl = new CacheControl();
     cacheControl.setNoCache(true);
     cacheControl.setNoStore(true);
@@ -211,7 +228,7 @@ public class RESTWebConferencingService implements ResourceContainer {
         try {
           UserInfo user = webConferencing.getUserInfo(userName);
           if (user != null) {
-            return Response.ok().cacheControl(cacheControl).entity(user).build();
+            return Response.ok().cacheControl(cacheControl).entity(jsonEntity(user)).build();
           } else {
             return Response.status(Status.NOT_FOUND)
                            .cacheControl(cacheControl)
@@ -259,8 +276,8 @@ public class RESTWebConferencingService implements ResourceContainer {
         try {
           GroupInfo space = webConferencing.getSpaceInfo(spaceName);
           if (space != null) {
-            if (space.getMembers().containsKey(currentUserName)) {
-              return Response.ok().cacheControl(cacheControl).entity(space).build();
+            if (space.hasMember(currentUserName)) {
+              return Response.ok().cacheControl(cacheControl).entity(jsonEntity(space)).build();
             } else {
               return Response.status(Status.FORBIDDEN)
                              .cacheControl(cacheControl)
@@ -331,8 +348,8 @@ public class RESTWebConferencingService implements ResourceContainer {
             try {
               GroupInfo room = webConferencing.getRoomInfo(roomId, roomTitle, roomMembers.trim().split(";"));
               if (room != null) {
-                if (room.getMembers().containsKey(currentUserName)) {
-                  return Response.ok().cacheControl(cacheControl).entity(room).build();
+                if (room.hasMember(currentUserName)) {
+                  return Response.ok().cacheControl(cacheControl).entity(jsonEntity(room)).build();
                 } else {
                   return Response.status(Status.FORBIDDEN)
                                  .cacheControl(cacheControl)
@@ -390,4 +407,169 @@ public class RESTWebConferencingService implements ResourceContainer {
                      .build();
     }
   }
+
+  /**
+   * Log a batch of client records. Request body is a JSON object with <code>clientId</code> and
+   * <code>records</code> array, each record has <code>level</code>, <code>timestamp</code>,
+   * <code>provider</code>, <code>prefix</code>, optional <code>callId</code> and <code>data</code> (a message
+   * string or object with <code>message</code>). Not valid records will be skipped and counted in the response as rejected.
+   *
+   * @param uriInfo the uri info
+   * @param body the request body
+   * @return the response with accepted and rejected records count
+   */
+  @POST
+  @RolesAllowed("users")
+  @Path("/logs")
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Response postLogs(@Context UriInfo uriInfo, String body) {
+    ConversationState convo = ConversationState.getCurrent();
+    if (convo != null) {
+      String currentUserName = convo.getIdentity().getUserId();
+      JSONArray records;
+      String clientId;
+      try {
+        JSONObject request = new JSONObject(body);
+        clientId = request.optString("clientId", null);
+        records = request.getJSONArray("records");
+      } catch (JSONException e) {
+        return Response.status(Status.BAD_REQUEST)
+                       .cacheControl(cacheControl)
+                       .entity(ErrorInfo.clientError("Wrong request parameters: records"))
+                       .build();
+      }
+      if (records.length() <= CallLogService.RECORDS_BATCH_SIZE) {
+        try {
+          List<LogRecord> valid = new ArrayList<>(records.length());
+          for (int i = 0; i < records.length(); i++) {
+            JSONObject r = records.optJSONObject(i);
+            if (r != null) {
+              Object data = r.opt("data");
+              if (data instanceof JSONObject) {
+                data = JSONObject.class.cast(data).opt("message");
+              }
+              try {
+                valid.add(callLogs.createRecord(currentUserName,
+                                                clientId,
+                                                r.optString("callId", null),
+                                                r.optString("level", null),
+                                                r.optString("timestamp", null),
+                                                r.optString("provider", null),
+                                                r.optString("prefix", null),
+                                                data == JSONObject.NULL ? null : data));
+              } catch (IllegalArgumentException e) {
+                // skip it, will be counted as rejected
+              }
+            }
+          }
+          callLogs.log(valid);
+          JSONObject result = new JSONObject();
+          result.put("accepted", valid.size());
+          result.put("rejected", records.length() - valid.size());
+          return Response.ok().cacheControl(cacheControl).entity(result.toString()).build();
+        } catch (Throwable e) {
+          LOG.error("Error logging client records of '" + currentUserName + "'", e);
+          return Response.serverError()
+                         .cacheControl(cacheControl)
+                         .entity(ErrorInfo.serverError("Error logging client records"))
+                         .build();
+        }
+      } else {
+        return Response.status(Status.BAD_REQUEST)
+                       .cacheControl(cacheControl)
+                       .entity(ErrorInfo.clientError("Too many records, max " + CallLogService.RECORDS_BATCH_SIZE
+                           + " accepted"))
+                       .build();
+      }
+    } else {
+      return Response.status(Status.UNAUTHORIZED)
+                     .cacheControl(cacheControl)
+                     .entity(ErrorInfo.accessError("Unauthorized user"))
+                     .build();
+    }
+  }
+
+  /**
+   * Find saved client records of a user and/or a call. Available when call logs sink enabled.
+   *
+   * @param uriInfo the uri info
+   * @param userId the user id, optional if call ID given
+   * @param callId the call id, optional if user ID given
+   * @param limit the max number of latest records, optional
+   * @return the response with found records
+   */
+  @GET
+  @RolesAllowed("administrators")
+  @Path("/logs")
+  public Response getLogs(@Context UriInfo uriInfo,
+                          @QueryParam("user") String userId,
+                          @QueryParam("call") String callId,
+                          @QueryParam("limit") Integer limit) {
+    ConversationState convo = ConversationState.getCurrent();
+    if (convo != null) {
+      String currentUserName = convo.getIdentity().getUserId();
+      if (!callLogs.isSinkEnabled()) {
+        return Response.status(Status.NOT_FOUND)
+                       .cacheControl(cacheControl)
+                       .entity(ErrorInfo.notFoundError("Call logs not saved"))
+                       .build();
+      }
+      if ((userId == null || userId.length() == 0) && (callId == null || callId.length() == 0)) {
+        return Response.status(Status.BAD_REQUEST)
+                       .cacheControl(cacheControl)
+                       .entity(ErrorInfo.clientError("Wrong request parameters: user or call required"))
+                       .build();
+      }
+      try {
+        List<LogRecord> records = callLogs.findRecords(userId != null && userId.length() > 0 ? userId : null,
+                                                       callId != null && callId.length() > 0 ? callId : null,
+                                                       limit != null && limit > 0 ? limit
+                                                                                  : CallLogService.RECORDS_FIND_LIMIT);
+        JSONArray result = new JSONArray();
+        for (LogRecord r : records) {
+          JSONObject json = new JSONObject();
+          json.put("timestamp", r.getTimestampText());
+          json.put("level", r.getLevel());
+          json.put("userId", r.getUserId());
+          json.put("clientId", r.getClientId());
+          json.put("callId", r.getCallId() != null ? r.getCallId() : JSONObject.NULL);
+          json.put("provider", r.getProvider() != null ? r.getProvider() : JSONObject.NULL);
+          json.put("prefix", r.getPrefix() != null ? r.getPrefix() : JSONObject.NULL);
+          json.put("message", r.getMessage());
+          result.put(json);
+        }
+        return Response.ok().cacheControl(cacheControl).entity(result.toString()).build();
+      } catch (Throwable e) {
+        LOG.error("Error reading client records by '" + currentUserName + "'", e);
+        return Response.serverError()
+                       .cacheControl(cacheControl)
+                       .entity(ErrorInfo.serverError("Error reading client records"))
+                       .build();
+      }
+    } else {
+      return Response.status(Status.UNAUTHORIZED)
+                     .cacheControl(cacheControl)
+                     .entity(ErrorInfo.accessError("Unauthorized user"))
+                     .build();
+    }
+  }
+
+  /**
+   * Response entity writing given object JSON directly to the response stream, without building an
+   * intermediate JSON object or string.
+   *
+   * @param obj the object
+   * @return the streaming output
+   */
+  protected StreamingOutput jsonEntity(Object obj) {
+    return out -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      try {
+        Utils.writeJSON(obj, writer);
+      } catch (JsonException e) {
+        throw new WebApplicationException(e);
+      }
+      writer.flush();
+    };
+  }
 }
@@ -21,12 +21,12 @@ package org.exoplatform.webconferencing.support;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
@@ -82,6 +82,30 @@ public class CallLog {
   /** How long to wait between checks in flush thread. */
   public static final int    MESSAGES_BUFFER_WAIT_MILLIS       = 20000;
 
+  /** Messages buffer capacity, messages coming to the full buffer will be dropped. */
+  public static final int    MESSAGES_BUFFER_CAPACITY          = 1024 * 8;
+
+  /** Messages buffer size after which debug and trace messages will be sampled. */
+  public static final int    MESSAGES_BUFFER_SAMPLING_SIZE     = MESSAGES_BUFFER_CAPACITY / 2;
+
+  /** Only each Nth of debug and trace messages accepted when the buffer is filled over the sampling size. */
+  public static final int    MESSAGES_SAMPLING_RATE            = 10;
+
+  /** The Constant LEVEL_TRACE. */
+  protected static final int LEVEL_TRACE                       = 0;
+
+  /** The Constant LEVEL_DEBUG. */
+  protected static final int LEVEL_DEBUG                       = 1;
+
+  /** The Constant LEVEL_INFO. */
+  protected static final int LEVEL_INFO                        = 2;
+
+  /** The Constant LEVEL_WARN. */
+  protected static final int LEVEL_WARN                        = 3;
+
+  /** The Constant LEVEL_ERROR. */
+  protected static final int LEVEL_ERROR                       = 4;
+
   /**
    * Validate a message by cutting it if it is longer of {@value #MESSAGE_CRITICAL_LENGTH} bytes.
    *
@@ -113,60 +137,81 @@ public class CallLog {
     return msg;
   }
 
-  abstract class Message implements Comparable<Message> {
+  /**
+   * Slot of the messages ring buffer. Slots preallocated and reused for new messages.
+   */
+  static class Slot {
 
-    private final LocalDateTime timestamp;
+    /** The level. */
+    int           level;
 
-    /**
-     * Instantiates a new message with current time as timestamp.
-     */
-    Message() {
-      timestamp = LocalDateTime.now();
-    }
+    /** The message. */
+    String        msg;
+
+    /** The timestamp. */
+    LocalDateTime timestamp;
 
     /**
-     * Instantiates a new message with given timestamp, if <code>null</code> given then current time will be
-     * used.
+     * Copy other slot to this one.
      *
-     * @param timestamp the timestamp
+     * @param other the other
      */
-    Message(LocalDateTime timestamp) {
-      if (timestamp == null) {
-        timestamp = LocalDateTime.now();
-      }
-      this.timestamp = timestamp;
+    void copy(Slot other) {
+      this.level = other.level;
+      this.msg = other.msg;
+      this.timestamp = other.timestamp;
     }
+  }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public int compareTo(Message o) {
-      return this.getTimestamp().compareTo(o.getTimestamp());
-    }
+  /** The messages ring buffer (preallocated), guarded by {@link #lock}. */
+  private final Slot[]        ring            = newSlots(MESSAGES_BUFFER_CAPACITY);
 
-    /**
-     * Gets the message timestamp.
-     *
-     * @return the timestamp
-     */
-    LocalDateTime getTimestamp() {
-      return timestamp;
-    }
+  /** The messages batch of the consumer (preallocated), guarded by itself. */
+  private final Slot[]        batch           = newSlots(MESSAGES_BUFFER_CAPACITY);
 
-    /**
-     * Write message to the log.
-     */
-    abstract void log();
-  }
+  /** The lock of the ring buffer. */
+  private final ReentrantLock lock            = new ReentrantLock();
+
+  /** The condition signaled when the buffer has enough messages to flush. */
+  private final Condition     flushReady      = lock.newCondition();
+
+  /** The index of first message in the ring buffer, guarded by {@link #lock}. */
+  private int                 head;
+
+  /** The number of messages in the ring buffer, guarded by {@link #lock}. */
+  private int                 size;
+
+  /** The sampling counter of low-level messages under overload, guarded by {@link #lock}. */
+  private int                 sampleCounter;
+
+  /** The accepted messages count. */
+  private final AtomicLong    accepted        = new AtomicLong();
+
+  /** The dropped messages count. */
+  private final AtomicLong    dropped         = new AtomicLong();
+
+  /** The flushed messages count. */
+  private final AtomicLong    flushed         = new AtomicLong();
+
+  /** The dropped messages count already reported to the log. */
+  private long                droppedLogged;
+
+  /** The consumer started flag. */
+  private final AtomicBoolean consumerStarted = new AtomicBoolean();
 
   /**
-   * The log messages buffer.
+   * Create new slots.
+   *
+   * @param size the size
+   * @return the slot[]
    */
-  private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
-
-  /** The flusher for messages queue. */
-  private Map<Boolean, Thread> flusher  = new ConcurrentHashMap<>(1);
+  private static Slot[] newSlots(int size) {
+    Slot[] slots = new Slot[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Slot();
+    }
+    return slots;
+  }
 
   /**
    * Instantiates a new call log (for internal use).
@@ -190,16 +235,7 @@ public class CallLog {
    */
   public void info(String msg) {
     if (LOG.isInfoEnabled()) {
-      messages.add(new Message() {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.info(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_INFO, msg, null);
     }
   }
 
@@ -211,16 +247,7 @@ public class CallLog {
    */
   public void info(String msg, LocalDateTime timestamp) {
     if (LOG.isInfoEnabled()) {
-      messages.add(new Message(timestamp) {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.info(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_INFO, msg, timestamp);
     }
   }
 
@@ -231,16 +258,7 @@ public class CallLog {
    */
   public void warn(String msg) {
     if (LOG.isWarnEnabled()) {
-      messages.add(new Message() {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.warn(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_WARN, msg, null);
     }
   }
 
@@ -252,16 +270,7 @@ public class CallLog {
    */
   public void warn(String msg, LocalDateTime timestamp) {
     if (LOG.isWarnEnabled()) {
-      messages.add(new Message(timestamp) {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.warn(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_WARN, msg, timestamp);
     }
   }
 
@@ -272,16 +281,7 @@ public class CallLog {
    */
   public void error(String msg) {
     if (LOG.isErrorEnabled()) {
-      messages.add(new Message() {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.error(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_ERROR, msg, null);
     }
   }
 
@@ -293,16 +293,7 @@ public class CallLog {
    */
   public void error(String msg, LocalDateTime timestamp) {
     if (LOG.isErrorEnabled()) {
-      messages.add(new Message(timestamp) {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.error(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_ERROR, msg, timestamp);
     }
   }
 
@@ -313,16 +304,7 @@ public class CallLog {
    */
   public void debug(String msg) {
     if (LOG.isDebugEnabled()) {
-      messages.add(new Message() {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.debug(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_DEBUG, msg, null);
     }
   }
 
@@ -334,16 +316,7 @@ public class CallLog {
    */
   public void debug(String msg, LocalDateTime timestamp) {
     if (LOG.isDebugEnabled()) {
-      messages.add(new Message(timestamp) {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.debug(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_DEBUG, msg, timestamp);
     }
   }
 
@@ -354,16 +327,7 @@ public class CallLog {
    */
   public void trace(String msg) {
     if (LOG.isTraceEnabled()) {
-      messages.add(new Message() {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.trace(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_TRACE, msg, null);
     }
   }
 
@@ -375,19 +339,37 @@ public class CallLog {
    */
   public void trace(String msg, LocalDateTime timestamp) {
     if (LOG.isTraceEnabled()) {
-      messages.add(new Message(timestamp) {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        void log() {
-          LOG.trace(validateFinal(msg));
-        }
-      });
-      flush();
+      add(LEVEL_TRACE, msg, timestamp);
     }
   }
 
+  /**
+   * Gets the accepted messages count.
+   *
+   * @return the accepted
+   */
+  public long getAccepted() {
+    return accepted.get();
+  }
+
+  /**
+   * Gets the dropped (on overload) messages count.
+   *
+   * @return the dropped
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Gets the messages count flushed to the log.
+   *
+   * @return the flushed
+   */
+  public long getFlushed() {
+    return flushed.get();
+  }
+
   // ********** Internals **********
 
   /**
@@ -403,44 +385,124 @@ public class CallLog {
     return msg;
   }
 
+  /**
+   * Add a message to the buffer. If the buffer is full, the message will be dropped. If the buffer is filled
+   * over {@value #MESSAGES_BUFFER_SAMPLING_SIZE} messages, only each {@value #MESSAGES_SAMPLING_RATE}th
+   * message of debug and trace levels will be accepted.
+   *
+   * @param level the level
+   * @param msg the msg
+   * @param timestamp the timestamp, if <code>null</code> then current time will be used
+   */
+  private void add(int level, String msg, LocalDateTime timestamp) {
+    if (timestamp == null) {
+      timestamp = LocalDateTime.now();
+    }
+    lock.lock();
+    try {
+      if (size == ring.length) {
+        dropped.incrementAndGet();
+        return;
+      }
+      if (size >= MESSAGES_BUFFER_SAMPLING_SIZE && level <= LEVEL_DEBUG && (sampleCounter++ % MESSAGES_SAMPLING_RATE) != 0) {
+        dropped.incrementAndGet();
+        return;
+      }
+      Slot slot = ring[(head + size) % ring.length];
+      slot.level = level;
+      slot.msg = msg;
+      slot.timestamp = timestamp;
+      size++;
+      accepted.incrementAndGet();
+      if (size > MESSAGES_BUFFER_MAX_SIZE) {
+        flushReady.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (!consumerStarted.get() && consumerStarted.compareAndSet(false, true)) {
+      startConsumer();
+    }
+  }
+
   /**
    * Flush all messages from the buffer (but first sort them in timestamp order). It's thread-safe operation.
    */
   private void flushAll() {
-    // Flush buffer to real log: we take available messages only
-    int buffLen = messages.size();
-    if (buffLen > 0) {
-      List<Message> buff = new ArrayList<>(buffLen);
-      do {
-        Message m = messages.poll(); // this removes the message from the queue
-        if (m != null) {
-          buff.add(m);
-          buffLen--;
-        } else {
-          break;
+    synchronized (batch) {
+      // Take available messages only
+      int batchLen;
+      lock.lock();
+      try {
+        batchLen = size;
+        for (int i = 0; i < batchLen; i++) {
+          Slot slot = ring[(head + i) % ring.length];
+          batch[i].copy(slot);
+          slot.msg = null;
+          slot.timestamp = null;
         }
-      } while (buffLen > 0);
-      // sort messages (rely on Comparable of Message) and log them
-      buff.stream().sorted().forEach(m -> {
-        m.log();
-      });
+        head = (head + batchLen) % ring.length;
+        size = 0;
+      } finally {
+        lock.unlock();
+      }
+      if (batchLen > 0) {
+        // Sort messages in time order and log them
+        Arrays.sort(batch, 0, batchLen, (m1, m2) -> m1.timestamp.compareTo(m2.timestamp));
+        for (int i = 0; i < batchLen; i++) {
+          Slot m = batch[i];
+          log(m.level, validateFinal(m.msg));
+          m.msg = null;
+          m.timestamp = null;
+        }
+        flushed.addAndGet(batchLen);
+      }
+      long droppedNow = dropped.get();
+      if (droppedNow > droppedLogged) {
+        LOG.warn("Call log overloaded, dropped " + (droppedNow - droppedLogged) + " messages (" + droppedNow + " in total)");
+        droppedLogged = droppedNow;
+      }
     }
   }
 
   /**
-   * Check if need wait for messages buffer, or can flush it to server log.
+   * Write the message to the log.
+   *
+   * @param level the level
+   * @param msg the msg
+   */
+  private void log(int level, String msg) {
+    switch (level) {
+    case LEVEL_TRACE:
+      LOG.trace(msg);
+      break;
+    case LEVEL_DEBUG:
+      LOG.debug(msg);
+      break;
+    case LEVEL_INFO:
+      LOG.info(msg);
+      break;
+    case LEVEL_WARN:
+      LOG.warn(msg);
+      break;
+    default:
+      LOG.error(msg);
+    }
+  }
+
+  /**
+   * Check if need wait for messages buffer, or can flush it to server log. Should be called under the lock.
    *
    * @return true, if successful
    */
   private boolean waitForMessages() {
-    if (messages.size() > MESSAGES_BUFFER_MAX_SIZE) {
+    if (size > MESSAGES_BUFFER_MAX_SIZE) {
       // If have more than MESSAGES_BUFFER_MAX_SIZE messages, then can flush
       return false;
     }
-    Message m = messages.peek();
-    if (m != null && m.getTimestamp()
-                      .isBefore(LocalDateTime.now(ZoneOffset.UTC).minus(MESSAGES_BUFFER_EXPIRATION_MILLIS, ChronoUnit.MILLIS))) {
-      // If first message in the queue is older of MESSAGES_BUFFER_EXPIRATION_MILLIS, then can flush
+    LocalDateTime expired = LocalDateTime.now(ZoneOffset.UTC).minus(MESSAGES_BUFFER_EXPIRATION_MILLIS, ChronoUnit.MILLIS);
+    if (size > 0 && ring[head].timestamp.isBefore(expired)) {
+      // If first message in the buffer is older of MESSAGES_BUFFER_EXPIRATION_MILLIS, then can flush
       return false;
     }
     // Otherwise wait
@@ -448,48 +510,39 @@ public class CallLog {
   }
 
   /**
-   * Create new flush thread.
-   *
-   * @return the thread
+   * Start the consumer thread: it will flush the buffer to the log when enough messages gathered or they
+   * are waiting too long.
    */
-  private Thread newFlushThread() {
+  private void startConsumer() {
     Thread t = new Thread(CallLog.class.getName() + "-flusher") {
       /**
        * {@inheritDoc}
        */
       @Override
       public void run() {
-        do {
+        while (!isInterrupted()) {
           try {
-            Thread.sleep(MESSAGES_BUFFER_WAIT_MILLIS);
+            lock.lock();
+            try {
+              flushReady.await(MESSAGES_BUFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+              if (waitForMessages()) {
+                continue;
+              }
+            } finally {
+              lock.unlock();
+            }
+            flushAll();
           } catch (InterruptedException e) {
-            LOG.warn("Error sleeping in flusher thread: " + e.getMessage());
+            interrupt();
+          } catch (Throwable e) {
+            LOG.error("Error flushing messages to log", e);
           }
-        } while (waitForMessages());
-        try {
-          flusher.remove(Boolean.TRUE, this);
-          flushAll();
-        } catch (Throwable e) {
-          LOG.error("Error flushing messages to log", e);
         }
+        flushAll();
       }
     };
-    t.setDaemon(false);
+    t.setDaemon(true);
     t.start();
-    return t;
-  }
-
-  /**
-   * Flush available log messages to server log (messages will be sorted timestamp order).
-   *
-   */
-  private void flush() {
-    flusher.compute(Boolean.TRUE, (k, t) -> {
-      if (t == null || !t.isAlive()) {
-        return newFlushThread();
-      }
-      return t;
-    });
   }
 
 }
@@ -0,0 +1,511 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment file of call logs: records appended to a memory-mapped file of fixed size, each record has
+ * its length in front, zero length marks the end of records. Record offsets indexed by user and call ID,
+ * the index saved in a sidecar file when the segment is closed. Segments not closed properly (e.g. on a
+ * crash) will be indexed by reading their records. Existing segments opened for reading aren't mapped,
+ * their records read through a file channel, it should be released by {@link #close()}.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallLogSegment.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class CallLogSegment {
+
+  /** The Constant SEGMENT_PREFIX. */
+  public static final String                 SEGMENT_PREFIX = "calllog-";
+
+  /** The Constant SEGMENT_EXT. */
+  public static final String                 SEGMENT_EXT    = ".seg";
+
+  /** The Constant INDEX_EXT. */
+  public static final String                 INDEX_EXT      = ".idx";
+
+  /** The Constant INDEX_USER. */
+  protected static final byte                INDEX_USER     = 1;
+
+  /** The Constant INDEX_CALL. */
+  protected static final byte                INDEX_CALL     = 2;
+
+  /** The segment file. */
+  protected final File                       file;
+
+  /** The creation time (in milliseconds). */
+  protected final long                       created;
+
+  /** The buffer of a new segment, <code>null</code> for opened one. */
+  protected final MappedByteBuffer           buffer;
+
+  /** The file channel of an opened segment, <code>null</code> for new one. */
+  protected final FileChannel                channel;
+
+  /** The offsets of records by user. */
+  protected final Map<String, List<Integer>> userIndex = new HashMap<>();
+
+  /** The offsets of records by call. */
+  protected final Map<String, List<Integer>> callIndex = new HashMap<>();
+
+  /** The records end position. */
+  protected int                              position;
+
+  /** The closed flag, closed segment doesn't accept new records. */
+  protected boolean                          closed;
+
+  /**
+   * Create a new segment in given directory.
+   *
+   * @param dir the directory
+   * @param size the segment size in bytes
+   * @return the call log segment
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static CallLogSegment create(File dir, int size) throws IOException {
+    long created = System.currentTimeMillis();
+    File file = new File(dir, SEGMENT_PREFIX + created + SEGMENT_EXT);
+    while (file.exists()) {
+      created++;
+      file = new File(dir, SEGMENT_PREFIX + created + SEGMENT_EXT);
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(size);
+      MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      return new CallLogSegment(file, created, buffer, null, false);
+    }
+  }
+
+  /**
+   * Open existing segment for reading. The segment will keep its file open until {@link #close()}.
+   *
+   * @param file the segment file
+   * @return the call log segment
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static CallLogSegment open(File file) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      CallLogSegment segment = new CallLogSegment(file, createdTime(file), null, channel, true);
+      segment.loadIndex();
+      return segment;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get creation time of segment from its file name.
+   *
+   * @param file the file
+   * @return the time in milliseconds or 0 if not a segment file
+   */
+  public static long createdTime(File file) {
+    String name = file.getName();
+    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXT)) {
+      try {
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXT.length()));
+      } catch (NumberFormatException e) {
+        // not a segment
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Instantiates a new call log segment.
+   *
+   * @param file the file
+   * @param created the created
+   * @param buffer the buffer of a new segment
+   * @param channel the channel of an opened segment
+   * @param closed the closed
+   */
+  protected CallLogSegment(File file, long created, MappedByteBuffer buffer, FileChannel channel, boolean closed) {
+    this.file = file;
+    this.created = created;
+    this.buffer = buffer;
+    this.channel = channel;
+    this.closed = closed;
+  }
+
+  /**
+   * Gets the segment file.
+   *
+   * @return the file
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Gets the creation time.
+   *
+   * @return the created time in milliseconds
+   */
+  public long getCreated() {
+    return created;
+  }
+
+  /**
+   * Append a record.
+   *
+   * @param record the record
+   * @return <code>true</code> if appended, <code>false</code> if no space for it in this segment
+   */
+  public synchronized boolean append(LogRecord record) {
+    if (closed) {
+      return false;
+    }
+    byte[][] fields = new byte[][] { bytes(record.getUserId()), bytes(record.getClientId()), bytes(record.getCallId()),
+        bytes(record.getProvider()), bytes(record.getPrefix()), bytes(record.getLevel()), bytes(record.getMessage()) };
+    int len = 8; // timestamp
+    for (byte[] f : fields) {
+      len += 4 + (f != null ? f.length : 0);
+    }
+    // record length, record and space for the end marker
+    if (position + 4 + len + 4 > buffer.capacity()) {
+      return false;
+    }
+    int offset = position;
+    LocalDateTime timestamp = record.getTimestamp();
+    long time = timestamp != null ? timestamp.toInstant(ZoneOffset.UTC).toEpochMilli() : System.currentTimeMillis();
+    buffer.position(offset + 4);
+    buffer.putLong(time);
+    for (byte[] f : fields) {
+      if (f != null) {
+        buffer.putInt(f.length);
+        buffer.put(f);
+      } else {
+        buffer.putInt(-1);
+      }
+    }
+    position = buffer.position();
+    buffer.putInt(0); // end marker, will be overwritten by next record
+    buffer.putInt(offset, len); // publish the record
+    index(record.getUserId(), record.getCallId(), offset);
+    return true;
+  }
+
+  /**
+   * Find records by user and/or call ID.
+   *
+   * @param userId the user id, can be <code>null</code>
+   * @param callId the call id, can be <code>null</code>
+   * @return the records in order of appending
+   */
+  public synchronized List<LogRecord> find(String userId, String callId) {
+    List<Integer> offsets;
+    if (userId != null) {
+      offsets = userIndex.getOrDefault(userId, Collections.emptyList());
+    } else if (callId != null) {
+      offsets = callIndex.getOrDefault(callId, Collections.emptyList());
+    } else {
+      offsets = Collections.emptyList();
+    }
+    List<LogRecord> records = new ArrayList<>();
+    for (Integer offset : offsets) {
+      LogRecord r = read(offset);
+      if (r != null && (callId == null || callId.equals(r.getCallId()))) {
+        records.add(r);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Close the segment: flush its records to the file and save its index. For opened segment it closes its
+   * file.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      buffer.force();
+      saveIndex();
+    }
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * Delete the segment files.
+   */
+  public void delete() {
+    delete(file);
+  }
+
+  /**
+   * Delete segment and its index files.
+   *
+   * @param segmentFile the segment file
+   */
+  public static void delete(File segmentFile) {
+    segmentFile.delete();
+    indexFile(segmentFile).delete();
+  }
+
+  /**
+   * Index file of a segment.
+   *
+   * @param segmentFile the segment file
+   * @return the file
+   */
+  protected static File indexFile(File segmentFile) {
+    String name = segmentFile.getName();
+    return new File(segmentFile.getParentFile(), name.substring(0, name.length() - SEGMENT_EXT.length()) + INDEX_EXT);
+  }
+
+  /**
+   * Read a record at given offset.
+   *
+   * @param offset the offset
+   * @return the log record or <code>null</code> if no record there
+   */
+  protected LogRecord read(int offset) {
+    try {
+      ByteBuffer buf = record(offset);
+      return buf != null ? read(buf) : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Buffer of a record at given offset: its remaining bytes are the record without the length.
+   *
+   * @param offset the offset
+   * @return the buffer or <code>null</code> if no record there
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected ByteBuffer record(int offset) throws IOException {
+    if (channel != null) {
+      ByteBuffer lenBuf = ByteBuffer.allocate(4);
+      if (!readFully(lenBuf, offset)) {
+        return null;
+      }
+      int len = lenBuf.getInt(0);
+      if (len <= 0 || offset + 4L + len > channel.size()) {
+        return null;
+      }
+      ByteBuffer buf = ByteBuffer.allocate(len);
+      if (!readFully(buf, offset + 4)) {
+        return null;
+      }
+      buf.flip();
+      return buf;
+    }
+    ByteBuffer buf = buffer.duplicate();
+    if (offset < 0 || offset + 4 > buf.limit()) {
+      return null;
+    }
+    int len = buf.getInt(offset);
+    if (len <= 0 || offset + 4 + len > buf.limit()) {
+      return null;
+    }
+    buf.limit(offset + 4 + len);
+    buf.position(offset + 4);
+    return buf;
+  }
+
+  /**
+   * Read the channel to fill the buffer.
+   *
+   * @param buf the buffer
+   * @param position the file position
+   * @return <code>true</code> if buffer filled, <code>false</code> if end of file reached before
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private boolean readFully(ByteBuffer buf, long position) throws IOException {
+    while (buf.hasRemaining()) {
+      int read = channel.read(buf, position);
+      if (read < 0) {
+        return false;
+      }
+      position += read;
+    }
+    return true;
+  }
+
+  /**
+   * Read a record from its buffer.
+   *
+   * @param buf the record buffer
+   * @return the log record or <code>null</code> if it's not a valid record
+   */
+  protected LogRecord read(ByteBuffer buf) {
+    try {
+      long time = buf.getLong();
+      String userId = string(buf);
+      String clientId = string(buf);
+      String callId = string(buf);
+      String provider = string(buf);
+      String prefix = string(buf);
+      String level = string(buf);
+      String message = string(buf);
+      LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC);
+      return new LogRecord(userId, clientId, callId, provider, prefix, level, timestamp.toString(), timestamp, message);
+    } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Add record offset to the index.
+   *
+   * @param userId the user id
+   * @param callId the call id
+   * @param offset the offset
+   */
+  protected void index(String userId, String callId, int offset) {
+    if (userId != null) {
+      userIndex.computeIfAbsent(userId, k -> new ArrayList<>()).add(offset);
+    }
+    if (callId != null) {
+      callIndex.computeIfAbsent(callId, k -> new ArrayList<>()).add(offset);
+    }
+  }
+
+  /**
+   * Load the index from sidecar file or build it by reading the records.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected void loadIndex() throws IOException {
+    File indexFile = indexFile(file);
+    if (indexFile.exists()) {
+      try (DataInputStream in = new DataInputStream(new FileInputStream(indexFile))) {
+        position = in.readInt();
+        int keys = in.readInt();
+        for (int k = 0; k < keys; k++) {
+          byte type = in.readByte();
+          String key = in.readUTF();
+          int count = in.readInt();
+          List<Integer> offsets = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            offsets.add(in.readInt());
+          }
+          (type == INDEX_USER ? userIndex : callIndex).put(key, offsets);
+        }
+        return;
+      } catch (IOException e) {
+        userIndex.clear();
+        callIndex.clear();
+      }
+    }
+    // Index not saved: read the records
+    int offset = 0;
+    ByteBuffer buf;
+    while ((buf = record(offset)) != null) {
+      int len = buf.remaining();
+      LogRecord r = read(buf);
+      if (r == null) {
+        break;
+      }
+      index(r.getUserId(), r.getCallId(), offset);
+      offset += 4 + len;
+    }
+    position = offset;
+  }
+
+  /**
+   * Save the index to sidecar file.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected void saveIndex() throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(indexFile(file)))) {
+      out.writeInt(position);
+      out.writeInt(userIndex.size() + callIndex.size());
+      writeIndex(out, INDEX_USER, userIndex);
+      writeIndex(out, INDEX_CALL, callIndex);
+    }
+  }
+
+  /**
+   * Write index entries.
+   *
+   * @param out the out
+   * @param type the type
+   * @param index the index
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void writeIndex(DataOutputStream out, byte type, Map<String, List<Integer>> index) throws IOException {
+    for (Map.Entry<String, List<Integer>> e : index.entrySet()) {
+      out.writeByte(type);
+      out.writeUTF(e.getKey());
+      out.writeInt(e.getValue().size());
+      for (Integer offset : e.getValue()) {
+        out.writeInt(offset);
+      }
+    }
+  }
+
+  /**
+   * Get UTF-8 bytes of a string.
+   *
+   * @param str the str
+   * @return the bytes or <code>null</code>
+   */
+  private static byte[] bytes(String str) {
+    return str != null ? str.getBytes(StandardCharsets.UTF_8) : null;
+  }
+
+  /**
+   * Read a string from the buffer.
+   *
+   * @param buf the buf
+   * @return the string
+   */
+  private static String string(ByteBuffer buf) {
+    int len = buf.getInt();
+    if (len < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[len];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
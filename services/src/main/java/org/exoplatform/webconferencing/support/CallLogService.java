@@ -18,21 +18,140 @@
  */
 package org.exoplatform.webconferencing.support;
 
+import static org.exoplatform.webconferencing.WebConferencingService.isValidArg;
+import static org.exoplatform.webconferencing.WebConferencingService.isValidId;
+import static org.exoplatform.webconferencing.WebConferencingService.isValidText;
+import static org.exoplatform.webconferencing.support.CallLog.DEBUG_LEVEL;
+import static org.exoplatform.webconferencing.support.CallLog.ERROR_LEVEL;
+import static org.exoplatform.webconferencing.support.CallLog.INFO_LEVEL;
+import static org.exoplatform.webconferencing.support.CallLog.TRACE_LEVEL;
+import static org.exoplatform.webconferencing.support.CallLog.WARN_LEVEL;
+import static org.exoplatform.webconferencing.support.CallLog.validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.exoplatform.commons.utils.PropertyManager;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.picocontainer.Startable;
+
 /**
  * Created by The eXo Platform SAS.
  *
  * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
  * @version $Id: CallLogService.java 00000 Dec 20, 2017 pnedonosko $
  */
-public class CallLogService {
+public class CallLogService implements Startable {
+
+  /** The Constant LOG. */
+  protected static final Log   LOG                         = ExoLogger.getLogger(CallLogService.class);
+
+  /** Max number of records accepted in a single batch. */
+  public static final int      RECORDS_BATCH_SIZE          = 500;
+
+  /** Max number of records returned by a search. */
+  public static final int      RECORDS_FIND_LIMIT          = 5000;
+
+  /** The Constant SINK_ENABLED_PROPERTY. */
+  public static final String   SINK_ENABLED_PROPERTY       = "webconferencing.calllog.sink.enabled";
+
+  /** The Constant SINK_DIR_PROPERTY. */
+  public static final String   SINK_DIR_PROPERTY           = "webconferencing.calllog.sink.dir";
+
+  /** The Constant SINK_SEGMENT_SIZE_PROPERTY, in megabytes. */
+  public static final String   SINK_SEGMENT_SIZE_PROPERTY  = "webconferencing.calllog.sink.segmentSize";
+
+  /** The Constant SINK_ROLL_INTERVAL_PROPERTY, in hours. */
+  public static final String   SINK_ROLL_INTERVAL_PROPERTY = "webconferencing.calllog.sink.rollInterval";
+
+  /** The Constant SINK_RETENTION_PROPERTY, in days. */
+  public static final String   SINK_RETENTION_PROPERTY     = "webconferencing.calllog.sink.retention";
+
+  /** The Constant SINK_MAX_SEGMENTS_PROPERTY. */
+  public static final String   SINK_MAX_SEGMENTS_PROPERTY  = "webconferencing.calllog.sink.maxSegments";
+
+  /**
+   * The Constant LIMIT_PROPERTY_PREFIX. Rate limit properties are <code>rate</code> (records per second, zero
+   * disables the limit), <code>burst</code> and <code>sampling</code> after this prefix, or after
+   * <code>PREFIX.PROVIDER_TYPE.</code> for a provider own limits.
+   */
+  public static final String   LIMIT_PROPERTY_PREFIX       = "webconferencing.calllog.limit.";
+
+  /** The Constant LIMIT_RATE, default records per second of a client. */
+  public static final int      LIMIT_RATE                  = 20;
+
+  /** The Constant LIMIT_BURST, default max records of a client accepted at once. */
+  public static final int      LIMIT_BURST                 = 200;
+
+  /** The Constant LIMIT_SAMPLING, default sampling rate of debug and trace records. */
+  public static final int      LIMIT_SAMPLING              = 10;
 
   /** The log. */
-  private final CallLog log = new CallLog();
+  private final CallLog        log                         = new CallLog();
+
+  /** The sink of records, <code>null</code> if not enabled. */
+  private CallLogSink          sink;
+
+  /** The rate limiter of client records. */
+  private final LogRateLimiter limiter;
 
   /**
    * Instantiates a new call log service.
    */
   public CallLogService() {
+    LogRateLimiter.Limits defaultLimits = readLimits(LIMIT_PROPERTY_PREFIX,
+                                                     new LogRateLimiter.Limits(LIMIT_RATE, LIMIT_BURST, LIMIT_SAMPLING));
+    this.limiter = new LogRateLimiter(defaultLimits, provider -> {
+      String prefix = LIMIT_PROPERTY_PREFIX + provider + ".";
+      LogRateLimiter.Limits limits = readLimits(prefix, defaultLimits);
+      return limits != defaultLimits ? limits : null;
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() {
+    if (Boolean.parseBoolean(PropertyManager.getProperty(SINK_ENABLED_PROPERTY))) {
+      String dirPath = PropertyManager.getProperty(SINK_DIR_PROPERTY);
+      File dir;
+      if (dirPath != null && dirPath.trim().length() > 0) {
+        dir = new File(dirPath.trim());
+      } else {
+        String dataDir = PropertyManager.getProperty("exo.data.dir");
+        dir = new File(dataDir != null ? dataDir : System.getProperty("java.io.tmpdir"), "webconferencing/calllogs");
+      }
+      long segmentSize = longProperty(SINK_SEGMENT_SIZE_PROPERTY, 16) * 1024 * 1024;
+      try {
+        sink = new CallLogSink(dir,
+                               (int) Math.min(segmentSize, Integer.MAX_VALUE),
+                               TimeUnit.HOURS.toMillis(longProperty(SINK_ROLL_INTERVAL_PROPERTY, 24)),
+                               TimeUnit.DAYS.toMillis(longProperty(SINK_RETENTION_PROPERTY, 7)),
+                               (int) longProperty(SINK_MAX_SEGMENTS_PROPERTY, 100));
+        LOG.info("Call logs will be also saved in " + dir.getAbsolutePath());
+      } catch (IOException e) {
+        LOG.error("Error creating call logs sink in " + dir.getAbsolutePath() + ", call logs will not be saved", e);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stop() {
+    if (sink != null) {
+      sink.close();
+    }
   }
 
   /**
@@ -44,4 +163,222 @@ public class CallLogService {
     return log;
   }
 
+  /**
+   * Create a log record from client data. All the record fields will be validated.
+   *
+   * @param userId the user id
+   * @param clientId the client id
+   * @param callId the call id, can be <code>null</code>
+   * @param level the level, one of <code>trace</code>, <code>debug</code>, <code>info</code>,
+   *          <code>warn</code> or <code>error</code>
+   * @param timestamp the timestamp, date with time and seconds fraction in ISO format and UTC timezone
+   * @param provider the provider, can be <code>null</code>
+   * @param prefix the prefix, can be <code>null</code>
+   * @param data the data, a string message or a map with <code>message</code> entry
+   * @return the log record
+   * @throws IllegalArgumentException if some of record fields not valid, the message will contain the
+   *           field name
+   */
+  @SuppressWarnings("unchecked")
+  public LogRecord createRecord(String userId,
+                                String clientId,
+                                String callId,
+                                String level,
+                                String timestamp,
+                                String provider,
+                                String prefix,
+                                Object data) throws IllegalArgumentException {
+    if (!isValidId(userId)) {
+      throw new IllegalArgumentException("Wrong request parameters: exoId");
+    }
+    if (!isValidArg(clientId)) {
+      throw new IllegalArgumentException("Wrong request parameters: clientId");
+    }
+    if (callId != null && !isValidId(callId)) {
+      throw new IllegalArgumentException("Wrong request parameters: callId");
+    }
+    if (!isValidArg(level) || !isKnownLevel(level)) {
+      throw new IllegalArgumentException("Wrong request parameters: level");
+    }
+    if (!isValidArg(timestamp)) {
+      throw new IllegalArgumentException("Wrong request parameters: timestamp");
+    }
+    if (!isValidText(provider)) {
+      throw new IllegalArgumentException("Wrong request parameters: provider");
+    }
+    if (!isValidText(prefix)) {
+      throw new IllegalArgumentException("Wrong request parameters: prefix");
+    }
+    Object message;
+    if (data == null) {
+      throw new IllegalArgumentException("Not found request parameters: data");
+    } else if (data instanceof Map) {
+      message = ((Map<String, Object>) data).get("message");
+    } else {
+      message = data;
+    }
+    LocalDateTime msgTimestamp;
+    try {
+      msgTimestamp = LocalDateTime.parse(timestamp, DateTimeFormatter.ISO_DATE_TIME);
+    } catch (DateTimeParseException e) {
+      LOG.warn("Error parsing log timestamp '" + timestamp + "'", e);
+      msgTimestamp = null;
+    }
+    return new LogRecord(userId,
+                         clientId,
+                         callId,
+                         provider,
+                         prefix,
+                         level,
+                         timestamp,
+                         msgTimestamp,
+                         validate(message instanceof String ? String.class.cast(message) : null));
+  }
+
+  /**
+   * Log the record.
+   *
+   * @param record the record
+   */
+  public void log(LogRecord record) {
+    int suppressed = limiter.acquire(record);
+    if (suppressed == LogRateLimiter.SUPPRESSED) {
+      return;
+    } else if (suppressed > 0) {
+      log.warn("Suppressed " + suppressed + " records of " + record.getUserId() + "-" + record.getClientId()
+          + (record.getProvider() != null ? " (" + record.getProvider() + ")" : "") + " by rate limit");
+    }
+    String line = record.toLine();
+    String level = record.getLevel();
+    if (ERROR_LEVEL.equals(level)) {
+      log.error(line, record.getTimestamp());
+    } else if (WARN_LEVEL.equals(level)) {
+      log.warn(line, record.getTimestamp());
+    } else if (INFO_LEVEL.equals(level)) {
+      log.info(line, record.getTimestamp());
+    } else if (DEBUG_LEVEL.equals(level)) {
+      log.debug(line, record.getTimestamp());
+    } else if (TRACE_LEVEL.equals(level)) {
+      log.trace(line, record.getTimestamp());
+    } else {
+      log.warn("Received not expected level: " + level);
+      return;
+    }
+    if (sink != null) {
+      sink.write(record);
+    }
+  }
+
+  /**
+   * Log the records.
+   *
+   * @param records the records
+   */
+  public void log(Iterable<LogRecord> records) {
+    for (LogRecord record : records) {
+      log(record);
+    }
+  }
+
+  /**
+   * Checks if call logs saved in the sink and can be found with
+   * {@link #findRecords(String, String, int)}.
+   *
+   * @return true, if is sink enabled
+   */
+  public boolean isSinkEnabled() {
+    return sink != null;
+  }
+
+  /**
+   * Find saved records of given user and/or call. At least one of user or call ID should be given.
+   *
+   * @param userId the user id, can be <code>null</code>
+   * @param callId the call id, can be <code>null</code>
+   * @param limit the max number of records, latest records will be returned
+   * @return the records in order of logging, empty if sink not enabled
+   */
+  public List<LogRecord> findRecords(String userId, String callId, int limit) {
+    if (sink != null) {
+      return sink.find(userId, callId, Math.min(limit, RECORDS_FIND_LIMIT));
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Gets the rate limiter of client records. It can be used to set limits for a provider.
+   *
+   * @return the limiter
+   */
+  public LogRateLimiter getLimiter() {
+    return limiter;
+  }
+
+  /**
+   * Gets the number of client records suppressed by the rate limit.
+   *
+   * @return the suppressed records count
+   */
+  public long getSuppressed() {
+    return limiter.getSuppressed();
+  }
+
+  /**
+   * Read rate limits from configuration properties with given prefix.
+   *
+   * @param prefix the properties prefix
+   * @param defaults the defaults, used for not set properties
+   * @return the limits, or the defaults instance if no properties set
+   */
+  protected LogRateLimiter.Limits readLimits(String prefix, LogRateLimiter.Limits defaults) {
+    String rate = PropertyManager.getProperty(prefix + "rate");
+    String burst = PropertyManager.getProperty(prefix + "burst");
+    String sampling = PropertyManager.getProperty(prefix + "sampling");
+    if (rate == null && burst == null && sampling == null) {
+      return defaults;
+    }
+    try {
+      return new LogRateLimiter.Limits(rate != null ? Double.parseDouble(rate.trim()) : defaults.rate,
+                                       burst != null ? Integer.parseInt(burst.trim()) : (int) defaults.burst,
+                                       sampling != null ? Integer.parseInt(sampling.trim()) : defaults.sampling);
+    } catch (NumberFormatException e) {
+      LOG.warn("Wrong value of " + prefix + "* rate limit properties, will use defaults: " + e.getMessage());
+      return defaults;
+    }
+  }
+
+  /**
+   * Read long value of a configuration property.
+   *
+   * @param name the property name
+   * @param defaultValue the default value
+   * @return the value
+   */
+  protected long longProperty(String name, long defaultValue) {
+    String value = PropertyManager.getProperty(name);
+    if (value != null) {
+      try {
+        long number = Long.parseLong(value.trim());
+        if (number > 0) {
+          return number;
+        }
+      } catch (NumberFormatException e) {
+        // use default
+      }
+      LOG.warn("Wrong value of " + name + ": " + value + ", will use " + defaultValue);
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Checks if is known log level.
+   *
+   * @param level the level
+   * @return true, if is known level
+   */
+  protected boolean isKnownLevel(String level) {
+    return ERROR_LEVEL.equals(level) || WARN_LEVEL.equals(level) || INFO_LEVEL.equals(level) || DEBUG_LEVEL.equals(level)
+        || TRACE_LEVEL.equals(level);
+  }
+
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+/**
+ * Dedicated sink of client call logs: structured records appended to rolling segment files (see
+ * {@link CallLogSegment}) in a directory. A new segment starts when current one is full or older than the
+ * roll interval. Segments older than the retention time, and oldest ones above the max number of segments,
+ * will be deleted. Records can be found by user or call ID using the segment indexes. Older segments opened
+ * for reading are kept open for next searches, until deleted by the retention or the sink closed.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallLogSink.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class CallLogSink {
+
+  /** The Constant LOG. */
+  protected static final Log                LOG     = ExoLogger.getLogger(CallLogSink.class);
+
+  /** The directory. */
+  protected final File                      dir;
+
+  /** The segment size in bytes. */
+  protected final int                       segmentSize;
+
+  /** The roll interval in milliseconds. */
+  protected final long                      rollInterval;
+
+  /** The retention time in milliseconds. */
+  protected final long                      retentionTime;
+
+  /** The max number of segments. */
+  protected final int                       maxSegments;
+
+  /** The current segment, guarded by the sink instance. */
+  protected CallLogSegment                  current;
+
+  /** The older segments opened for reading, guarded by the sink instance. */
+  protected final Map<File, CallLogSegment> readers = new HashMap<>();
+
+  /** The closed flag, guarded by the sink instance. */
+  protected boolean                         closed;
+
+  /**
+   * Instantiates a new call log sink.
+   *
+   * @param dir the directory of segments, will be created if not exists
+   * @param segmentSize the segment size in bytes
+   * @param rollInterval the roll interval in milliseconds
+   * @param retentionTime the retention time in milliseconds
+   * @param maxSegments the max number of segments
+   * @throws IOException if the directory cannot be created or first segment cannot be created
+   */
+  public CallLogSink(File dir, int segmentSize, long rollInterval, long retentionTime, int maxSegments)
+      throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create call logs directory " + dir.getAbsolutePath());
+    }
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.rollInterval = rollInterval;
+    this.retentionTime = retentionTime;
+    this.maxSegments = Math.max(1, maxSegments);
+    applyRetention();
+    this.current = CallLogSegment.create(dir, segmentSize);
+  }
+
+  /**
+   * Gets the directory of segments.
+   *
+   * @return the directory
+   */
+  public File getDirectory() {
+    return dir;
+  }
+
+  /**
+   * Write a record to current segment, a new segment will be started if required.
+   *
+   * @param record the record
+   * @return <code>true</code> if record written, <code>false</code> if the sink is closed or the record
+   *         larger than a segment
+   */
+  public synchronized boolean write(LogRecord record) {
+    if (closed) {
+      return false;
+    }
+    try {
+      if (System.currentTimeMillis() - current.getCreated() >= rollInterval) {
+        roll();
+      }
+      if (current.append(record)) {
+        return true;
+      }
+      roll();
+      return current.append(record);
+    } catch (IOException e) {
+      LOG.error("Error writing call log record to " + current.getFile(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Find records of given user and/or call. At least one of user or call ID should be given.
+   *
+   * @param userId the user id, can be <code>null</code>
+   * @param callId the call id, can be <code>null</code>
+   * @param limit the max number of records, latest records will be returned
+   * @return the records in order of logging
+   */
+  public List<LogRecord> find(String userId, String callId, int limit) {
+    if (userId == null && callId == null) {
+      return Collections.emptyList();
+    }
+    List<LogRecord> found = new ArrayList<>();
+    CallLogSegment last;
+    synchronized (this) {
+      last = current;
+      found.addAll(0, tail(last.find(userId, callId), limit));
+    }
+    // Then older segments, from the latest
+    File[] files = segmentFiles();
+    for (int i = files.length - 1; i >= 0 && found.size() < limit; i--) {
+      File file = files[i];
+      if (file.equals(last.getFile())) {
+        continue;
+      }
+      try {
+        CallLogSegment segment = reader(file);
+        if (segment != null) {
+          found.addAll(0, tail(segment.find(userId, callId), limit - found.size()));
+        }
+      } catch (IOException e) {
+        LOG.warn("Cannot read call log segment " + file, e);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Close the sink and its current segment.
+   */
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      try {
+        current.close();
+      } catch (IOException e) {
+        LOG.warn("Error closing call log segment " + current.getFile(), e);
+      }
+      for (CallLogSegment segment : readers.values()) {
+        closeReader(segment);
+      }
+      readers.clear();
+    }
+  }
+
+  /**
+   * Get an opened older segment for reading, it will be opened if not yet.
+   *
+   * @param file the segment file
+   * @return the segment or <code>null</code> if the sink closed
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected synchronized CallLogSegment reader(File file) throws IOException {
+    if (closed) {
+      return null;
+    }
+    CallLogSegment segment = readers.get(file);
+    if (segment == null) {
+      segment = CallLogSegment.open(file);
+      readers.put(file, segment);
+    }
+    return segment;
+  }
+
+  /**
+   * Close a segment opened for reading.
+   *
+   * @param segment the segment
+   */
+  protected void closeReader(CallLogSegment segment) {
+    try {
+      segment.close();
+    } catch (IOException e) {
+      LOG.warn("Error closing call log segment " + segment.getFile(), e);
+    }
+  }
+
+  /**
+   * Close current segment, apply the retention and start a new segment.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected void roll() throws IOException {
+    current.close();
+    applyRetention();
+    current = CallLogSegment.create(dir, segmentSize);
+  }
+
+  /**
+   * Delete segments older than the retention time and oldest ones to keep less than max number of segments
+   * (a place for a new segment).
+   */
+  protected void applyRetention() {
+    File[] files = segmentFiles();
+    long expired = System.currentTimeMillis() - retentionTime;
+    int left = files.length;
+    for (File file : files) {
+      if (left >= maxSegments || CallLogSegment.createdTime(file) < expired) {
+        CallLogSegment reader = readers.remove(file);
+        if (reader != null) {
+          closeReader(reader);
+        }
+        CallLogSegment.delete(file);
+        left--;
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Deleted call log segment " + file);
+        }
+      } else {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Segment files in the directory, ordered from oldest.
+   *
+   * @return the files
+   */
+  protected File[] segmentFiles() {
+    File[] files = dir.listFiles(f -> CallLogSegment.createdTime(f) > 0);
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files, Comparator.comparingLong(CallLogSegment::createdTime));
+    return files;
+  }
+
+  /**
+   * Last records of the list.
+   *
+   * @param records the records
+   * @param limit the limit
+   * @return the list
+   */
+  private static List<LogRecord> tail(List<LogRecord> records, int limit) {
+    return records.size() > limit ? records.subList(records.size() - limit, records.size()) : records;
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.exoplatform.management.annotations.Impact;
+import org.exoplatform.management.annotations.ImpactType;
+import org.exoplatform.management.annotations.Managed;
+import org.exoplatform.management.annotations.ManagedDescription;
+import org.exoplatform.management.annotations.ManagedName;
+import org.exoplatform.management.jmx.annotations.NameTemplate;
+import org.exoplatform.management.jmx.annotations.Property;
+
+/**
+ * Latency metrics of call operations. Each operation has histograms of its total time, time spent in calls
+ * storage and the rest (service time). Storage time is accounted per thread: storage access done inside a
+ * timed operation adds to this operation, nested operations add their storage time to outer ones.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: CallMetricsService.java 00000 Oct 18, 2018 pnedonosko $
+ */
+@Managed
+@ManagedDescription("Web Conferencing call operations latency")
+@NameTemplate({ @Property(key = "service", value = "webconferencing"), @Property(key = "view", value = "calls") })
+public class CallMetricsService {
+
+  /** The Constant ADD_CALL. */
+  public static final String ADD_CALL       = "addCall";
+
+  /** The Constant START_CALL. */
+  public static final String START_CALL     = "startCall";
+
+  /** The Constant JOIN_CALL. */
+  public static final String JOIN_CALL      = "joinCall";
+
+  /** The Constant LEAVE_CALL. */
+  public static final String LEAVE_CALL     = "leaveCall";
+
+  /** The Constant STOP_CALL. */
+  public static final String STOP_CALL      = "stopCall";
+
+  /** The Constant GET_USER_CALLS. */
+  public static final String GET_USER_CALLS = "getUserCalls";
+
+  /**
+   * Latency histograms of an operation.
+   */
+  public static class OperationMetrics {
+
+    /** The operation name. */
+    protected final String           name;
+
+    /** The total time. */
+    protected final LatencyHistogram total   = new LatencyHistogram();
+
+    /** The service time (total without storage). */
+    protected final LatencyHistogram service = new LatencyHistogram();
+
+    /** The storage time. */
+    protected final LatencyHistogram storage = new LatencyHistogram();
+
+    /**
+     * Instantiates a new operation metrics.
+     *
+     * @param name the name
+     */
+    protected OperationMetrics(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Gets the operation name.
+     *
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets the total time histogram.
+     *
+     * @return the total
+     */
+    public LatencyHistogram getTotal() {
+      return total;
+    }
+
+    /**
+     * Gets the service time histogram.
+     *
+     * @return the service
+     */
+    public LatencyHistogram getService() {
+      return service;
+    }
+
+    /**
+     * Gets the storage time histogram.
+     *
+     * @return the storage
+     */
+    public LatencyHistogram getStorage() {
+      return storage;
+    }
+
+    /**
+     * Reset the histograms.
+     */
+    protected void reset() {
+      total.reset();
+      service.reset();
+      storage.reset();
+    }
+  }
+
+  /**
+   * Storage time accounting of a thread.
+   */
+  static class StorageClock {
+
+    /** The timed operations running in the thread. */
+    int  operations;
+
+    /** The depth of storage access (nested storage methods). */
+    int  depth;
+
+    /** The start of current storage access (in nanoseconds). */
+    long started;
+
+    /** The storage time of current operation (in nanoseconds). */
+    long time;
+  }
+
+  /**
+   * Timer of a running operation, it should be stopped in the thread where it was started.
+   */
+  public static class Timer {
+
+    /** The operation. */
+    final OperationMetrics operation;
+
+    /** The clock. */
+    final StorageClock     clock;
+
+    /** The start time (in nanoseconds). */
+    final long             started;
+
+    /** The storage time of outer operation before this one started. */
+    final long             outerTime;
+
+    /**
+     * Instantiates a new timer.
+     *
+     * @param operation the operation
+     * @param clock the clock
+     */
+    Timer(OperationMetrics operation, StorageClock clock) {
+      this.operation = operation;
+      this.clock = clock;
+      this.outerTime = clock.time;
+      clock.time = 0;
+      clock.operations++;
+      this.started = System.nanoTime();
+    }
+
+    /**
+     * Stop the timer and record the operation time.
+     */
+    public void stop() {
+      long total = System.nanoTime() - started;
+      long storage = clock.time;
+      clock.operations--;
+      clock.time = outerTime + storage;
+      if (operation != null) {
+        operation.total.record(total);
+        operation.storage.record(storage);
+        operation.service.record(total - storage);
+      }
+    }
+  }
+
+  /** The operations. */
+  protected final Map<String, OperationMetrics> operations;
+
+  /** The storage clocks of threads. */
+  protected final ThreadLocal<StorageClock>     clocks = ThreadLocal.withInitial(StorageClock::new);
+
+  /**
+   * Instantiates a new call metrics service.
+   */
+  public CallMetricsService() {
+    Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    for (String name : new String[] { ADD_CALL, START_CALL, JOIN_CALL, LEAVE_CALL, STOP_CALL, GET_USER_CALLS }) {
+      operations.put(name, new OperationMetrics(name));
+    }
+    this.operations = Collections.unmodifiableMap(operations);
+  }
+
+  /**
+   * Start timing of an operation. Returned timer should be stopped in the same thread, in a
+   * <code>finally</code> block.
+   *
+   * @param operation the operation name
+   * @return the timer
+   */
+  public Timer start(String operation) {
+    return new Timer(operations.get(operation), clocks.get());
+  }
+
+  /**
+   * Mark a start of storage access in current thread. It should be followed by {@link #storageFinished()} in
+   * a <code>finally</code> block. Does nothing outside of timed operations.
+   */
+  public void storageStarted() {
+    StorageClock clock = clocks.get();
+    if (clock.operations > 0 && clock.depth++ == 0) {
+      clock.started = System.nanoTime();
+    }
+  }
+
+  /**
+   * Mark an end of storage access in current thread.
+   */
+  public void storageFinished() {
+    StorageClock clock = clocks.get();
+    if (clock.operations > 0 && clock.depth > 0 && --clock.depth == 0) {
+      clock.time += System.nanoTime() - clock.started;
+    }
+  }
+
+  /**
+   * Gets the operations metrics.
+   *
+   * @return the operations by name
+   */
+  public Map<String, OperationMetrics> getOperations() {
+    return operations;
+  }
+
+  /**
+   * Gets the operation names.
+   *
+   * @return the operation names
+   */
+  @Managed
+  @ManagedDescription("Names of timed operations")
+  public String[] getOperationNames() {
+    return operations.keySet().toArray(new String[operations.size()]);
+  }
+
+  /**
+   * Gets the count of operation executions.
+   *
+   * @param operation the operation name
+   * @return the count
+   */
+  @Managed
+  @ManagedDescription("Count of operation executions")
+  public long count(@ManagedDescription("Operation name") @ManagedName("operation") String operation) {
+    return metrics(operation).total.getCount();
+  }
+
+  /**
+   * Gets the mean time of an operation.
+   *
+   * @param operation the operation name
+   * @return the mean time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Mean time of operation in milliseconds")
+  public double mean(@ManagedDescription("Operation name") @ManagedName("operation") String operation) {
+    return metrics(operation).total.getMean();
+  }
+
+  /**
+   * Gets a percentile of an operation time.
+   *
+   * @param operation the operation name
+   * @param percent the percent
+   * @return the time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Percentile of operation time in milliseconds")
+  public double percentile(@ManagedDescription("Operation name") @ManagedName("operation") String operation,
+                           @ManagedDescription("Percent, e.g. 99") @ManagedName("percent") double percent) {
+    return metrics(operation).total.getPercentile(percent);
+  }
+
+  /**
+   * Gets a percentile of an operation storage time.
+   *
+   * @param operation the operation name
+   * @param percent the percent
+   * @return the time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Percentile of operation storage time in milliseconds")
+  public double storagePercentile(@ManagedDescription("Operation name") @ManagedName("operation") String operation,
+                                  @ManagedDescription("Percent, e.g. 99") @ManagedName("percent") double percent) {
+    return metrics(operation).storage.getPercentile(percent);
+  }
+
+  /**
+   * Gets a percentile of an operation service time (without storage).
+   *
+   * @param operation the operation name
+   * @param percent the percent
+   * @return the time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Percentile of operation service time (without storage) in milliseconds")
+  public double servicePercentile(@ManagedDescription("Operation name") @ManagedName("operation") String operation,
+                                  @ManagedDescription("Percent, e.g. 99") @ManagedName("percent") double percent) {
+    return metrics(operation).service.getPercentile(percent);
+  }
+
+  /**
+   * Gets the max time of an operation.
+   *
+   * @param operation the operation name
+   * @return the max time in milliseconds
+   */
+  @Managed
+  @ManagedDescription("Max time of operation in milliseconds")
+  public double max(@ManagedDescription("Operation name") @ManagedName("operation") String operation) {
+    return metrics(operation).total.getMax();
+  }
+
+  /**
+   * Reset all metrics.
+   */
+  @Managed
+  @ManagedDescription("Reset all metrics")
+  @Impact(ImpactType.WRITE)
+  public void reset() {
+    for (OperationMetrics m : operations.values()) {
+      m.reset();
+    }
+  }
+
+  /**
+   * Gets metrics of an operation.
+   *
+   * @param operation the operation name
+   * @return the operation metrics
+   * @throws IllegalArgumentException if operation not found
+   */
+  protected OperationMetrics metrics(String operation) throws IllegalArgumentException {
+    OperationMetrics m = operations.get(operation);
+    if (m != null) {
+      return m;
+    }
+    throw new IllegalArgumentException("Operation not found: " + operation);
+  }
+}
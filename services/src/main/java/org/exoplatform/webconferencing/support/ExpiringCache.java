@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A simple in-memory cache bounded by size and by time to live of its entries. When the cache is full, least
+ * recently used entry will be removed. It's thread-safe.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: ExpiringCache.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class ExpiringCache<K, V> {
+
+  /**
+   * Cache entry with its expiration time.
+   *
+   * @param <V> the value type
+   */
+  static class Entry<V> {
+
+    /** The value. */
+    final V    value;
+
+    /** The expiration time in milliseconds. */
+    final long expires;
+
+    /**
+     * Instantiates a new entry.
+     *
+     * @param value the value
+     * @param expires the expires
+     */
+    Entry(V value, long expires) {
+      this.value = value;
+      this.expires = expires;
+    }
+  }
+
+  /** The max size. */
+  protected final int                    maxSize;
+
+  /** The time to live of entries in milliseconds. */
+  protected final long                   liveTime;
+
+  /** The entries in access order. */
+  protected final Map<K, Entry<V>>       entries;
+
+  /** The hits. */
+  protected final AtomicLong             hits      = new AtomicLong();
+
+  /** The misses. */
+  protected final AtomicLong             misses    = new AtomicLong();
+
+  /** The evictions (by size, expiration or invalidation). */
+  protected final AtomicLong             evictions = new AtomicLong();
+
+  /**
+   * Instantiates a new expiring cache.
+   *
+   * @param maxSize the max size
+   * @param liveTime the time to live of entries in milliseconds
+   */
+  public ExpiringCache(int maxSize, long liveTime) {
+    this.maxSize = maxSize;
+    this.liveTime = liveTime;
+    this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+      private static final long serialVersionUID = -1842354651023376212L;
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        if (size() > ExpiringCache.this.maxSize) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets a value by the key.
+   *
+   * @param key the key
+   * @return the value or <code>null</code> if not cached or already expired
+   */
+  public V get(K key) {
+    Entry<V> entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry != null && entry.expires < System.currentTimeMillis()) {
+        entries.remove(key);
+        evictions.incrementAndGet();
+        entry = null;
+      }
+    }
+    if (entry != null) {
+      hits.incrementAndGet();
+      return entry.value;
+    } else {
+      misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /**
+   * Put a value by the key.
+   *
+   * @param key the key
+   * @param value the value, not <code>null</code>
+   */
+  public void put(K key, V value) {
+    Entry<V> entry = new Entry<>(value, System.currentTimeMillis() + liveTime);
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+
+  /**
+   * Remove a value by the key.
+   *
+   * @param key the key
+   * @return true, if value was cached
+   */
+  public boolean remove(K key) {
+    boolean removed;
+    synchronized (entries) {
+      removed = entries.remove(key) != null;
+    }
+    if (removed) {
+      evictions.incrementAndGet();
+    }
+    return removed;
+  }
+
+  /**
+   * Remove all values.
+   */
+  public void clear() {
+    synchronized (entries) {
+      evictions.addAndGet(entries.size());
+      entries.clear();
+    }
+  }
+
+  /**
+   * Gets the current size.
+   *
+   * @return the size
+   */
+  public int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets the max size.
+   *
+   * @return the max size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Gets the time to live of entries in milliseconds.
+   *
+   * @return the live time
+   */
+  public long getLiveTime() {
+    return liveTime;
+  }
+
+  /**
+   * Gets the hits count.
+   *
+   * @return the hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the misses count.
+   *
+   * @return the misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Gets the evictions count.
+   *
+   * @return the evictions
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies with log-linear buckets in microseconds: each power of two range is split
+ * on {@value #SUB_BUCKETS} buckets, thus a percentile is precise to 1/{@value #SUB_BUCKETS} of its value.
+ * Recording is a few atomic increments without allocations, percentiles computed on read.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: LatencyHistogram.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class LatencyHistogram {
+
+  /** The Constant SUB_BUCKETS, buckets per power of two (a power of two itself). */
+  public static final int         SUB_BUCKETS = 8;
+
+  /** The Constant SUB_BITS. */
+  protected static final int      SUB_BITS    = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+  /** The Constant MAX_EXP, values above 2^MAX_EXP microseconds (about 3 days) go to the last bucket. */
+  protected static final int      MAX_EXP     = 38;
+
+  /** The Constant BUCKETS. */
+  protected static final int      BUCKETS     = (MAX_EXP - SUB_BITS + 2) * SUB_BUCKETS;
+
+  /** The counts by bucket. */
+  protected final AtomicLongArray counts      = new AtomicLongArray(BUCKETS);
+
+  /** The count of values. */
+  protected final AtomicLong      count       = new AtomicLong();
+
+  /** The sum of values (in microseconds). */
+  protected final AtomicLong      sum         = new AtomicLong();
+
+  /** The max value (in microseconds). */
+  protected final AtomicLong      max         = new AtomicLong();
+
+  /**
+   * Bucket index of a value.
+   *
+   * @param micros the value in microseconds
+   * @return the index
+   */
+  protected static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return micros > 0 ? (int) micros : 0;
+    }
+    int exp = 63 - Long.numberOfLeadingZeros(micros);
+    if (exp > MAX_EXP) {
+      return BUCKETS - 1;
+    }
+    int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Highest value of a bucket.
+   *
+   * @param bucket the bucket index
+   * @return the value in microseconds
+   */
+  protected static long bucketValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    long width = 1L << (exp - SUB_BITS);
+    return ((SUB_BUCKETS + sub) << (exp - SUB_BITS)) + width - 1;
+  }
+
+  /**
+   * Record a value.
+   *
+   * @param nanos the value in nanoseconds
+   */
+  public void record(long nanos) {
+    long micros = nanos / 1000;
+    counts.incrementAndGet(bucket(micros));
+    count.incrementAndGet();
+    sum.addAndGet(micros);
+    if (micros > max.get()) {
+      max.accumulateAndGet(micros, Math::max);
+    }
+  }
+
+  /**
+   * Gets the count of recorded values.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Gets the mean value.
+   *
+   * @return the mean in milliseconds
+   */
+  public double getMean() {
+    long c = count.get();
+    return c > 0 ? sum.get() / c / 1000d : 0;
+  }
+
+  /**
+   * Gets the max value.
+   *
+   * @return the max in milliseconds
+   */
+  public double getMax() {
+    return max.get() / 1000d;
+  }
+
+  /**
+   * Gets the value below which given percent of recorded values fall.
+   *
+   * @param percent the percent, from 0 to 100
+   * @return the percentile value in milliseconds
+   */
+  public double getPercentile(double percent) {
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      total += snapshot[i] = counts.get(i);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percent)) / 100);
+    rank = rank > 0 ? rank : 1;
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(bucketValue(i), max.get()) / 1000d;
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Reset the histogram. Values recorded concurrently with the reset may be partially lost.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import static org.exoplatform.webconferencing.support.CallLog.DEBUG_LEVEL;
+import static org.exoplatform.webconferencing.support.CallLog.TRACE_LEVEL;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Rate limiter of client log records. Each client (user and client ID) has a token bucket refilled at
+ * configured rate, a record takes a token and will be suppressed when no tokens left. When the bucket is less
+ * than half full, only each Nth debug and trace record will be accepted (sampling), thus a chatty client
+ * keeps tokens for its info, warn and error records. Providers can have own limits (e.g. configured by
+ * administrator), then their records will use a separate bucket of the client.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: LogRateLimiter.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class LogRateLimiter {
+
+  /** The Constant SUPPRESSED, returned by {@link #acquire(LogRecord)} for not accepted record. */
+  public static final int     SUPPRESSED         = -1;
+
+  /** The Constant BUCKET_IDLE_TIME, buckets not used this time will be removed. */
+  protected static final long BUCKET_IDLE_TIME   = TimeUnit.MINUTES.toNanos(10);
+
+  /** The Constant CLEANUP_INTERVAL, in number of acquired records. */
+  protected static final int  CLEANUP_INTERVAL   = 4096;
+
+  /** The Constant PROVIDERS_MAX_SIZE, max number of providers with cached limits. */
+  protected static final int  PROVIDERS_MAX_SIZE = 100;
+
+  /**
+   * Limits of a bucket.
+   */
+  public static class Limits {
+
+    /** The rate, in records per second. */
+    final double rate;
+
+    /** The burst, max number of tokens in a bucket. */
+    final double burst;
+
+    /** The sampling rate of debug and trace records, each Nth will be accepted. */
+    final int    sampling;
+
+    /**
+     * Instantiates a new limits.
+     *
+     * @param rate the rate in records per second, zero or negative value disables the limit
+     * @param burst the burst, max number of records accepted at once
+     * @param sampling the sampling rate of debug and trace records
+     */
+    public Limits(double rate, int burst, int sampling) {
+      this.rate = rate;
+      this.burst = Math.max(1, burst);
+      this.sampling = Math.max(1, sampling);
+    }
+
+    /**
+     * Checks if it is unlimited.
+     *
+     * @return true, if is unlimited
+     */
+    boolean isUnlimited() {
+      return rate <= 0;
+    }
+  }
+
+  /**
+   * Token bucket of a client.
+   */
+  static class Bucket {
+
+    /** The limits. */
+    final Limits limits;
+
+    /** The tokens, guarded by the bucket instance. */
+    double       tokens;
+
+    /** The last refill time in nanoseconds, guarded by the bucket instance. */
+    long         refilled;
+
+    /** The sample counter, guarded by the bucket instance. */
+    int          sampleCounter;
+
+    /** The suppressed records since last accepted one, guarded by the bucket instance. */
+    int          suppressed;
+
+    /**
+     * Instantiates a new bucket.
+     *
+     * @param limits the limits
+     * @param now the current time in nanoseconds
+     */
+    Bucket(Limits limits, long now) {
+      this.limits = limits;
+      this.tokens = limits.burst;
+      this.refilled = now;
+    }
+
+    /**
+     * Acquire a token for a record of given level.
+     *
+     * @param sampled if the record level is a subject of sampling
+     * @param now the current time in nanoseconds
+     * @return number of suppressed records before this one, or {@link LogRateLimiter#SUPPRESSED}
+     */
+    synchronized int acquire(boolean sampled, long now) {
+      tokens = Math.min(limits.burst, tokens + (now - refilled) * limits.rate / 1000000000d);
+      refilled = now;
+      if (tokens >= 1 && (!sampled || tokens * 2 >= limits.burst || (sampleCounter++ % limits.sampling) == 0)) {
+        tokens--;
+        int before = suppressed;
+        suppressed = 0;
+        return before;
+      }
+      suppressed++;
+      return SUPPRESSED;
+    }
+
+    /**
+     * Checks if bucket is idle since given time.
+     *
+     * @param since the time in nanoseconds
+     * @return true, if is idle
+     */
+    synchronized boolean isIdle(long since) {
+      return refilled < since;
+    }
+  }
+
+  /** The default limits. */
+  protected final Limits                   defaultLimits;
+
+  /** The provider limits configuration, returns <code>null</code> for providers without own limits. */
+  protected final Function<String, Limits> providerConfig;
+
+  /** The limits of providers, default limits instance means no own limits. */
+  protected final Map<String, Limits>      providerLimits = new ConcurrentHashMap<>();
+
+  /** The buckets by client key. */
+  protected final Map<String, Bucket>      buckets        = new ConcurrentHashMap<>();
+
+  /** The suppressed records count. */
+  protected final AtomicLong               suppressed     = new AtomicLong();
+
+  /** The acquired records count, used to schedule the cleanup. */
+  protected final AtomicLong               acquired       = new AtomicLong();
+
+  /**
+   * Instantiates a new log rate limiter.
+   *
+   * @param defaultLimits the default limits
+   * @param providerConfig the provider limits configuration, should return <code>null</code> for a
+   *          provider without own limits
+   */
+  public LogRateLimiter(Limits defaultLimits, Function<String, Limits> providerConfig) {
+    this.defaultLimits = defaultLimits;
+    this.providerConfig = providerConfig;
+  }
+
+  /**
+   * Sets limits for records of a provider, it overrides the configuration. Already existing buckets of the
+   * provider keep their limits until removed as idle.
+   *
+   * @param provider the provider type
+   * @param limits the limits, if <code>null</code> then the default limits will be used
+   */
+  public void setProviderLimits(String provider, Limits limits) {
+    providerLimits.put(provider, limits != null ? limits : defaultLimits);
+  }
+
+  /**
+   * Acquire a permit to log the record.
+   *
+   * @param record the record
+   * @return {@link #SUPPRESSED} if the record should not be logged, otherwise number of records of the same
+   *         client suppressed before this one (zero if nothing)
+   */
+  public int acquire(LogRecord record) {
+    String provider = record.getProvider();
+    Limits limits = provider != null ? providerLimits(provider) : defaultLimits;
+    String key;
+    if (limits != defaultLimits) {
+      key = record.getUserId() + '-' + record.getClientId() + '-' + provider;
+    } else {
+      key = record.getUserId() + '-' + record.getClientId();
+    }
+    if (limits.isUnlimited()) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    if (acquired.incrementAndGet() % CLEANUP_INTERVAL == 0) {
+      cleanup(now);
+    }
+    final Limits bucketLimits = limits;
+    Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(bucketLimits, now));
+    String level = record.getLevel();
+    int res = bucket.acquire(DEBUG_LEVEL.equals(level) || TRACE_LEVEL.equals(level), now);
+    if (res == SUPPRESSED) {
+      suppressed.incrementAndGet();
+    }
+    return res;
+  }
+
+  /**
+   * Gets the total number of suppressed records.
+   *
+   * @return the suppressed count
+   */
+  public long getSuppressed() {
+    return suppressed.get();
+  }
+
+  /**
+   * Gets the number of client buckets.
+   *
+   * @return the buckets count
+   */
+  public int getBucketsCount() {
+    return buckets.size();
+  }
+
+  /**
+   * Get limits of a provider.
+   *
+   * @param provider the provider
+   * @return the limits, default ones if provider has no own limits
+   */
+  protected Limits providerLimits(String provider) {
+    Limits limits = providerLimits.get(provider);
+    if (limits == null) {
+      limits = providerConfig.apply(provider);
+      if (limits == null) {
+        limits = defaultLimits;
+      }
+      // Provider comes from a client, don't let it grow the map without bounds
+      if (providerLimits.size() < PROVIDERS_MAX_SIZE) {
+        providerLimits.putIfAbsent(provider, limits);
+      }
+    }
+    return limits;
+  }
+
+  /**
+   * Remove idle buckets.
+   *
+   * @param now the current time in nanoseconds
+   */
+  protected void cleanup(long now) {
+    long since = now - BUCKET_IDLE_TIME;
+    for (Iterator<Bucket> biter = buckets.values().iterator(); biter.hasNext();) {
+      if (biter.next().isIdle(since)) {
+        biter.remove();
+      }
+    }
+  }
+}
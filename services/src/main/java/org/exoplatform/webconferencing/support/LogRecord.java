@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.time.LocalDateTime;
+
+/**
+ * Client log record with its origin (user, client, provider) for {@link CallLogService}.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: LogRecord.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class LogRecord {
+
+  /** The user id. */
+  protected final String        userId;
+
+  /** The client id. */
+  protected final String        clientId;
+
+  /** The call id, can be <code>null</code>. */
+  protected final String        callId;
+
+  /** The provider, can be <code>null</code>. */
+  protected final String        provider;
+
+  /** The prefix, can be <code>null</code>. */
+  protected final String        prefix;
+
+  /** The level. */
+  protected final String        level;
+
+  /** The timestamp as sent by the client. */
+  protected final String        timestampText;
+
+  /** The timestamp, can be <code>null</code> if client timestamp cannot be parsed. */
+  protected final LocalDateTime timestamp;
+
+  /** The message. */
+  protected final String        message;
+
+  /**
+   * Instantiates a new log record.
+   *
+   * @param userId the user id
+   * @param clientId the client id
+   * @param callId the call id
+   * @param provider the provider
+   * @param prefix the prefix
+   * @param level the level
+   * @param timestampText the timestamp text
+   * @param timestamp the timestamp
+   * @param message the message
+   */
+  public LogRecord(String userId,
+                   String clientId,
+                   String callId,
+                   String provider,
+                   String prefix,
+                   String level,
+                   String timestampText,
+                   LocalDateTime timestamp,
+                   String message) {
+    this.userId = userId;
+    this.clientId = clientId;
+    this.callId = callId;
+    this.provider = provider;
+    this.prefix = prefix;
+    this.level = level;
+    this.timestampText = timestampText;
+    this.timestamp = timestamp;
+    this.message = message;
+  }
+
+  /**
+   * Gets the user id.
+   *
+   * @return the user id
+   */
+  public String getUserId() {
+    return userId;
+  }
+
+  /**
+   * Gets the client id.
+   *
+   * @return the client id
+   */
+  public String getClientId() {
+    return clientId;
+  }
+
+  /**
+   * Gets the call id.
+   *
+   * @return the call id, can be <code>null</code>
+   */
+  public String getCallId() {
+    return callId;
+  }
+
+  /**
+   * Gets the provider.
+   *
+   * @return the provider, can be <code>null</code>
+   */
+  public String getProvider() {
+    return provider;
+  }
+
+  /**
+   * Gets the prefix.
+   *
+   * @return the prefix, can be <code>null</code>
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Gets the level.
+   *
+   * @return the level
+   */
+  public String getLevel() {
+    return level;
+  }
+
+  /**
+   * Gets the timestamp text as it was sent by the client.
+   *
+   * @return the timestamp text
+   */
+  public String getTimestampText() {
+    return timestampText;
+  }
+
+  /**
+   * Gets the timestamp.
+   *
+   * @return the timestamp, can be <code>null</code>
+   */
+  public LocalDateTime getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Gets the message.
+   *
+   * @return the message
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Format the record as a line for server log: <code>[provider.prefix] user-client message -- timestamp</code>.
+   *
+   * @return the string
+   */
+  public String toLine() {
+    StringBuilder line = new StringBuilder(message.length() + 128);
+    if (provider != null || prefix != null) {
+      line.append('[');
+      if (provider != null) {
+        line.append(provider);
+      }
+      if (prefix != null) {
+        if (provider != null) {
+          line.append('.');
+        }
+        line.append(prefix);
+      }
+      line.append("] ");
+    }
+    line.append(userId);
+    line.append('-');
+    line.append(clientId);
+    line.append(' ');
+    line.append(message);
+    line.append(" -- ");
+    line.append(timestampText);
+    return line.toString();
+  }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.support;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+/**
+ * Delivers user events asynchronously, in a dedicated set of threads. Each user has own queue of events,
+ * they will be delivered in order of dispatching, one user queue by a single thread at a time. An event
+ * dispatched with a coalescing key supersedes a not yet delivered event of the same user with the same key
+ * (e.g. a call started and then stopped before the user was notified), it takes the place of the superseded
+ * one in the queue. A user queue is bounded, when it's full the oldest pending event will be dropped, thus
+ * a slow listener cannot stall the dispatching thread. A removed user queue being delivered will be closed
+ * only after its current delivery, thus a new queue of the same user never runs at the same time with it.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: UserEventDispatcher.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class UserEventDispatcher {
+
+  /** The Constant LOG. */
+  protected static final Log LOG                = ExoLogger.getLogger(UserEventDispatcher.class);
+
+  /** Max number of events of a user delivered at once before letting other users go. */
+  protected static final int DELIVER_BATCH_SIZE = 50;
+
+  /** The Constant THREAD_IDLE_TIME in seconds. */
+  protected static final int THREAD_IDLE_TIME   = 120;
+
+  /**
+   * Pending event.
+   */
+  static class Event {
+
+    /** The coalescing key, can be <code>null</code>. */
+    final String   key;
+
+    /** The delivery. */
+    final Runnable delivery;
+
+    /**
+     * Instantiates a new event.
+     *
+     * @param key the key
+     * @param delivery the delivery
+     */
+    Event(String key, Runnable delivery) {
+      this.key = key;
+      this.delivery = delivery;
+    }
+  }
+
+  /**
+   * Events queue of a user.
+   */
+  class UserQueue implements Runnable {
+
+    /** The user id. */
+    final String            userId;
+
+    /** The events, guarded by the queue instance. */
+    final LinkedList<Event> events = new LinkedList<>();
+
+    /** The scheduled flag, guarded by the queue instance. */
+    boolean                 scheduled;
+
+    /** The removed flag, queue will be closed after its current delivery, guarded by the queue instance. */
+    boolean                 removed;
+
+    /** The closed flag, queue is not in the user queues anymore, guarded by the queue instance. */
+    boolean                 closed;
+
+    /**
+     * Instantiates a new user queue.
+     *
+     * @param userId the user id
+     */
+    UserQueue(String userId) {
+      this.userId = userId;
+    }
+
+    /**
+     * Add an event to the queue.
+     *
+     * @param event the event
+     * @return <code>true</code> if the queue should be scheduled for delivery
+     */
+    synchronized boolean add(Event event) {
+      // A new event keeps the queue of the user
+      removed = false;
+      if (event.key != null) {
+        // Superseded event replaced in place: events queued after it should be delivered after this one
+        for (ListIterator<Event> eiter = events.listIterator(); eiter.hasNext();) {
+          if (event.key.equals(eiter.next().key)) {
+            eiter.set(event);
+            coalesced.incrementAndGet();
+            return false;
+          }
+        }
+      }
+      if (events.size() >= queueCapacity) {
+        events.removeFirst();
+        if (dropped.incrementAndGet() % queueCapacity == 1) {
+          LOG.warn("Events queue of " + userId + " is full, dropping oldest events. Dropped in total: " + dropped.get());
+        }
+      }
+      events.add(event);
+      if (scheduled) {
+        return false;
+      }
+      scheduled = true;
+      return true;
+    }
+
+    /**
+     * Take next event.
+     *
+     * @return the event or <code>null</code> if queue is empty, then it also will be marked as not scheduled
+     *         (and closed if it was removed)
+     */
+    synchronized Event next() {
+      Event event = events.poll();
+      if (event == null) {
+        scheduled = false;
+        if (removed) {
+          close();
+        }
+      }
+      return event;
+    }
+
+    /**
+     * Close the queue and remove it from the user queues, caller should hold the queue lock.
+     */
+    void close() {
+      closed = true;
+      queues.remove(userId, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+      for (int i = 0; i < DELIVER_BATCH_SIZE; i++) {
+        Event event = next();
+        if (event != null) {
+          try {
+            event.delivery.run();
+            delivered.incrementAndGet();
+          } catch (Throwable e) {
+            LOG.error("Error delivering event to " + userId, e);
+          }
+        } else {
+          return;
+        }
+      }
+      // Let other users go, this one will continue later
+      schedule(this);
+    }
+  }
+
+  /**
+   * The Class DispatcherThreadFactory.
+   */
+  static class DispatcherThreadFactory implements ThreadFactory {
+
+    /** The thread number. */
+    final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    /** The name prefix. */
+    final String        namePrefix;
+
+    /**
+     * Instantiates a new dispatcher thread factory.
+     *
+     * @param namePrefix the name prefix
+     */
+    DispatcherThreadFactory(String namePrefix) {
+      this.namePrefix = namePrefix;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+
+  /** The user queues. */
+  protected final Map<String, UserQueue> queues    = new ConcurrentHashMap<>();
+
+  /** The user queue capacity. */
+  protected final int                    queueCapacity;
+
+  /** The executor. */
+  protected final ExecutorService        executor;
+
+  /** The dispatched events count. */
+  protected final AtomicLong             dispatched = new AtomicLong();
+
+  /** The delivered events count. */
+  protected final AtomicLong             delivered  = new AtomicLong();
+
+  /** The coalesced (superseded) events count. */
+  protected final AtomicLong             coalesced  = new AtomicLong();
+
+  /** The dropped (on full queue) events count. */
+  protected final AtomicLong             dropped    = new AtomicLong();
+
+  /**
+   * Instantiates a new user event dispatcher.
+   *
+   * @param threadNamePrefix the thread name prefix
+   * @param threads the max number of delivery threads
+   * @param queueCapacity the user queue capacity
+   */
+  public UserEventDispatcher(String threadNamePrefix, int threads, int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+                                                         threads,
+                                                         THREAD_IDLE_TIME,
+                                                         TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<Runnable>(),
+                                                         new DispatcherThreadFactory(threadNamePrefix));
+    executor.allowCoreThreadTimeOut(true);
+    this.executor = executor;
+  }
+
+  /**
+   * Dispatch an event to given user. This method returns immediately, the event will be delivered later.
+   *
+   * @param userId the user id
+   * @param key the coalescing key, if not <code>null</code> then a pending event of the user with the
+   *          same key will be discarded in favor of this event
+   * @param delivery the delivery of the event to the user listeners
+   */
+  public void dispatch(String userId, String key, Runnable delivery) {
+    dispatched.incrementAndGet();
+    Event event = new Event(key, delivery);
+    while (true) {
+      UserQueue queue = queues.computeIfAbsent(userId, id -> new UserQueue(id));
+      boolean schedule;
+      synchronized (queue) {
+        if (queue.closed) {
+          // Removed meanwhile, next attempt will create a new queue of the user
+          continue;
+        }
+        schedule = queue.add(event);
+      }
+      if (schedule) {
+        schedule(queue);
+      }
+      return;
+    }
+  }
+
+  /**
+   * Remove the user queue, pending events of the user will not be delivered. Should be used when the user
+   * has no more listeners. If the queue is being delivered, it will be removed when its current delivery
+   * done, events dispatched to the user meanwhile will keep it.
+   *
+   * @param userId the user id
+   */
+  public void removeUser(String userId) {
+    UserQueue queue = queues.get(userId);
+    if (queue != null) {
+      synchronized (queue) {
+        queue.events.clear();
+        if (queue.scheduled) {
+          queue.removed = true;
+        } else {
+          queue.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Stop the dispatcher, pending events will not be delivered.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    queues.clear();
+  }
+
+  /**
+   * Gets the dispatched events count.
+   *
+   * @return the dispatched
+   */
+  public long getDispatched() {
+    return dispatched.get();
+  }
+
+  /**
+   * Gets the delivered events count.
+   *
+   * @return the delivered
+   */
+  public long getDelivered() {
+    return delivered.get();
+  }
+
+  /**
+   * Gets the coalesced events count.
+   *
+   * @return the coalesced
+   */
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  /**
+   * Gets the dropped events count.
+   *
+   * @return the dropped
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Schedule the queue delivery.
+   *
+   * @param queue the queue
+   */
+  protected void schedule(UserQueue queue) {
+    try {
+      executor.execute(queue);
+    } catch (RejectedExecutionException e) {
+      // Dispatcher stopped
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Events delivery rejected for " + queue.userId, e);
+      }
+    }
+  }
+}
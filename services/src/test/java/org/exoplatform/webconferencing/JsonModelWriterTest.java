@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import org.exoplatform.ws.frameworks.json.impl.JsonGeneratorImpl;
+
+/**
+ * Checks that {@link JsonModelWriter} writes the same JSON as reflective generator, and that subclasses of
+ * the model with more getters written by the reflective generator.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: JsonModelWriterTest.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class JsonModelWriterTest {
+
+  /**
+   * IM account of a connector with its own field.
+   */
+  static class ConnectorIMInfo extends UserInfo.IMInfo {
+
+    /**
+     * Instantiates a new connector IM info.
+     *
+     * @param id the id
+     */
+    ConnectorIMInfo(String id) {
+      super("connector", id);
+    }
+
+    /**
+     * Gets the connector URL.
+     *
+     * @return the URL
+     */
+    public String getUrl() {
+      return "https://connector.example.com/" + getId();
+    }
+  }
+
+  /**
+   * User of an external system with its own field.
+   */
+  static class ExternalUser extends UserInfo {
+
+    /**
+     * Instantiates a new external user.
+     *
+     * @param userId the user id
+     * @param firstName the first name
+     * @param lastName the last name
+     */
+    ExternalUser(String userId, String firstName, String lastName) {
+      super(userId, firstName, lastName);
+    }
+
+    /**
+     * Gets the company.
+     *
+     * @return the company
+     */
+    public String getCompany() {
+      return "Acme";
+    }
+  }
+
+  /**
+   * Group not known to the writer.
+   */
+  static class TeamInfo extends GroupInfo {
+
+    /**
+     * Instantiates a new team info.
+     *
+     * @param id the id
+     * @param title the title
+     */
+    TeamInfo(String id, String title) {
+      super(id, title);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getType() {
+      return "team";
+    }
+  }
+
+  /**
+   * Creates an user with IM accounts, links and state.
+   *
+   * @param id the id
+   * @return the user info
+   */
+  private UserInfo user(String id) {
+    UserInfo user = new UserInfo(id, "John \"J\"", "O'Connor\n\u00e9\u2028");
+    user.setAvatarLink("/rest/avatar/" + id);
+    user.setProfileLink("/portal/profile/" + id);
+    user.addImAccount("skype", id + ".skype");
+    user.addImAccount("skype", id + ".skype2");
+    user.addImAccount("webrtc", id);
+    user.setState(UserState.JOINED);
+    user.setClientId("client-" + id);
+    return user;
+  }
+
+  /**
+   * Write an object by the writer.
+   *
+   * @param obj the object
+   * @return the JSON
+   * @throws Exception if writing failed
+   */
+  private String writer(Object obj) throws Exception {
+    StringBuilder json = new StringBuilder();
+    new JsonModelWriter(json).write(obj);
+    return json.toString();
+  }
+
+  /**
+   * Write an object by the reflective generator.
+   *
+   * @param obj the object
+   * @return the JSON
+   * @throws Exception if generation failed
+   */
+  private String reflective(Object obj) throws Exception {
+    JsonGeneratorImpl gen = new JsonGeneratorImpl();
+    return obj.getClass().isArray() ? gen.createJsonArray(obj).toString() : gen.createJsonObject(obj).toString();
+  }
+
+  /**
+   * Assert the writer and reflective generator output the same JSON object.
+   *
+   * @param obj the object
+   * @throws Exception if writing failed
+   */
+  private void assertSameJSON(Object obj) throws Exception {
+    String expected = reflective(obj);
+    String actual = writer(obj);
+    assertTrue("Expected " + expected + " but was " + actual, new JSONObject(expected).similar(new JSONObject(actual)));
+  }
+
+  /**
+   * Test user.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testUser() throws Exception {
+    assertSameJSON(user("john"));
+  }
+
+  /**
+   * Test participant.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testParticipant() throws Exception {
+    assertSameJSON(new ParticipantInfo("skype", "guest.skype"));
+  }
+
+  /**
+   * Test call.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testCall() throws Exception {
+    CallInfo call = new CallInfo("p2p_john@mary", "John and Mary", user("john"), "webrtc");
+    call.addParticipant(user("john"));
+    call.addParticipant(user("mary"));
+    call.addParticipant(new ParticipantInfo("guest"));
+    call.setState(CallState.STARTED);
+    call.setLastDate(new Date(1539849600000L));
+    assertSameJSON(call);
+  }
+
+  /**
+   * Test call states array.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testCallStates() throws Exception {
+    CallState[] states = new CallState[] { new CallState("c1", CallState.STARTED), new CallState("c2", null) };
+    String expected = reflective(states);
+    String actual = writer(states);
+    assertTrue("Expected " + expected + " but was " + actual, new JSONArray(expected).similar(new JSONArray(actual)));
+  }
+
+  /**
+   * Test context with provider configurations and messages.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testContext() throws Exception {
+    CallProviderConfiguration conf = new CallProviderConfiguration();
+    conf.setType("webrtc");
+    conf.setTitle("WebRTC");
+    conf.setDescription("Calls in \"browser\"");
+    conf.setActive(true);
+    Set<CallProviderConfiguration> configs = new HashSet<>();
+    configs.add(conf);
+    ContextInfo context = new ContextInfo("portal", "sales", "Sales", "/cometd", "token", configs);
+    context.addMessages(Collections.singletonMap("webconferencing.call", "Call"));
+    assertSameJSON(context);
+    assertSameJSON(conf);
+  }
+
+  /**
+   * Test user with IM accounts of a connector: it's supported but these accounts written with their own
+   * fields.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testUserWithConnectorIM() throws Exception {
+    UserInfo user = user("john");
+    user.addImAccount(new ConnectorIMInfo("john.connector"));
+    assertTrue(JsonModelWriter.isSupported(user));
+    assertSameJSON(user);
+    assertEquals("https://connector.example.com/john.connector",
+                 new JSONObject(writer(user)).getJSONObject("imAccounts")
+                                             .getJSONArray("connector")
+                                             .getJSONObject(0)
+                                             .getString("url"));
+  }
+
+  /**
+   * Test subclasses of the model: not supported at top level and written by reflective generator when
+   * nested in a call.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testSubclasses() throws Exception {
+    ExternalUser external = new ExternalUser("ext", "Ext", "User");
+    TeamInfo team = new TeamInfo("team1", "Team");
+    team.addMember(user("john"));
+    team.addMember(external);
+    assertFalse(JsonModelWriter.isSupported(external));
+    assertFalse(JsonModelWriter.isSupported(team));
+
+    CallInfo call = new CallInfo("g/team1", "Team call", team, "webrtc");
+    call.addParticipant(user("john"));
+    call.addParticipant(external);
+    assertSameJSON(call);
+    JSONArray parts = new JSONObject(writer(call)).getJSONArray("participants");
+    boolean found = false;
+    for (int i = 0; i < parts.length(); i++) {
+      JSONObject part = parts.getJSONObject(i);
+      if ("ext".equals(part.getString("id"))) {
+        assertEquals("Acme", part.getString("company"));
+        found = true;
+      }
+    }
+    assertTrue("External participant not found", found);
+  }
+}
@@ -19,7 +19,7 @@
 package org.exoplatform.webconferencing.myconnector.server;
 
 import static org.exoplatform.webconferencing.Utils.asJSON;
-import static org.exoplatform.webconferencing.Utils.getCurrentContext;
+import static org.exoplatform.webconferencing.Utils.getCurrentContextJSON;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -30,7 +30,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.exoplatform.container.ExoContainer;
 import org.exoplatform.container.web.AbstractHttpServlet;
-import org.exoplatform.webconferencing.ContextInfo;
 import org.exoplatform.webconferencing.UserInfo;
 import org.exoplatform.webconferencing.WebConferencingService;
 import org.exoplatform.webconferencing.myconnector.MyConnectorProvider;
@@ -101,8 +100,7 @@ public class MyCallServlet extends AbstractHttpServlet {
           try {
             // init page scope with settings for webConferencing and My Connector provider
 
-            ContextInfo context = getCurrentContext(remoteUser, req.getLocale());
-            httpReq.setAttribute("contextInfo", asJSON(context));
+            httpReq.setAttribute("contextInfo", getCurrentContextJSON(remoteUser, req.getLocale()));
 
             UserInfo exoUser = webConferencing.getUserInfo(remoteUser);
             if (exoUser != null) {
@@ -19,7 +19,7 @@
 package org.exoplatform.webconferencing.portlet;
 
 import static org.exoplatform.webconferencing.Utils.asJSON;
-import static org.exoplatform.webconferencing.Utils.getCurrentContext;
+import static org.exoplatform.webconferencing.Utils.getCurrentContextJSON;
 import static org.exoplatform.webconferencing.Utils.getResourceMessages;
 
 import java.io.IOException;
@@ -41,7 +41,6 @@ import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
 import org.exoplatform.services.resources.ResourceBundleService;
 import org.exoplatform.web.application.JavascriptManager;
-import org.exoplatform.webconferencing.ContextInfo;
 import org.exoplatform.webconferencing.UserInfo;
 import org.exoplatform.webconferencing.Utils;
 import org.exoplatform.webconferencing.WebConferencingService;
@@ -78,8 +77,7 @@ public class WebConferencingPortlet extends GenericPortlet {
   protected void doView(final RenderRequest request, final RenderResponse response) throws PortletException, IOException {
     final String remoteUser = request.getRemoteUser();
     try {
-      ContextInfo context = getCurrentContext(remoteUser, request.getLocale());
-      String contextJson = asJSON(context);
+      String contextJson = getCurrentContextJSON(remoteUser, request.getLocale());
 
       UserInfo exoUser = webConferencing.getUserInfo(remoteUser);
       if (exoUser != null) {
@@ -84,6 +84,7 @@
 	 * Spools buffered logs to CometD channel.
 	 */
 	function LogSpooler() {
+		var LOGS_BATCH_SIZE = 100;
 		var lastMessage;
 		var buff = [];
 		
@@ -92,19 +93,21 @@
 				if (cometd) {
 					var bucket = buff; 
 					buff = [];
-					// spool in CometD batch
+					// spool in batches of records, each in a single remote call
 					try {
-						cometd.batch(function() {
-							for (var i=0; i<bucket.length; i++) {
-								var msg = bucket[i];
-								cometd.remoteCall("/webconferencing/logs", msg, function(response) {
-									var result = tryParseJson(response);
-									if (!response.successful) {
-										log.trace("ERROR: Failed to send log message to remote spooler", cometdError(response));
-									}
-								});
-							}
-						});
+						for (var i=0; i<bucket.length; i+=LOGS_BATCH_SIZE) {
+							var records = bucket.slice(i, i + LOGS_BATCH_SIZE);
+							cometd.remoteCall("/webconferencing/logs/batch", cometdParams({
+								records : records
+							}), function(response) {
+								var result = tryParseJson(response);
+								if (!response.successful) {
+									log.trace("ERROR: Failed to send log messages to remote spooler", cometdError(response));
+								} else if (result && result.rejected > 0) {
+									log.trace("WARNING: Remote spooler rejected " + result.rejected + " log messages");
+								}
+							});
+						}
 					} catch(err) {
 						log.trace("ERROR: Failed to send log messages to remote spooler (in CometD batch of " + bucket.length + " logs)", err);
 					}
@@ -163,6 +166,7 @@
 		
 		var providerType = null;
 		var prefix = null;
+		var callId = null;
 		var remote = false;
 		
 		// Private methods
@@ -187,13 +191,16 @@
 				} else {
 					data = message;
 				}
-				var msg = cometdParams({
+				var msg = {
 					data : data,
 					level : level,
 					prefix : prefix,
 					provider : providerType,
 					timestamp : date
-				});
+				};
+				if (callId) {
+					msg.callId = callId;
+				}
 				logSpooler.add(msg);
 			} // else, remote spooler not set			
 		};
@@ -271,6 +278,14 @@
 				return this;
 			};
 			
+			/**
+			 * Sets ID of a call the messages belong to, remote log records will be searchable by this ID.
+			 */
+			this.call = function(theCallId) {
+				callId = theCallId ? theCallId : null;
+				return this;
+			};
+			
 			/**
 			 * Add info level message to user log.
 			 */
@@ -2236,6 +2251,31 @@
 			return process.promise();
 		};
 		
+		/**
+		 * Send a signal to other peers of the call via a relay remote call of a provider (e.g. WebRTC signaling).
+		 * The relay delivers the signal as a call update to peers' call channel subscription (see onCallUpdate()).
+		 */
+		this.toCallSignal = function(relayChannel, callId, signal) {
+			var process = $.Deferred();
+			if (cometd) {
+				cometd.remoteCall(relayChannel, cometdParams({
+					callId : callId,
+					signal : signal
+				}), function(response) {
+					var result = tryParseJson(response);
+					if (response.successful) {
+						process.resolve(result);
+					} else {
+						process.reject(result);
+					}
+				});
+			} else {
+				log.trace("Call signals require CometD. Was call: " + callId);
+				process.reject("CometD required");
+			}
+			return process.promise();
+		};
+
 		this.getProvidersConfig = function(forceUpdate) {
 			var process;
 			if (!forceUpdate && providersConfig) {
@@ -18,6 +18,7 @@
  */
 package org.exoplatform.webconferencing.webrtc;
 
+import static org.exoplatform.webconferencing.Utils.asJSON;
 import static org.exoplatform.webconferencing.Utils.getResourceMessages;
 import static org.json.JSONObject.NULL;
 
@@ -26,7 +27,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.exoplatform.commons.api.settings.SettingService;
 import org.exoplatform.commons.api.settings.SettingValue;
@@ -70,6 +74,9 @@ public class WebrtcProvider extends CallProvider {
   /** The Constant VERSION. */
   public static final String    VERSION                  = "1.0.0";
 
+  /** The Constant SETTINGS_CACHE_MAX_SIZE, max number of settings JSON cached in a snapshot. */
+  protected static final int    SETTINGS_CACHE_MAX_SIZE  = 100;
+
   /** The Constant LOG. */
   protected static final Log    LOG                      = ExoLogger.getLogger(WebrtcProvider.class);
 
@@ -154,7 +161,38 @@ public class WebrtcProvider extends CallProvider {
      * @return the WebRTC settings
      */
     public WebrtcSettings build() {
-      WebrtcSettings settings = new WebrtcSettings(callUri, rtcConfiguration.clone(true));
+      return build(rtcSnapshot);
+    }
+
+    /**
+     * Builds the WebRTC settings JSON. It will be built once for the call URI and locale until the RTC
+     * configuration will be saved.
+     *
+     * @return the string with JSON
+     * @throws Exception if JSON generation failed
+     */
+    public String buildJSON() throws Exception {
+      RTCSnapshot snapshot = rtcSnapshot;
+      String key = new StringBuilder().append(callUri).append('@').append(locale).toString();
+      String json = snapshot.settingsJSON.get(key);
+      if (json == null) {
+        if (snapshot.settingsJSON.size() >= SETTINGS_CACHE_MAX_SIZE) {
+          snapshot.settingsJSON.clear();
+        }
+        json = asJSON(build(snapshot));
+        snapshot.settingsJSON.put(key, json);
+      }
+      return json;
+    }
+
+    /**
+     * Builds the WebRTC settings from given snapshot.
+     *
+     * @param snapshot the snapshot
+     * @return the WebRTC settings
+     */
+    protected WebrtcSettings build(RTCSnapshot snapshot) {
+      WebrtcSettings settings = new WebrtcSettings(callUri, snapshot.configuration.clone(true));
       if (locale != null) {
         settings.addMessages(getResourceMessages("locale.webrtc.WebRTCClient", locale));
       }
@@ -162,6 +200,78 @@ public class WebrtcProvider extends CallProvider {
     }
   }
 
+  /**
+   * Immutable snapshot of RTC configuration with its version and pre-serialized JSON. A new snapshot will be
+   * created on each save of the configuration.
+   */
+  public static final class RTCSnapshot {
+
+    /** The version. */
+    private final long                version;
+
+    /** The configuration, it should not be modified. */
+    private final RTCConfiguration    configuration;
+
+    /** The configuration JSON. */
+    private final String              json;
+
+    /** The entity tag value (not quoted). */
+    private final String              tag;
+
+    /** The settings JSON by call URI and locale. */
+    private final Map<String, String> settingsJSON = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new RTC snapshot.
+     *
+     * @param version the version
+     * @param configuration the configuration
+     * @throws Exception if JSON generation failed
+     */
+    private RTCSnapshot(long version, RTCConfiguration configuration) throws Exception {
+      this.version = version;
+      this.configuration = configuration.clone(false);
+      this.json = asJSON(this.configuration);
+      this.tag = Long.toString(version, 36) + "-" + Integer.toHexString(json.hashCode());
+    }
+
+    /**
+     * Gets the version.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Gets the configuration JSON.
+     *
+     * @return the JSON
+     */
+    public String getJSON() {
+      return json;
+    }
+
+    /**
+     * Gets the entity tag value (not quoted) for HTTP caching.
+     *
+     * @return the tag
+     */
+    public String getTag() {
+      return tag;
+    }
+
+    /**
+     * Gets a copy of the configuration.
+     *
+     * @return the RTC configuration
+     */
+    public RTCConfiguration getConfiguration() {
+      return configuration.clone(false);
+    }
+  }
+
   /**
    * The Class RTCConfiguration.
    */
@@ -425,6 +535,12 @@ public class WebrtcProvider extends CallProvider {
   /** The rtc configuration. */
   protected RTCConfiguration            rtcConfiguration;
 
+  /** The rtc configuration snapshot. */
+  protected volatile RTCSnapshot        rtcSnapshot;
+
+  /** The snapshot versions. */
+  protected final AtomicLong            snapshotVersion = new AtomicLong();
+
   /**
    * Instantiates a new WebRTC provider.
    *
@@ -465,6 +581,11 @@ public class WebrtcProvider extends CallProvider {
     } else {
       this.rtcConfiguration = rtcConfiguration;
     }
+    try {
+      this.rtcSnapshot = new RTCSnapshot(snapshotVersion.incrementAndGet(), this.rtcConfiguration);
+    } catch (Exception e) {
+      throw new ConfigurationException("Error creating RTC configuration snapshot", e);
+    }
 
     // Log warning if default (aka public) ICE servers in use
     for (ICEServer ices : this.rtcConfiguration.getIceServers()) {
@@ -483,7 +604,16 @@ public class WebrtcProvider extends CallProvider {
    * @return the rtc configuration
    */
   public RTCConfiguration getRtcConfiguration() {
-    return this.rtcConfiguration.clone(false); // all ICE servers will be here
+    return this.rtcSnapshot.getConfiguration(); // all ICE servers will be here
+  }
+
+  /**
+   * Gets the current RTC configuration snapshot.
+   *
+   * @return the RTC snapshot
+   */
+  public RTCSnapshot getRtcSnapshot() {
+    return rtcSnapshot;
   }
 
   /**
@@ -492,9 +622,11 @@ public class WebrtcProvider extends CallProvider {
    * @param conf the conf
    * @throws Exception the exception
    */
-  public void saveRtcConfiguration(RTCConfiguration conf) throws Exception {
+  public synchronized void saveRtcConfiguration(RTCConfiguration conf) throws Exception {
+    RTCSnapshot snapshot = new RTCSnapshot(snapshotVersion.incrementAndGet(), conf);
     saveRtcConfig(conf);
     this.rtcConfiguration = conf;
+    this.rtcSnapshot = snapshot;
     logRemoteLogEnabled();
   }
 
@@ -0,0 +1,624 @@
+/*
+ * Copyright (C) 2003-2018 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.exoplatform.webconferencing.webrtc.cometd;
+
+import static org.exoplatform.webconferencing.WebConferencingService.isValidId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+
+import org.cometd.annotation.RemoteCall;
+import org.cometd.annotation.ServerAnnotationProcessor;
+import org.cometd.annotation.Service;
+import org.cometd.annotation.Session;
+import org.cometd.bayeux.server.BayeuxServer;
+import org.cometd.bayeux.server.ServerChannel;
+import org.cometd.bayeux.server.ServerSession;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.exoplatform.commons.utils.PropertyManager;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.exoplatform.webconferencing.client.ErrorInfo;
+import org.exoplatform.webconferencing.cometd.CometdWebConferencingService;
+import org.exoplatform.webconferencing.webrtc.WebrtcProvider;
+import org.mortbay.cometd.continuation.EXoContinuationBayeux;
+import org.picocontainer.Startable;
+
+/**
+ * Relay of WebRTC signaling messages (hello, offer, answer, ICE candidates) between peers of a call. Clients
+ * send a signal by a remote call and the relay delivers it directly to other sessions subscribed to the
+ * call channel, thus the message doesn't go through the call channel publishing (and its listeners) and
+ * doesn't return to the sender. Only sessions subscribed to the call channel can send signals to it. If
+ * there are no peer sessions on this server, the signal will be published to the call channel to let it
+ * reach peers connected elsewhere.<br>
+ * ICE candidates of a session in a call are accumulated for a short window (see
+ * {@link #CANDIDATES_WINDOW_PROPERTY}), duplicates dropped, and then delivered to peers as a single
+ * message with <code>candidates</code> array. The end of candidates (an empty candidate) delivers the
+ * accumulated batch immediately, as well as any other signal of the same session.<br>
+ *
+ * Created by The eXo Platform SAS
+ *
+ * @author <a href="mailto:pnedonosko@exoplatform.com">Peter Nedonosko</a>
+ * @version $Id: WebrtcSignalingService.java 00000 Oct 18, 2018 pnedonosko $
+ */
+public class WebrtcSignalingService implements Startable {
+
+  /** The Constant SIGNAL_CHANNEL_NAME. */
+  public static final String                   SIGNAL_CHANNEL_NAME        = "/webconferencing/webrtc/signal";
+
+  /** The Constant CANDIDATES_MAX_SIZE, max number of ICE candidates in a single signal. */
+  public static final int                      CANDIDATES_MAX_SIZE        = 100;
+
+  /** The Constant CANDIDATES_WINDOW_PROPERTY, time in milliseconds to accumulate ICE candidates, zero to disable. */
+  public static final String                   CANDIDATES_WINDOW_PROPERTY = "webconferencing.webrtc.signal.candidatesWindow";
+
+  /** The Constant CANDIDATES_WINDOW_DEFAULT, in milliseconds. */
+  public static final long                     CANDIDATES_WINDOW_DEFAULT  = 50;
+
+  /** The Constant CANDIDATES_IDLE_TIME, in milliseconds, after it a batch of a silent session will be removed. */
+  public static final long                     CANDIDATES_IDLE_TIME       = 60000;
+
+  /** The Constant SIGNAL_TYPES, keys of signaling messages the relay recognizes. */
+  protected static final String[]              SIGNAL_TYPES               = new String[] { "hello", "offer", "answer",
+      "candidate", "candidates", "bye" };
+
+  /** The Constant LOG. */
+  protected static final Log                   LOG                        =
+                                                                          ExoLogger.getLogger(WebrtcSignalingService.class);
+
+  /** The exo bayeux. */
+  protected final EXoContinuationBayeux        exoBayeux;
+
+  /** The service. */
+  protected final SignalingService             service;
+
+  /** The relayed signals count. */
+  protected final AtomicLong                   relayedCount               = new AtomicLong();
+
+  /** The delivered messages count (a signal delivered to each peer session). */
+  protected final AtomicLong                   deliveredCount             = new AtomicLong();
+
+  /** The count of signals published to the call channel (no peers on this server). */
+  protected final AtomicLong                   publishedCount             = new AtomicLong();
+
+  /** The received ICE candidates count. */
+  protected final AtomicLong                   candidatesCount            = new AtomicLong();
+
+  /** The dropped duplicate ICE candidates count. */
+  protected final AtomicLong                   duplicatesCount            = new AtomicLong();
+
+  /** The delivered batches of ICE candidates count. */
+  protected final AtomicLong                   batchesCount               = new AtomicLong();
+
+  /** The candidates batches by call channel and sender session. */
+  protected final Map<String, CandidatesBatch> batches                    = new ConcurrentHashMap<>();
+
+  /** The scheduler of batches delivery. */
+  protected final ScheduledExecutorService     scheduler;
+
+  /** The candidates accumulation window, in milliseconds. */
+  protected final long                         candidatesWindow;
+
+  /**
+   * ICE candidates of a sender session in a call waiting for delivery to peers. Candidates already seen will
+   * be dropped as duplicates, until the end of candidates.
+   */
+  class CandidatesBatch {
+
+    /** The key. */
+    final String        key;
+
+    /** The call channel id. */
+    final String        channelId;
+
+    /** The sender session. */
+    final ServerSession sender;
+
+    /** The keys of candidates already seen. */
+    final Set<String>   seen    = new HashSet<>();
+
+    /** The pending candidates. */
+    List<Object>        pending = new ArrayList<>();
+
+    /** The message fields (provider, sender, host) of the last signal. */
+    Map<String, Object> header;
+
+    /** The scheduled delivery. */
+    ScheduledFuture<?>  delivery;
+
+    /** The last update time. */
+    long                lastUpdate;
+
+    /** The closed flag, closed batch delivered its end and removed, it doesn't accept candidates. */
+    boolean             closed;
+
+    /**
+     * Instantiates a new candidates batch.
+     *
+     * @param key the key
+     * @param channelId the channel id
+     * @param sender the sender
+     */
+    CandidatesBatch(String key, String channelId, ServerSession sender) {
+      this.key = key;
+      this.channelId = channelId;
+      this.sender = sender;
+    }
+  }
+
+  /**
+   * The CometD service relaying the signals.
+   */
+  @Service("webconferencing-webrtc")
+  public class SignalingService {
+
+    /** The bayeux. */
+    @Inject
+    private BayeuxServer  bayeux;
+
+    /** The server session. */
+    @Session
+    private ServerSession serverSession;
+
+    /**
+     * Remote calls from clients to relay a signal to other peers of the call.
+     *
+     * @param caller the caller
+     * @param args the data
+     */
+    @RemoteCall(SIGNAL_CHANNEL_NAME)
+    @SuppressWarnings("unchecked")
+    public void rcSignal(final RemoteCall.Caller caller, final Object args) {
+      ServerSession session = caller.getServerSession();
+      try {
+        // We will receive following entries:
+        // exoId - string, eXo's username who sends the signal
+        // callId - string, ID of the call
+        // signal - object with the message for peers (provider, sender, host and one of SIGNAL_TYPES)
+        Map<String, Object> params = (Map<String, Object>) args;
+        String currentUserId = asString(params.get("exoId"));
+        if (isValidId(currentUserId)) {
+          String callId = asString(params.get("callId"));
+          Object signalObj = params.get("signal");
+          if (isValidId(callId) && signalObj instanceof Map) {
+            Map<String, Object> signal = (Map<String, Object>) signalObj;
+            String error = validateSignal(signal);
+            if (error == null) {
+              String channelId = CometdWebConferencingService.CALL_SUBSCRIPTION_CHANNEL_NAME + "/" + callId;
+              ServerChannel channel = bayeux.getChannel(channelId);
+              if (channel != null && channel.getSubscribers().contains(session)) {
+                // Peers trust the sender from the message, it should be the user of this session
+                Map<String, Object> message = new HashMap<>(signal);
+                message.put("sender", currentUserId);
+                List<Object> candidates = candidatesList(message);
+                if (candidates != null && candidatesWindow > 0) {
+                  caller.result("{\"accepted\":" + addCandidates(session, channel, message, candidates) + "}");
+                } else {
+                  // Candidates accumulated before should reach peers before this signal
+                  deliverCandidates(channelId + "#" + session.getId(), false);
+                  caller.result("{\"delivered\":" + relay(session, channel, message) + "}");
+                }
+              } else {
+                caller.failure(ErrorInfo.clientError("Not subscribed to the call").asJSON());
+              }
+            } else {
+              caller.failure(ErrorInfo.clientError(error).asJSON());
+            }
+          } else {
+            caller.failure(ErrorInfo.clientError("Wrong request parameters: callId or signal").asJSON());
+          }
+        } else {
+          caller.failure(ErrorInfo.clientError("Unauthorized user").asJSON());
+        }
+      } catch (Throwable e) {
+        LOG.error("Error processing signal from client " + session.getId(), e);
+        caller.failure(ErrorInfo.serverError("Error processing signal: " + e.getMessage()).asJSON());
+      }
+    }
+
+    /**
+     * Deliver the message to other sessions of the call channel, or publish to the channel if no such
+     * sessions found.
+     *
+     * @param sender the sender session
+     * @param channel the call channel
+     * @param message the message
+     * @return the number of sessions the message delivered to, zero if it was published
+     */
+    protected int relay(ServerSession sender, ServerChannel channel, Map<String, Object> message) {
+      relayedCount.incrementAndGet();
+      int delivered = 0;
+      for (ServerSession peer : channel.getSubscribers()) {
+        if (peer != sender && !peer.isLocalSession()) {
+          peer.deliver(serverSession, channel.getId(), message);
+          delivered++;
+        }
+      }
+      if (delivered > 0) {
+        deliveredCount.addAndGet(delivered);
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Relayed signal to " + delivered + " peers in " + channel.getId());
+        }
+      } else {
+        // Peers may be connected to other server
+        channel.publish(serverSession, message);
+        publishedCount.incrementAndGet();
+      }
+      return delivered;
+    }
+
+    /**
+     * Add ICE candidates to the batch of the sender session, duplicates will be skipped. The batch will be
+     * delivered after the accumulation window, or immediately if the end of candidates found.
+     *
+     * @param sender the sender session
+     * @param channel the call channel
+     * @param message the signal message
+     * @param candidates the candidates
+     * @return the number of accepted (not duplicate) candidates
+     */
+    protected int addCandidates(ServerSession sender,
+                                ServerChannel channel,
+                                Map<String, Object> message,
+                                List<Object> candidates) {
+      String key = channel.getId() + "#" + sender.getId();
+      int accepted = 0;
+      boolean end = false;
+      CandidatesBatch batch;
+      boolean added = false;
+      do {
+        batch = batches.computeIfAbsent(key, k -> new CandidatesBatch(k, channel.getId(), sender));
+        synchronized (batch) {
+          if (batch.closed) {
+            // The batch delivered its end and removed meanwhile, a new one will be created
+            continue;
+          }
+          added = true;
+          for (Object c : candidates) {
+            if (c instanceof Map) {
+              Map<?, ?> candidate = (Map<?, ?>) c;
+              candidatesCount.incrementAndGet();
+              if (candidate.isEmpty()) {
+                // End of candidates goes last in the batch
+                end = true;
+                batch.pending.add(candidate);
+                accepted++;
+              } else if (batch.seen.add(candidateKey(candidate))) {
+                batch.pending.add(candidate);
+                accepted++;
+              } else {
+                duplicatesCount.incrementAndGet();
+              }
+            }
+          }
+          Map<String, Object> header = new HashMap<>(message);
+          header.remove("candidate");
+          header.remove("candidates");
+          batch.header = header;
+          batch.lastUpdate = System.currentTimeMillis();
+          if (!end && batch.delivery == null && batch.pending.size() > 0) {
+            batch.delivery = scheduler.schedule(() -> deliverCandidates(key, false), candidatesWindow, TimeUnit.MILLISECONDS);
+          }
+        }
+      } while (!added);
+      if (end) {
+        deliverCandidates(batch, true);
+      }
+      return accepted;
+    }
+
+    /**
+     * Deliver pending candidates of a batch to peers.
+     *
+     * @param key the batch key
+     * @param end if <code>true</code> the batch will be closed and removed
+     */
+    protected void deliverCandidates(String key, boolean end) {
+      CandidatesBatch batch = batches.get(key);
+      if (batch != null) {
+        deliverCandidates(batch, end);
+      }
+    }
+
+    /**
+     * Deliver pending candidates of a batch to peers.
+     *
+     * @param batch the batch
+     * @param end if <code>true</code> the batch will be closed and removed
+     */
+    protected void deliverCandidates(CandidatesBatch batch, boolean end) {
+      synchronized (batch) {
+        if (batch.closed) {
+          return;
+        }
+        if (end) {
+          // Removed under the batch lock: candidates added after this will go to a new batch
+          batch.closed = true;
+          batches.remove(batch.key, batch);
+        }
+        if (batch.delivery != null) {
+          batch.delivery.cancel(false);
+          batch.delivery = null;
+        }
+        if (batch.pending.size() > 0) {
+          ServerChannel channel = bayeux.getChannel(batch.channelId);
+          if (channel != null) {
+            Map<String, Object> message = new HashMap<>(batch.header);
+            message.put("candidates", batch.pending);
+            relay(batch.sender, channel, message);
+            batchesCount.incrementAndGet();
+          } else if (LOG.isDebugEnabled()) {
+            LOG.debug("Call channel removed, skipped " + batch.pending.size() + " candidates for " + batch.channelId);
+          }
+          batch.pending = new ArrayList<>();
+        }
+      }
+    }
+
+    /**
+     * Remove batches of sessions silent longer than {@link #CANDIDATES_IDLE_TIME} or disconnected.
+     */
+    protected void cleanupCandidates() {
+      long idleTime = System.currentTimeMillis() - CANDIDATES_IDLE_TIME;
+      for (CandidatesBatch batch : batches.values()) {
+        if (batch.lastUpdate < idleTime || !batch.sender.isConnected()) {
+          deliverCandidates(batch, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Instantiates a new WebRTC signaling service.
+   *
+   * @param exoBayeux the exo bayeux
+   */
+  public WebrtcSignalingService(EXoContinuationBayeux exoBayeux) {
+    this.exoBayeux = exoBayeux;
+    this.service = new SignalingService();
+
+    long window = CANDIDATES_WINDOW_DEFAULT;
+    String windowValue = PropertyManager.getProperty(CANDIDATES_WINDOW_PROPERTY);
+    if (windowValue != null) {
+      try {
+        window = Long.parseLong(windowValue.trim());
+      } catch (NumberFormatException e) {
+        LOG.warn("Wrong ICE candidates window: " + windowValue + ", will use " + CANDIDATES_WINDOW_DEFAULT);
+      }
+    }
+    this.candidatesWindow = window;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "webconferencing-webrtc-signal");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() {
+    final AtomicReference<ServerAnnotationProcessor> processor = new AtomicReference<>();
+    // need initiate process after Bayeux server starts
+    exoBayeux.addLifeCycleListener(new LifeCycle.Listener() {
+      @Override
+      public void lifeCycleStarted(LifeCycle event) {
+        ServerAnnotationProcessor p = new ServerAnnotationProcessor(exoBayeux);
+        processor.set(p);
+        p.process(service);
+      }
+
+      @Override
+      public void lifeCycleStopped(LifeCycle event) {
+        ServerAnnotationProcessor p = processor.get();
+        if (p != null) {
+          p.deprocess(service);
+        }
+      }
+
+      @Override
+      public void lifeCycleStarting(LifeCycle event) {
+        // Nothing
+      }
+
+      @Override
+      public void lifeCycleFailure(LifeCycle event, Throwable cause) {
+        // Nothing
+      }
+
+      @Override
+      public void lifeCycleStopping(LifeCycle event) {
+        // Nothing
+      }
+    });
+    scheduler.scheduleWithFixedDelay(service::cleanupCandidates,
+                                     CANDIDATES_IDLE_TIME,
+                                     CANDIDATES_IDLE_TIME,
+                                     TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stop() {
+    scheduler.shutdownNow();
+    batches.clear();
+  }
+
+  /**
+   * Gets the relayed signals count.
+   *
+   * @return the relayed count
+   */
+  public long getRelayedCount() {
+    return relayedCount.get();
+  }
+
+  /**
+   * Gets the count of messages delivered to peer sessions.
+   *
+   * @return the delivered count
+   */
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  /**
+   * Gets the count of signals published to the call channel because no peers found on this server.
+   *
+   * @return the published count
+   */
+  public long getPublishedCount() {
+    return publishedCount.get();
+  }
+
+  /**
+   * Gets the received ICE candidates count.
+   *
+   * @return the candidates count
+   */
+  public long getCandidatesCount() {
+    return candidatesCount.get();
+  }
+
+  /**
+   * Gets the dropped duplicate ICE candidates count.
+   *
+   * @return the duplicates count
+   */
+  public long getDuplicatesCount() {
+    return duplicatesCount.get();
+  }
+
+  /**
+   * Gets the delivered batches of ICE candidates count.
+   *
+   * @return the batches count
+   */
+  public long getBatchesCount() {
+    return batchesCount.get();
+  }
+
+  /**
+   * Gets the ICE candidates accumulation window.
+   *
+   * @return the candidates window in milliseconds
+   */
+  public long getCandidatesWindow() {
+    return candidatesWindow;
+  }
+
+  /**
+   * Validate a signal message: it should be of WebRTC provider and contain one of recognized signal types.
+   *
+   * @param signal the signal
+   * @return the error message or <code>null</code> if the signal is valid
+   */
+  protected String validateSignal(Map<String, Object> signal) {
+    if (!WebrtcProvider.WEBRTC_TYPE.equals(signal.get("provider"))) {
+      return "Not a WebRTC signal";
+    }
+    for (String type : SIGNAL_TYPES) {
+      Object value = signal.get(type);
+      if (value != null) {
+        if ("candidates".equals(type)) {
+          int size;
+          if (value instanceof Object[]) {
+            size = ((Object[]) value).length;
+          } else if (value instanceof Collection) {
+            size = ((Collection<?>) value).size();
+          } else {
+            return "Wrong signal candidates";
+          }
+          if (size > CANDIDATES_MAX_SIZE) {
+            return "Too many candidates, max " + CANDIDATES_MAX_SIZE + " accepted";
+          }
+        }
+        return null;
+      }
+    }
+    return "Not recognized signal";
+  }
+
+  /**
+   * ICE candidates of a signal message: a single candidate or the candidates array.
+   *
+   * @param message the message
+   * @return the list of candidates or <code>null</code> if it is not a candidates signal
+   */
+  protected List<Object> candidatesList(Map<String, Object> message) {
+    Object candidates = message.get("candidates");
+    if (candidates instanceof Object[]) {
+      return Arrays.asList((Object[]) candidates);
+    } else if (candidates instanceof Collection) {
+      return new ArrayList<>((Collection<?>) candidates);
+    }
+    Object candidate = message.get("candidate");
+    if (candidate != null) {
+      return Collections.singletonList(candidate);
+    }
+    return null;
+  }
+
+  /**
+   * Key of an ICE candidate to find duplicates.
+   *
+   * @param candidate the candidate
+   * @return the string
+   */
+  protected String candidateKey(Map<?, ?> candidate) {
+    return new StringBuilder().append(candidate.get("candidate"))
+                              .append('|')
+                              .append(candidate.get("sdpMid"))
+                              .append('|')
+                              .append(candidate.get("sdpMLineIndex"))
+                              .toString();
+  }
+
+  /**
+   * Return object if it's String instance or null if it is not.
+   *
+   * @param obj the obj
+   * @return the string or null
+   */
+  protected String asString(Object obj) {
+    if (obj != null && String.class.isAssignableFrom(obj.getClass())) {
+      return String.class.cast(obj);
+    }
+    return null;
+  }
+}
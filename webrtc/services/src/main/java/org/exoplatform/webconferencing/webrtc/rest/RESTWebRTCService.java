@@ -26,8 +26,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
@@ -39,6 +42,7 @@ import org.exoplatform.webconferencing.WebConferencingService;
 import org.exoplatform.webconferencing.client.ErrorInfo;
 import org.exoplatform.webconferencing.webrtc.WebrtcProvider;
 import org.exoplatform.webconferencing.webrtc.WebrtcProvider.RTCConfiguration;
+import org.exoplatform.webconferencing.webrtc.WebrtcProvider.RTCSnapshot;
 import org.json.JSONObject;
 
 /**
@@ -62,6 +66,12 @@ public class RESTWebRTCService implements ResourceContainer {
   /** The cache control. */
   private final CacheControl             cacheControl;
 
+  /**
+   * The settings cache control: settings contain TURN credentials and should not be stored, but clients
+   * can validate their copy with the entity tag.
+   */
+  private final CacheControl             settingsCacheControl;
+
   /**
    * Instantiates a new REST service for WebRTC provider in Web Conferencing.
    *
@@ -73,6 +83,10 @@ public class RESTWebRTCService implements ResourceContainer {
     this.cacheControl = new CacheControl();
     this.cacheControl.setNoCache(true);
     this.cacheControl.setNoStore(true);
+    this.settingsCacheControl = new CacheControl();
+    this.settingsCacheControl.setPrivate(true);
+    this.settingsCacheControl.setNoCache(true);
+    this.settingsCacheControl.setNoStore(true);
   }
 
   /**
@@ -117,22 +131,35 @@ public class RESTWebRTCService implements ResourceContainer {
   }
 
   /**
-   * Gets the settings.
+   * Gets the settings. Settings have an entity tag of current RTC configuration, if it matches the request
+   * then Not Modified (304) status will be returned without the content.
    *
    * @param uriInfo the uri info
+   * @param request the request
    * @return the settings
    */
   @GET
   @RolesAllowed("administrators")
   @Path("/settings") // TODO not used
-  public Response getSettings(@Context UriInfo uriInfo) {
+  public Response getSettings(@Context UriInfo uriInfo, @Context Request request) {
     ConversationState convo = ConversationState.getCurrent();
     if (convo != null) {
       String currentUserName = convo.getIdentity().getUserId();
       try {
         WebrtcProvider webrtc = (WebrtcProvider) webConferencing.getProvider(WebrtcProvider.WEBRTC_TYPE);
         if (webrtc != null) {
-          return Response.ok().cacheControl(cacheControl).entity(webrtc.getRtcConfiguration()).build();
+          RTCSnapshot snapshot = webrtc.getRtcSnapshot();
+          EntityTag etag = new EntityTag(snapshot.getTag());
+          ResponseBuilder notModified = request.evaluatePreconditions(etag);
+          if (notModified != null) {
+            return notModified.cacheControl(settingsCacheControl).tag(etag).build();
+          }
+          return Response.ok()
+                         .cacheControl(settingsCacheControl)
+                         .tag(etag)
+                         .type(MediaType.APPLICATION_JSON)
+                         .entity(snapshot.getJSON())
+                         .build();
         } else {
           return Response.status(Status.NOT_FOUND)
                          .cacheControl(cacheControl)
@@ -5,11 +5,15 @@ package org.exoplatform.webconferencing.webrtc.server;
 
 import static org.exoplatform.webconferencing.Utils.asJSON;
 import static org.exoplatform.webconferencing.Utils.buildUrl;
-import static org.exoplatform.webconferencing.Utils.getCurrentContext;
+import static org.exoplatform.webconferencing.Utils.getCurrentContextJSON;
 import static org.exoplatform.webconferencing.webrtc.server.WebrtcContext.CALL_REDIRECT;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -18,11 +22,9 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.exoplatform.container.ExoContainer;
 import org.exoplatform.container.web.AbstractHttpServlet;
-import org.exoplatform.webconferencing.ContextInfo;
 import org.exoplatform.webconferencing.UserInfo;
 import org.exoplatform.webconferencing.WebConferencingService;
 import org.exoplatform.webconferencing.webrtc.WebrtcProvider;
-import org.exoplatform.webconferencing.webrtc.WebrtcProvider.WebrtcSettings;
 import org.gatein.common.logging.Logger;
 import org.gatein.common.logging.LoggerFactory;
 
@@ -43,6 +45,9 @@ public class WebrtcCallServlet extends AbstractHttpServlet {
   /** The Constant SERVER_ERROR_PAGE. */
   private final static String   SERVER_ERROR_PAGE = "/WEB-INF/pages/servererror.html";
 
+  /** The servlet start tag, it makes pages of a previous start (other JSP or scripts) not matching. */
+  private final String          startTag          = Long.toString(System.currentTimeMillis(), 36);
+
   /**
    * Instantiates a new WebRTC call servlet.
    */
@@ -90,20 +95,31 @@ public class WebrtcCallServlet extends AbstractHttpServlet {
           if (remoteUser != null) {
             try {
               // init page scope with settings for webConferencing and WebRTC provider
-              ContextInfo context = getCurrentContext(remoteUser, req.getLocale());
-              req.setAttribute("contextInfo", asJSON(context));
+              String contextJson = getCurrentContextJSON(remoteUser, req.getLocale());
+              req.setAttribute("contextInfo", contextJson);
 
               UserInfo exoUser = webConferencing.getUserInfo(remoteUser);
               if (exoUser != null) {
-                req.setAttribute("userInfo", asJSON(exoUser));
-                WebrtcSettings settings = provider.settings()
-                                                  .callUri(buildUrl(req.getScheme(),
-                                                                    req.getServerName(),
-                                                                    req.getServerPort(),
-                                                                    "/webrtc/call"))
-                                                  .locale(req.getLocale())
-                                                  .build();
-                req.setAttribute("settings", asJSON(settings));
+                String userJson = asJSON(exoUser);
+                req.setAttribute("userInfo", userJson);
+                // Settings JSON built once per call URI and locale for current RTC configuration
+                String settingsJson = provider.settings()
+                                              .callUri(buildUrl(req.getScheme(),
+                                                                req.getServerName(),
+                                                                req.getServerPort(),
+                                                                "/webrtc/call"))
+                                              .locale(req.getLocale())
+                                              .buildJSON();
+                req.setAttribute("settings", settingsJson);
+
+                // Page content depends only on these JSONs: let the browser reuse its copy if nothing changed
+                String etag = pageTag(contextJson, userJson, settingsJson);
+                if ("GET".equals(req.getMethod()) && etag.equals(req.getHeader("If-None-Match"))) {
+                  resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                  return;
+                }
+                resp.setHeader("ETag", etag);
+                resp.setHeader("Cache-Control", "private, no-cache");
 
                 // XXX nasty-nasty-nasty include of CometD script
                 req.getRequestDispatcher("/WEB-INF/pages/call_part1.jsp").include(req, resp);
@@ -138,6 +154,33 @@ public class WebrtcCallServlet extends AbstractHttpServlet {
     }
   }
 
+  /**
+   * Entity tag of the call page (quoted), a digest of its dynamic content. The tag is made from already built
+   * JSONs, thus a not modified response saves only the page rendering (JSP and CometD script includes) and
+   * its transfer, but not building the page data.
+   *
+   * @param parts the page parts
+   * @return the string
+   */
+  protected String pageTag(String... parts) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      for (String part : parts) {
+        digest.update(part.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      return new StringBuilder().append('"')
+                                .append(startTag)
+                                .append('-')
+                                .append(Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()))
+                                .append('"')
+                                .toString();
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-1 is required in all Java platforms, should not happen
+      throw new IllegalStateException("Cannot create page digest", e);
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -105,6 +105,7 @@ if (eXo.webConferencing) {
 						if (webrtc.isSupportedPlatform()) {
 							log.debug("Call page: " + location.origin + location.pathname);
 							var callId = call.id;
+							log.call(callId);
 							var isGroup = callId.startsWith("g/");
 							if (isGroup) {
 								log.warn("Group calls not supported: " + callId);
@@ -337,8 +338,12 @@ if (eXo.webConferencing) {
 										});
 									}
 									
+									// For performance measurement: count sent signals until ICE connected
+									var signalsSent = 0;
 									var sendMessage = function(message) {
-										return webConferencing.toCallUpdate(callId, $.extend({
+										signalsSent++;
+										// Signals go via the WebRTC relay directly to peers of the call
+										return webConferencing.toCallSignal("/webconferencing/webrtc/signal", callId, $.extend({
 							    		"provider" : webrtc.getType(),
 							    		"sender" : currentUserId,
 							    		"host" : isOwner
@@ -389,13 +394,13 @@ if (eXo.webConferencing) {
 											handleConnectionError("Failed to send answer for " + callId, err);
 										});
 									};
-									var sendCandidate = function(candidate, number) {
+									var sendCandidates = function(candidates, number) {
 										return sendMessage({
-							        "candidate" : candidate
+							        "candidates" : candidates
 							      }).done(function() {
-							      	log.debug("Published candidate (" + number + ") for " + callId + ": " + JSON.stringify(candidate));
+							      	log.debug("Published candidates (" + number + ") for " + callId + ": " + JSON.stringify(candidates));
 										}).fail(function(err) {
-											handleConnectionError("Failed to send candidate (" + number + ") for " + callId, err);
+											handleConnectionError("Failed to send candidates (" + number + ") for " + callId, err);
 										});
 									};
 									
@@ -422,22 +427,35 @@ if (eXo.webConferencing) {
 									// Add peer listeners for connection flow
 									// For debug purpose: count local candidates to logs readability
 								  var localCandidateCnt = 0;
+								  // Candidates gathered before the connection will be sent in a single batch, 
+								  // later ones the server accumulates in batches for the peers
+								  var localCandidates = [];
+								  var endOfCandidates = {};
 									pc.onicecandidate = function (event) {
 										// This will happen when browser will be ready to exchange peers setup
 										var candidateNumb = ++localCandidateCnt;
 										log.debug("ICE candidate (" + candidateNumb + ") ready for " + callId);
+										// Empty candidate is a sign of finished ICE gathering, it goes last.
+										localCandidates.push(event.candidate ? event.candidate : endOfCandidates);
 										connection.then(function() {
-									    if (event.candidate) {
-									    	sendCandidate(event.candidate, candidateNumb);
-									    } else {
-									      // else All ICE candidates have been sent. ICE gathering has finished.
-									    	// Send empty candidate as a sign of finished ICE gathering.
-									    	sendCandidate({}, candidateNumb).done(function() {
-									    		log.debug("All ICE candidates (" + candidateNumb + ") have been sent");
-									    	});
-									    }
+											if (localCandidates.length > 0) {
+												var candidates = localCandidates;
+												localCandidates = [];
+												sendCandidates(candidates, candidateNumb).done(function() {
+													if (candidates.indexOf(endOfCandidates) >= 0) {
+											    	log.debug("All ICE candidates (" + candidateNumb + ") have been sent");
+													}
+										    });
+											} // otherwise, already sent with a batch
 										});
 								  };
+								  var connectStart = Date.now();
+								  pc.oniceconnectionstatechange = function() {
+								  	if (connectStart && (pc.iceConnectionState == "connected" || pc.iceConnectionState == "completed")) {
+								  		log.info("ICE connected in " + (Date.now() - connectStart) + "ms after " + signalsSent + " signals sent: " + callId);
+								  		connectStart = null;
+								  	}
+								  };
 								  var sdpConstraints = {
 						  			"offerToReceiveAudio": true, 
 					  				"offerToReceiveVideo": false/*,
@@ -549,48 +567,58 @@ if (eXo.webConferencing) {
 									
 								  // For debug purpose: count remote candidates to logs readability
 								  var remoteCandidateCnt = 0;
+									// Add ICE candidate of remote party, an empty candidate object means the end of candidates
+									var addRemoteCandidate = function(remoteCandidate) {
+										var candidateNumb = ++remoteCandidateCnt;
+										var candidateStr = JSON.stringify(remoteCandidate);
+										log.debug("Received candidate (" + candidateNumb + ") for " + callId + ": " + candidateStr);
+										var hasCandidate = Object.getOwnPropertyNames(remoteCandidate).length > 0;
+										if (hasCandidate) {
+											connection.then(function() {
+												log.trace("Creating candidate (" + candidateNumb + ") for " + callId);
+												var candidate;
+												// Check if the end of a generation of candidates indicated:
+												// https://developer.mozilla.org/en-US/docs/Web/API/RTCPeerConnection/icecandidate_event
+												// When an ICE negotiation session runs out of candidates to propose for a given RTCIceTransport, 
+												// it has completed gathering for a generation of candidates. 
+												// That this has occurred is indicated by an icecandidate event whose candidate string is empty ("").
+												// Peter's note: But this empty string will be send only by Firefox as for Apr 14, 2020. Tested on FF 75, Chrome 81, Edge 44/18.
+												// And Edge (44/18) will fail if add such candidate - we need add null instead, see below.
+												// We send all candidates to the peers and *here* we make a decision:
+												if (isEdge && typeof(remoteCandidate.candidate) === "string" && remoteCandidate.candidate.length === 0) {
+												  // XXX MS Edge requires special way of end-of-candidates informing 
+												  // https://stackoverflow.com/questions/57340034/webrtc-adapter-js-giving-addremotecandidate-error-while-connecting-audio-call
+												  // https://stackoverflow.com/questions/51641174/how-do-i-indicate-the-end-of-remote-candidates
+												  candidate = new RTCIceCandidate(null);
+												} else {
+												  // In other cases we let the browser to handle the candidate AS IS
+												  candidate = new RTCIceCandidate(remoteCandidate);															  
+												}
+												log.trace("Adding candidate (" + candidateNumb + ") for " + callId);
+												pc.addIceCandidate(candidate).then(function() {
+												  log.debug("Added candidate (" + candidateNumb + ") for " + callId);
+												}).catch(function(err) {
+													handleConnectionError("Failed to add candidate (" + candidateNumb + ") for " + callId, err);
+												});														
+											});
+										}
+										if (!hasCandidate) {
+											log.info("Call connected (added " + (candidateNumb - 1) + " ICE candidates): " + callId);
+										}
+									};
 									// Subscribe to the call updates
 									var listener = webConferencing.onCallUpdate(callId, function(message) {
 										if (message.provider == webrtc.getType()) {
 											if (message.sender != currentUserId) {
-												if (message.candidate) {
-													// ICE candidate of remote party (can happen several times)
-													var candidateNumb = ++remoteCandidateCnt;
-													var candidateStr = JSON.stringify(message.candidate);
-													log.debug("Received candidate (" + candidateNumb + ") for " + callId + ": " + candidateStr);
-													var hasCandidate = Object.getOwnPropertyNames(message.candidate).length > 0;
-													if (hasCandidate) {
-														connection.then(function() {
-															log.trace("Creating candidate (" + candidateNumb + ") for " + callId);
-															var candidate;
-															// Check if the end of a generation of candidates indicated:
-															// https://developer.mozilla.org/en-US/docs/Web/API/RTCPeerConnection/icecandidate_event
-															// When an ICE negotiation session runs out of candidates to propose for a given RTCIceTransport, 
-															// it has completed gathering for a generation of candidates. 
-															// That this has occurred is indicated by an icecandidate event whose candidate string is empty ("").
-															// Peter's note: But this empty string will be send only by Firefox as for Apr 14, 2020. Tested on FF 75, Chrome 81, Edge 44/18.
-															// And Edge (44/18) will fail if add such candidate - we need add null instead, see below.
-															// We send all candidates to the peers and *here* we make a decision:
-															if (isEdge && typeof(message.candidate.candidate) === "string" && message.candidate.candidate.length === 0) {
-															  // XXX MS Edge requires special way of end-of-candidates informing 
-															  // https://stackoverflow.com/questions/57340034/webrtc-adapter-js-giving-addremotecandidate-error-while-connecting-audio-call
-															  // https://stackoverflow.com/questions/51641174/how-do-i-indicate-the-end-of-remote-candidates
-															  candidate = new RTCIceCandidate(null);
-															} else {
-															  // In other cases we let the browser to handle the candidate AS IS
-															  candidate = new RTCIceCandidate(message.candidate);															  
-															}
-															log.trace("Adding candidate (" + candidateNumb + ") for " + callId);
-															pc.addIceCandidate(candidate).then(function() {
-															  log.debug("Added candidate (" + candidateNumb + ") for " + callId);
-															}).catch(function(err) {
-																handleConnectionError("Failed to add candidate (" + candidateNumb + ") for " + callId, err);
-															});														
-														});
-													}
-													if (!hasCandidate) {
-														log.info("Call connected (added " + (candidateNumb - 1) + " ICE candidates): " + callId);
+												if (message.candidates) {
+													// Batch of ICE candidates of remote party, the end of candidates can be the last in it
+													log.debug("Received " + message.candidates.length + " candidates for " + callId);
+													for (var ci = 0; ci < message.candidates.length; ci++) {
+														addRemoteCandidate(message.candidates[ci]);
 													}
+												} else if (message.candidate) {
+													// ICE candidate of remote party (can happen several times)
+													addRemoteCandidate(message.candidate);
 												} else if (message.offer) {
 													log.debug("Received offer for " + callId + ": " + JSON.stringify(message.offer));
 													// Offer of a caller on callee side